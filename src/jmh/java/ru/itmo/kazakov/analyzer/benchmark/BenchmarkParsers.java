@@ -0,0 +1,34 @@
+package ru.itmo.kazakov.analyzer.benchmark;
+
+import com.github.javaparser.JavaParser;
+import com.github.javaparser.JavaParserAdapter;
+import com.github.javaparser.ParserConfiguration;
+import ru.itmo.kazakov.analyzer.rule.ParserFeature;
+
+import javax.annotation.Nonnull;
+import java.util.Set;
+
+final class BenchmarkParsers {
+
+    private BenchmarkParsers() {
+        // utility class
+    }
+
+    @Nonnull
+    static JavaParser createJavaParser(@Nonnull final ParserConfiguration parserConfiguration) {
+        return new JavaParser(parserConfiguration.setLanguageLevel(ParserConfiguration.LanguageLevel.JAVA_21));
+    }
+
+    /**
+     * Wraps the parser the same way {@link ru.itmo.kazakov.analyzer.core.SourceFileAnalyzer} does.
+     */
+    @Nonnull
+    static JavaParserAdapter createJavaParserAdapter(@Nonnull final ParserConfiguration parserConfiguration) {
+        return new JavaParserAdapter(createJavaParser(parserConfiguration));
+    }
+
+    @Nonnull
+    static JavaParserAdapter createJavaParserAdapter(@Nonnull final Set<ParserFeature> parserFeatures) {
+        return createJavaParserAdapter(ParserFeature.createParserConfiguration(parserFeatures));
+    }
+}
@@ -0,0 +1,89 @@
+package ru.itmo.kazakov.analyzer.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import ru.itmo.kazakov.analyzer.core.*;
+import ru.itmo.kazakov.analyzer.corpus.CorpusGenerator;
+import ru.itmo.kazakov.analyzer.corpus.CorpusParameters;
+import ru.itmo.kazakov.analyzer.rule.VariableCouldBeFinalRule;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Full crawl: walking a seeded synthetic corpus, reading, parsing and analyzing every file.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class CrawlBenchmark {
+
+    @Param({"200"})
+    private int filesCount;
+
+    @Param({"1", "4"})
+    private int workersCount;
+
+    /**
+     * Every directory on the way must be a valid package name, otherwise the crawler does not enter it.
+     */
+    private Path rootPath;
+    private AnalyzerWarningCrawler analyzerWarningCrawler;
+
+    @Setup
+    public void setUp() throws IOException {
+        rootPath = Files.createTempDirectory("crawlBenchmark");
+        new CorpusGenerator(CorpusParameters.DEFAULT.withFilesCount(filesCount)).generate(rootPath);
+
+        final SourceCrawler sourceCrawler = new SourceCrawlerImpl();
+        final SourceFileReader sourceFileReader = new SourceFileReader(StandardCharsets.UTF_8);
+        if (workersCount > 1) {
+            analyzerWarningCrawler = new ParallelAnalyzerWarningCrawlerImpl(
+                    sourceCrawler,
+                    sourceFileReader,
+                    CrawlBenchmark::createSourceFileAnalyzer,
+                    workersCount,
+                    workersCount * 64
+            );
+        } else {
+            analyzerWarningCrawler = new AnalyzerWarningCrawlerImpl(
+                    sourceCrawler,
+                    sourceFileReader,
+                    createSourceFileAnalyzer()
+            );
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        try (final Stream<Path> paths = Files.walk(rootPath)) {
+            for (final Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    @Benchmark
+    public long crawl() throws IOException {
+        try (final Stream<SourceAwareAnalyzerWarning> warnings = analyzerWarningCrawler.crawl(rootPath)) {
+            return warnings.count();
+        }
+    }
+
+    private static SourceFileAnalyzer createSourceFileAnalyzer() {
+        final StaticAnalyzer staticAnalyzer = new StaticAnalyzerImpl(List.of(new VariableCouldBeFinalRule()));
+        return new SourceFileAnalyzer(
+                staticAnalyzer,
+                BenchmarkParsers.createJavaParser(staticAnalyzer.createParserConfiguration()),
+                SourceFileAnalyzer.Options.DEFAULT
+        );
+    }
+}
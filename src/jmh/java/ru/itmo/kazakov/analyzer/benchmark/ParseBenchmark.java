@@ -0,0 +1,52 @@
+package ru.itmo.kazakov.analyzer.benchmark;
+
+import com.github.javaparser.JavaParserAdapter;
+import com.github.javaparser.ast.CompilationUnit;
+import org.openjdk.jmh.annotations.*;
+import ru.itmo.kazakov.analyzer.rule.ParserFeature;
+
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Parsing alone, without any rules, with JavaParser defaults and with positions only.
+ * Sources are parsed through a {@link JavaParserAdapter}, the same call {@code SourceFileAnalyzer} makes.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ParseBenchmark {
+
+    @Param({"DEEP_NESTING", "MANY_LOCALS", "LONG_METHOD"})
+    private SourceShape shape;
+
+    @Param({"50", "500"})
+    private int size;
+
+    @Param({"TOKENS,COMMENTS", "POSITIONS"})
+    private String parserFeatures;
+
+    private JavaParserAdapter javaParserAdapter;
+    private String source;
+
+    @Setup
+    public void setUp() {
+        javaParserAdapter = BenchmarkParsers.createJavaParserAdapter(
+                Arrays
+                        .stream(parserFeatures.split(","))
+                        .map(ParserFeature::valueOf)
+                        .collect(Collectors.toCollection(() -> EnumSet.noneOf(ParserFeature.class)))
+        );
+        source = shape.render("Parsed", size);
+    }
+
+    @Benchmark
+    public CompilationUnit parse() {
+        return javaParserAdapter.parse(source);
+    }
+}
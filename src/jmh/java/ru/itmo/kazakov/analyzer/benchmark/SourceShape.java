@@ -0,0 +1,89 @@
+package ru.itmo.kazakov.analyzer.benchmark;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Shapes of generated benchmark sources, each stressing a different part of the analysis.
+ */
+public enum SourceShape {
+
+    /**
+     * A method with loops and branches nested {@code size} levels deep.
+     */
+    DEEP_NESTING {
+        @Override
+        void renderMethodBody(@Nonnull final StringBuilder source, final int size) {
+            source.append("        int total = 0;\n");
+            for (int depth = 0; depth < size; depth++) {
+                final String indent = "    ".repeat(depth + 2);
+                final String variable = "v" + depth;
+                switch (depth % 3) {
+                    case 0 -> source.append(indent)
+                            .append("for (int ").append(variable).append(" = 0; ")
+                            .append(variable).append(" < limit; ").append(variable).append("++) {\n");
+                    case 1 -> source.append(indent)
+                            .append("if (total % ").append(depth + 2).append(" == 0) {\n");
+                    default -> source.append(indent)
+                            .append("while (total < limit * ").append(depth).append(") {\n");
+                }
+                source.append(indent).append("    int local").append(depth).append(" = total + ").append(depth)
+                        .append(";\n");
+                source.append(indent).append("    total += local").append(depth).append(";\n");
+            }
+            for (int depth = size - 1; depth >= 0; depth--) {
+                source.append("    ".repeat(depth + 2)).append("}\n");
+            }
+            source.append("        return total;\n");
+        }
+    },
+
+    /**
+     * A method declaring {@code size} locals, every third of them reassigned.
+     */
+    MANY_LOCALS {
+        @Override
+        void renderMethodBody(@Nonnull final StringBuilder source, final int size) {
+            for (int i = 0; i < size; i++) {
+                source.append("        int local").append(i).append(" = limit + ").append(i).append(";\n");
+            }
+            for (int i = 0; i < size; i += 3) {
+                source.append("        local").append(i).append(" = local").append(i).append(" * 2;\n");
+            }
+            source.append("        return local0;\n");
+        }
+    },
+
+    /**
+     * A flat method of about {@code size} statements with a few locals reassigned over and over.
+     */
+    LONG_METHOD {
+        @Override
+        void renderMethodBody(@Nonnull final StringBuilder source, final int size) {
+            source.append("        int a = 0;\n        int b = 1;\n        int c = limit;\n");
+            for (int i = 0; i < size; i++) {
+                switch (i % 4) {
+                    case 0 -> source.append("        a = b + c;\n");
+                    case 1 -> source.append("        b++;\n");
+                    case 2 -> source.append("        final int d").append(i).append(" = a * b;\n");
+                    default -> source.append("        c -= a;\n");
+                }
+            }
+            source.append("        return a + b + c;\n");
+        }
+    };
+
+    /**
+     * @return source of a class {@code className} in package {@code benchmark} with a single method of this shape
+     */
+    @Nonnull
+    public String render(@Nonnull final String className, final int size) {
+        final StringBuilder source = new StringBuilder()
+                .append("package benchmark;\n\n")
+                .append("public class ").append(className).append(" {\n\n")
+                .append("    public int compute(int limit) {\n");
+        renderMethodBody(source, size);
+        return source.append("    }\n}\n").toString();
+    }
+
+    abstract void renderMethodBody(@Nonnull final StringBuilder source, final int size);
+}
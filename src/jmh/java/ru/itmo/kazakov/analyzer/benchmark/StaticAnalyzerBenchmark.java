@@ -0,0 +1,54 @@
+package ru.itmo.kazakov.analyzer.benchmark;
+
+import com.github.javaparser.ast.CompilationUnit;
+import org.openjdk.jmh.annotations.*;
+import ru.itmo.kazakov.analyzer.core.AnalyzerWarning;
+import ru.itmo.kazakov.analyzer.core.StaticAnalyzer;
+import ru.itmo.kazakov.analyzer.core.StaticAnalyzerImpl;
+import ru.itmo.kazakov.analyzer.core.StaticAnalyzerRuleState;
+import ru.itmo.kazakov.analyzer.rule.StaticAnalyzerRule;
+import ru.itmo.kazakov.analyzer.rule.VariableCouldBeFinalRule;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * {@link StaticAnalyzerImpl} running several rules over one pre-parsed compilation unit.
+ * There is a single rule implementation so far, so independent instances of it stand in for several rules.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StaticAnalyzerBenchmark {
+
+    @Param({"1", "4"})
+    private int rulesCount;
+
+    @Param({"DEEP_NESTING", "LONG_METHOD"})
+    private SourceShape shape;
+
+    private StaticAnalyzer staticAnalyzer;
+    private CompilationUnit compilationUnit;
+
+    @Setup
+    public void setUp() {
+        final List<StaticAnalyzerRule<? extends StaticAnalyzerRuleState>> rules = Stream
+                .<StaticAnalyzerRule<? extends StaticAnalyzerRuleState>>generate(VariableCouldBeFinalRule::new)
+                .limit(rulesCount)
+                .toList();
+        staticAnalyzer = new StaticAnalyzerImpl(rules);
+        compilationUnit = BenchmarkParsers
+                .createJavaParserAdapter(staticAnalyzer.createParserConfiguration())
+                .parse(shape.render("Analyzed", 200));
+    }
+
+    @Benchmark
+    public Map<StaticAnalyzerRule<? extends StaticAnalyzerRuleState>, List<AnalyzerWarning>> analyze() {
+        return staticAnalyzer.analyze(compilationUnit, staticAnalyzer.getRules());
+    }
+}
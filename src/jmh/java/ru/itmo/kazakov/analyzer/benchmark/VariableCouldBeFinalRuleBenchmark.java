@@ -0,0 +1,41 @@
+package ru.itmo.kazakov.analyzer.benchmark;
+
+import com.github.javaparser.ast.CompilationUnit;
+import org.openjdk.jmh.annotations.*;
+import ru.itmo.kazakov.analyzer.rule.VariableCouldBeFinalRule;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link VariableCouldBeFinalRule} on a pre-parsed compilation unit.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class VariableCouldBeFinalRuleBenchmark {
+
+    @Param({"DEEP_NESTING", "MANY_LOCALS", "LONG_METHOD"})
+    private SourceShape shape;
+
+    @Param({"50", "500"})
+    private int size;
+
+    private VariableCouldBeFinalRule rule;
+    private CompilationUnit compilationUnit;
+
+    @Setup
+    public void setUp() {
+        rule = new VariableCouldBeFinalRule();
+        compilationUnit = BenchmarkParsers
+                .createJavaParserAdapter(rule.getRequiredParserFeatures())
+                .parse(shape.render("Analyzed", size));
+    }
+
+    @Benchmark
+    public VariableCouldBeFinalRule.State analyze() {
+        return rule.analyze(compilationUnit);
+    }
+}
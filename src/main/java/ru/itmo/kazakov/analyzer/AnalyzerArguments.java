@@ -0,0 +1,252 @@
+package ru.itmo.kazakov.analyzer;
+
+import ru.itmo.kazakov.analyzer.core.AnalyzerWarningsFormat;
+
+import javax.annotation.Nonnull;
+import java.io.File;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+public record AnalyzerArguments(
+        @Nonnull Path workingDirectory,
+        @Nonnull Path rootPath,
+        int workersCount,
+        int readAheadLimit,
+        @Nonnull OptionalLong heapBudgetBytes,
+        @Nonnull OptionalLong fileTimeBudgetMillis,
+        @Nonnull List<Path> sourceRoots,
+        @Nonnull Optional<Set<String>> enabledRuleIds,
+        @Nonnull List<String> excludedPathGlobs,
+        @Nonnull OptionalLong maxFileBytes,
+        @Nonnull OptionalLong maxFileLines,
+        boolean skipGenerated,
+        @Nonnull AnalyzerWarningsFormat format,
+        @Nonnull Optional<Path> outputPath,
+        @Nonnull Optional<Path> metricsPath,
+        @Nonnull Optional<Path> baselinePath,
+        @Nonnull Optional<Path> writtenBaselinePath,
+        @Nonnull Optional<Path> cacheDirectory,
+        @Nonnull Optional<String> changedFilesList,
+        @Nonnull Optional<String> changedSinceRevision,
+        boolean watch
+) {
+
+    public static final String STANDARD_INPUT = "-";
+
+    public static final String USAGE = "Expected arguments: <root sources path>"
+            + " [--workers=<count>]"
+            + " [--read-ahead=<files>]"
+            + " [--heap-budget=<megabytes>]"
+            + " [--file-time-budget=<milliseconds>]"
+            + " [--source-roots=<paths separated by " + File.pathSeparator + ">]"
+            + " [--rules=<rule ids separated by ,>]"
+            + " [--exclude=<path globs separated by ,>]"
+            + " [--max-file-size=<kilobytes>]"
+            + " [--max-file-lines=<lines>]"
+            + " [--skip-generated]"
+            + " [--format=text|jsonl|sarif]"
+            + " [--output=<file>]"
+            + " [--metrics=<file>]"
+            + " [--baseline=<file> | --write-baseline=<file>]"
+            + " [--cache=<directory>]"
+            + " [--changed-files=<list file or - for stdin> | --changed-since=<git revision>]"
+            + " [--watch]";
+
+    public static final int DEFAULT_READ_AHEAD_FILES_PER_WORKER = 64;
+
+    private static final long BYTES_IN_KILOBYTE = 1024;
+    private static final long BYTES_IN_MEGABYTE = 1024 * 1024;
+
+    private static final String WORKERS_OPTION = "--workers=";
+    private static final String READ_AHEAD_OPTION = "--read-ahead=";
+    private static final String HEAP_BUDGET_OPTION = "--heap-budget=";
+    private static final String FILE_TIME_BUDGET_OPTION = "--file-time-budget=";
+    private static final String SOURCE_ROOTS_OPTION = "--source-roots=";
+    private static final String RULES_OPTION = "--rules=";
+    private static final String EXCLUDE_OPTION = "--exclude=";
+    private static final String MAX_FILE_SIZE_OPTION = "--max-file-size=";
+    private static final String MAX_FILE_LINES_OPTION = "--max-file-lines=";
+    private static final String SKIP_GENERATED_OPTION = "--skip-generated";
+    private static final String FORMAT_OPTION = "--format=";
+    private static final String OUTPUT_OPTION = "--output=";
+    private static final String METRICS_OPTION = "--metrics=";
+    private static final String BASELINE_OPTION = "--baseline=";
+    private static final String WRITE_BASELINE_OPTION = "--write-baseline=";
+    private static final Map<String, AnalyzerWarningsFormat> FORMATS = Map.of(
+            "text", AnalyzerWarningsFormat.TEXT,
+            "jsonl", AnalyzerWarningsFormat.JSON_LINES,
+            "sarif", AnalyzerWarningsFormat.SARIF
+    );
+    private static final String CACHE_OPTION = "--cache=";
+    private static final String CHANGED_FILES_OPTION = "--changed-files=";
+    private static final String CHANGED_SINCE_OPTION = "--changed-since=";
+    private static final String WATCH_OPTION = "--watch";
+
+    @Nonnull
+    public static AnalyzerArguments parse(@Nonnull final String[] args) {
+        return parse(args, Path.of(""));
+    }
+
+    /**
+     * Relative paths are resolved against the working directory, including paths in a changed files list later on.
+     */
+    @Nonnull
+    public static AnalyzerArguments parse(@Nonnull final String[] args, @Nonnull final Path workingDirectory) {
+        Path rootPath = null;
+        int workersCount = 1;
+        int readAheadLimit = 0;
+        long heapBudgetBytes = 0;
+        long fileTimeBudgetMillis = 0;
+        List<Path> sourceRoots = null;
+        Set<String> enabledRuleIds = null;
+        List<String> excludedPathGlobs = List.of();
+        long maxFileBytes = 0;
+        long maxFileLines = 0;
+        boolean skipGenerated = false;
+        AnalyzerWarningsFormat format = AnalyzerWarningsFormat.TEXT;
+        Path outputPath = null;
+        Path metricsPath = null;
+        Path baselinePath = null;
+        Path writtenBaselinePath = null;
+        Path cacheDirectory = null;
+        String changedFilesList = null;
+        String changedSinceRevision = null;
+        boolean watch = false;
+
+        for (final String arg : args) {
+            if (arg.startsWith(WORKERS_OPTION)) {
+                workersCount = parsePositiveInt(arg.substring(WORKERS_OPTION.length()), WORKERS_OPTION);
+            } else if (arg.startsWith(READ_AHEAD_OPTION)) {
+                readAheadLimit = parsePositiveInt(arg.substring(READ_AHEAD_OPTION.length()), READ_AHEAD_OPTION);
+            } else if (arg.startsWith(HEAP_BUDGET_OPTION)) {
+                heapBudgetBytes = parsePositiveInt(arg.substring(HEAP_BUDGET_OPTION.length()), HEAP_BUDGET_OPTION)
+                        * BYTES_IN_MEGABYTE;
+            } else if (arg.startsWith(FILE_TIME_BUDGET_OPTION)) {
+                fileTimeBudgetMillis = parsePositiveInt(arg.substring(FILE_TIME_BUDGET_OPTION.length()), FILE_TIME_BUDGET_OPTION);
+            } else if (arg.startsWith(SOURCE_ROOTS_OPTION)) {
+                sourceRoots = Arrays
+                        .stream(arg.substring(SOURCE_ROOTS_OPTION.length()).split(File.pathSeparator))
+                        .filter(sourceRoot -> !sourceRoot.isEmpty())
+                        .map(workingDirectory::resolve)
+                        .toList();
+            } else if (arg.startsWith(RULES_OPTION)) {
+                enabledRuleIds = Arrays
+                        .stream(arg.substring(RULES_OPTION.length()).split(","))
+                        .map(String::strip)
+                        .filter(ruleId -> !ruleId.isEmpty())
+                        .collect(Collectors.toUnmodifiableSet());
+            } else if (arg.startsWith(EXCLUDE_OPTION)) {
+                excludedPathGlobs = Arrays
+                        .stream(arg.substring(EXCLUDE_OPTION.length()).split(","))
+                        .map(String::strip)
+                        .filter(glob -> !glob.isEmpty())
+                        .toList();
+            } else if (arg.startsWith(MAX_FILE_SIZE_OPTION)) {
+                maxFileBytes = parsePositiveInt(arg.substring(MAX_FILE_SIZE_OPTION.length()), MAX_FILE_SIZE_OPTION)
+                        * BYTES_IN_KILOBYTE;
+            } else if (arg.startsWith(MAX_FILE_LINES_OPTION)) {
+                maxFileLines = parsePositiveInt(arg.substring(MAX_FILE_LINES_OPTION.length()), MAX_FILE_LINES_OPTION);
+            } else if (arg.equals(SKIP_GENERATED_OPTION)) {
+                skipGenerated = true;
+            } else if (arg.startsWith(FORMAT_OPTION)) {
+                format = FORMATS.get(arg.substring(FORMAT_OPTION.length()));
+                if (format == null) {
+                    throw new IllegalArgumentException("Unknown format in " + arg + ". " + USAGE);
+                }
+            } else if (arg.startsWith(OUTPUT_OPTION)) {
+                outputPath = workingDirectory.resolve(arg.substring(OUTPUT_OPTION.length()));
+            } else if (arg.startsWith(METRICS_OPTION)) {
+                metricsPath = workingDirectory.resolve(arg.substring(METRICS_OPTION.length()));
+            } else if (arg.startsWith(BASELINE_OPTION)) {
+                baselinePath = workingDirectory.resolve(arg.substring(BASELINE_OPTION.length()));
+            } else if (arg.startsWith(WRITE_BASELINE_OPTION)) {
+                writtenBaselinePath = workingDirectory.resolve(arg.substring(WRITE_BASELINE_OPTION.length()));
+            } else if (arg.startsWith(CACHE_OPTION)) {
+                cacheDirectory = workingDirectory.resolve(arg.substring(CACHE_OPTION.length()));
+            } else if (arg.startsWith(CHANGED_FILES_OPTION)) {
+                changedFilesList = arg.substring(CHANGED_FILES_OPTION.length());
+            } else if (arg.startsWith(CHANGED_SINCE_OPTION)) {
+                changedSinceRevision = arg.substring(CHANGED_SINCE_OPTION.length());
+            } else if (arg.equals(WATCH_OPTION)) {
+                watch = true;
+            } else if (arg.startsWith("--")) {
+                throw new IllegalArgumentException("Unknown option " + arg + ". " + USAGE);
+            } else if (rootPath == null) {
+                rootPath = workingDirectory.resolve(arg);
+            } else {
+                throw new IllegalArgumentException("Expected 1 root sources path. " + USAGE);
+            }
+        }
+
+        if (rootPath == null) {
+            throw new IllegalArgumentException(USAGE);
+        }
+        if (changedFilesList != null && changedSinceRevision != null) {
+            throw new IllegalArgumentException(
+                    CHANGED_FILES_OPTION + " and " + CHANGED_SINCE_OPTION + " can not be used together. " + USAGE
+            );
+        }
+        if (baselinePath != null && writtenBaselinePath != null) {
+            throw new IllegalArgumentException(
+                    BASELINE_OPTION + " and " + WRITE_BASELINE_OPTION + " can not be used together. " + USAGE
+            );
+        }
+        if (watch && writtenBaselinePath != null) {
+            throw new IllegalArgumentException(
+                    WATCH_OPTION + " and " + WRITE_BASELINE_OPTION + " can not be used together. " + USAGE
+            );
+        }
+        if (watch && format == AnalyzerWarningsFormat.SARIF) {
+            throw new IllegalArgumentException(
+                    WATCH_OPTION + " can not be used with " + FORMAT_OPTION + "sarif, every batch of changes"
+                            + " is reported separately and a stream of several SARIF logs is not a valid one. " + USAGE
+            );
+        }
+        if (readAheadLimit == 0 && workersCount > 1) {
+            readAheadLimit = workersCount * DEFAULT_READ_AHEAD_FILES_PER_WORKER;
+        }
+        return new AnalyzerArguments(
+                workingDirectory,
+                rootPath,
+                workersCount,
+                readAheadLimit,
+                heapBudgetBytes == 0 ? OptionalLong.empty() : OptionalLong.of(heapBudgetBytes),
+                fileTimeBudgetMillis == 0 ? OptionalLong.empty() : OptionalLong.of(fileTimeBudgetMillis),
+                sourceRoots == null ? List.of(rootPath) : sourceRoots,
+                Optional.ofNullable(enabledRuleIds),
+                excludedPathGlobs,
+                maxFileBytes == 0 ? OptionalLong.empty() : OptionalLong.of(maxFileBytes),
+                maxFileLines == 0 ? OptionalLong.empty() : OptionalLong.of(maxFileLines),
+                skipGenerated,
+                format,
+                Optional.ofNullable(outputPath),
+                Optional.ofNullable(metricsPath),
+                Optional.ofNullable(baselinePath),
+                Optional.ofNullable(writtenBaselinePath),
+                Optional.ofNullable(cacheDirectory),
+                Optional.ofNullable(changedFilesList),
+                Optional.ofNullable(changedSinceRevision),
+                watch
+        );
+    }
+
+    private static int parsePositiveInt(final String value, final String option) {
+        final int parsedValue;
+        try {
+            parsedValue = Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Expected a number in " + option + ", got " + value, e);
+        }
+
+        if (parsedValue < 1) {
+            throw new IllegalArgumentException("Expected a positive number in " + option + ", got " + value);
+        }
+        return parsedValue;
+    }
+}
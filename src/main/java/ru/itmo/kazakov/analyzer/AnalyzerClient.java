@@ -0,0 +1,82 @@
+package ru.itmo.kazakov.analyzer;
+
+import javax.annotation.Nonnull;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Path;
+
+/**
+ * Runs an analysis on {@link AnalyzerDaemon} and exits with the same status {@link Main} would.
+ * Arguments are the socket path followed by the arguments of {@link Main}.
+ * It does not load the analyzer itself, so it starts as fast as the JVM does.
+ */
+public class AnalyzerClient {
+
+    public static final String USAGE = "Expected arguments: <socket path> <analyzer arguments>";
+
+    /**
+     * Unlike the statuses of {@link Main}, tells that the analysis did not run at all,
+     * so a caller may fall back to running {@link Main} directly.
+     */
+    public static final int DAEMON_UNAVAILABLE_EXIT_STATUS = 2;
+
+    private static final int OUTPUT_BUFFER_SIZE = 1 << 16;
+
+    public static void main(final String[] args) {
+        System.exit(run(args, System.err));
+    }
+
+    static int run(@Nonnull final String[] args, @Nonnull final PrintStream standardError) {
+        if (args.length < 1) {
+            standardError.println(USAGE);
+            return DAEMON_UNAVAILABLE_EXIT_STATUS;
+        }
+
+        final Path socketPath = Path.of(args[0]);
+        try (final SocketChannel channel = SocketChannel.open(UnixDomainSocketAddress.of(socketPath))) {
+            final DataOutputStream request = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel)));
+            request.writeUTF(Path.of("").toAbsolutePath().toString());
+            request.writeInt(args.length - 1);
+            for (int i = 1; i < args.length; i++) {
+                request.writeUTF(args[i]);
+            }
+            request.flush();
+
+            return readResponse(
+                    new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel))),
+                    standardError
+            );
+        } catch (IOException e) {
+            standardError.println("Could not run analysis on the daemon at " + socketPath + ": " + e.getMessage());
+            return DAEMON_UNAVAILABLE_EXIT_STATUS;
+        }
+    }
+
+    private static int readResponse(final DataInputStream response, final PrintStream standardError) throws IOException {
+        byte[] output = new byte[OUTPUT_BUFFER_SIZE];
+        while (true) {
+            final byte frameType = response.readByte();
+            if (frameType == DaemonProtocol.EXIT_FRAME) {
+                standardError.flush();
+                return response.readInt();
+            }
+            if (frameType != DaemonProtocol.OUTPUT_FRAME) {
+                throw new IOException("Unexpected response frame " + frameType);
+            }
+
+            final int length = response.readInt();
+            if (length > output.length) {
+                output = new byte[length];
+            }
+            response.readFully(output, 0, length);
+            standardError.write(output, 0, length);
+        }
+    }
+}
@@ -0,0 +1,207 @@
+package ru.itmo.kazakov.analyzer;
+
+import ru.itmo.kazakov.analyzer.core.AnalysisResultCache;
+import ru.itmo.kazakov.analyzer.core.FileSystemAnalysisResultCache;
+import ru.itmo.kazakov.analyzer.core.SymbolSolverService;
+import ru.itmo.kazakov.analyzer.rule.StaticAnalyzerRuleRegistry;
+
+import javax.annotation.Nonnull;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Serves analyses for {@link AnalyzerClient} over a Unix domain socket, so that short runs,
+ * like pre-commit checks of a few files, do not pay for JVM startup, class loading and JIT warm-up every time.
+ * Every request is a complete run of {@link Main} with the client working directory and arguments,
+ * requests are served concurrently. Rule registries, result caches and the JDK type solver do not depend on
+ * the analyzed sources, so they are kept between requests, by the enabled rules and cache directories.
+ */
+public class AnalyzerDaemon implements AutoCloseable {
+
+    public static final String USAGE = "Expected arguments: <socket path>";
+
+    private final Path socketPath;
+    private final ServerSocketChannel serverChannel;
+    private final Map<Optional<Set<String>>, StaticAnalyzerRuleRegistry> ruleRegistries = new ConcurrentHashMap<>();
+    private final Map<Path, AnalysisResultCache> analysisResultCaches = new ConcurrentHashMap<>();
+    private final SymbolSolverService.MemoizingTypeSolver jdkTypeSolver = SymbolSolverService.createJdkTypeSolver();
+
+    /**
+     * Starts listening at once. A socket file left by a previous daemon is replaced.
+     */
+    public AnalyzerDaemon(@Nonnull final Path socketPath) throws IOException {
+        this.socketPath = socketPath;
+
+        Files.deleteIfExists(socketPath);
+        this.serverChannel = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+        serverChannel.bind(UnixDomainSocketAddress.of(socketPath));
+    }
+
+    public static void main(final String[] args) throws IOException {
+        if (args.length != 1) {
+            System.err.println(USAGE);
+            return;
+        }
+
+        final AnalyzerDaemon analyzerDaemon = new AnalyzerDaemon(Path.of(args[0]));
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            try {
+                analyzerDaemon.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }));
+        System.err.println("Serving analyses on " + analyzerDaemon.socketPath);
+        analyzerDaemon.serve();
+    }
+
+    /**
+     * Serves until closed.
+     */
+    public void serve() throws IOException {
+        while (true) {
+            final SocketChannel connection;
+            try {
+                connection = serverChannel.accept();
+            } catch (ClosedChannelException e) {
+                return;
+            }
+
+            Thread
+                    .ofPlatform()
+                    .name("analysis-request")
+                    .start(() -> serveConnection(connection));
+        }
+    }
+
+    /**
+     * Stops accepting requests, the ones in progress are still served.
+     */
+    @Override
+    public void close() throws IOException {
+        serverChannel.close();
+        Files.deleteIfExists(socketPath);
+    }
+
+    private void serveConnection(final SocketChannel connection) {
+        try (connection) {
+            final DataInputStream request = new DataInputStream(new BufferedInputStream(Channels.newInputStream(connection)));
+            final Path workingDirectory = Path.of(request.readUTF());
+            final String[] args = new String[request.readInt()];
+            for (int i = 0; i < args.length; i++) {
+                args[i] = request.readUTF();
+            }
+
+            final DataOutputStream response = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(connection)));
+            final int exitStatus = analyze(args, workingDirectory, new OutputFramesStream(response));
+            response.writeByte(DaemonProtocol.EXIT_FRAME);
+            response.writeInt(exitStatus);
+            response.flush();
+        } catch (IOException e) {
+            System.err.println("Could not serve analysis request");
+            e.printStackTrace(System.err);
+        }
+    }
+
+    /**
+     * Mirrors {@link Main#main(String[])}, except that standard input of the client is not available
+     * and requests can not watch for changes.
+     */
+    private int analyze(final String[] args, final Path workingDirectory, final OutputStream standardError) {
+        final PrintStream errorPrinter = new PrintStream(standardError, true, StandardCharsets.UTF_8);
+
+        final AnalyzerArguments arguments;
+        try {
+            arguments = AnalyzerArguments.parse(args, workingDirectory);
+        } catch (IllegalArgumentException e) {
+            errorPrinter.println(e.getMessage());
+            return 0;
+        }
+        if (arguments.changedFilesList().filter(AnalyzerArguments.STANDARD_INPUT::equals).isPresent()) {
+            errorPrinter.println("Changed files can not be read from standard input by the daemon, pass a list file instead");
+            return 0;
+        }
+        if (arguments.watch()) {
+            errorPrinter.println("The daemon does not watch for changes, run the analyzer directly instead");
+            return 0;
+        }
+
+        final StaticAnalyzerRuleRegistry ruleRegistry;
+        try {
+            ruleRegistry = ruleRegistries.computeIfAbsent(
+                    arguments.enabledRuleIds(),
+                    enabledRuleIds -> Main.createRuleRegistry(arguments)
+            );
+        } catch (IllegalArgumentException e) {
+            errorPrinter.println(e.getMessage());
+            return 0;
+        }
+        final AnalysisResultCache analysisResultCache = arguments
+                .cacheDirectory()
+                .map(cacheDirectory -> analysisResultCaches.computeIfAbsent(cacheDirectory, FileSystemAnalysisResultCache::new))
+                .orElse(null);
+
+        try {
+            final boolean warningsFound = Main.analyze(
+                    arguments,
+                    standardError,
+                    ruleRegistry,
+                    analysisResultCache,
+                    jdkTypeSolver
+            );
+            return warningsFound ? DaemonProtocol.WARNINGS_EXIT_STATUS : 0;
+        } catch (Exception e) {
+            e.printStackTrace(errorPrinter);
+            return DaemonProtocol.WARNINGS_EXIT_STATUS;
+        }
+    }
+
+    private static class OutputFramesStream extends OutputStream {
+
+        private final DataOutputStream response;
+
+        private OutputFramesStream(final DataOutputStream response) {
+            this.response = response;
+        }
+
+        @Override
+        public void write(final int b) throws IOException {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public synchronized void write(@Nonnull final byte[] bytes, final int offset, final int length) throws IOException {
+            if (length == 0) {
+                return;
+            }
+
+            response.writeByte(DaemonProtocol.OUTPUT_FRAME);
+            response.writeInt(length);
+            response.write(bytes, offset, length);
+        }
+
+        @Override
+        public synchronized void flush() throws IOException {
+            response.flush();
+        }
+    }
+}
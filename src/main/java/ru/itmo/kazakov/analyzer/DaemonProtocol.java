@@ -0,0 +1,29 @@
+package ru.itmo.kazakov.analyzer;
+
+/**
+ * Conversation of {@link AnalyzerClient} with {@link AnalyzerDaemon}, one analysis per connection.
+ * The client sends its working directory and the arguments {@link Main} would get, all with {@code writeUTF},
+ * the arguments preceded by their count. The daemon answers with frames, each starting with a type byte:
+ * any number of {@link #OUTPUT_FRAME}s and a single {@link #EXIT_FRAME} at the end.
+ */
+final class DaemonProtocol {
+
+    /**
+     * Followed by a length and as many bytes that {@link Main} would write to standard error.
+     */
+    static final byte OUTPUT_FRAME = 1;
+
+    /**
+     * Followed by the status {@link Main} would exit with.
+     */
+    static final byte EXIT_FRAME = 2;
+
+    /**
+     * The JVM exits with it when {@link Main} throws on found warnings.
+     */
+    static final int WARNINGS_EXIT_STATUS = 1;
+
+    private DaemonProtocol() {
+        // no instances
+    }
+}
@@ -3,52 +3,389 @@ package ru.itmo.kazakov.analyzer;
 import com.github.javaparser.JavaParser;
 import com.github.javaparser.ParserConfiguration;
 import ru.itmo.kazakov.analyzer.core.*;
-import ru.itmo.kazakov.analyzer.rule.StaticAnalyzerRule;
-import ru.itmo.kazakov.analyzer.rule.VariableCouldBeFinalRule;
+import ru.itmo.kazakov.analyzer.rule.ParserFeature;
+import ru.itmo.kazakov.analyzer.rule.StaticAnalyzerRuleRegistry;
 
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.FilterOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.List;
 import java.util.LongSummaryStatistics;
+import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 public class Main {
     public static void main(final String[] args) throws IOException {
-        if (args.length != 1) {
-            System.err.println("Expected 1 argument: root sources path");
+        final AnalyzerArguments arguments;
+        try {
+            arguments = AnalyzerArguments.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
             return;
         }
-        final Path rootPath = Path.of(args[0]);
 
-        final List<StaticAnalyzerRule<? extends StaticAnalyzerRuleState>> analyzerRules = List.of(
-                new VariableCouldBeFinalRule()
+        // standard error is written directly rather than through System.err, which locks on every print
+        if (analyze(arguments, new FileOutputStream(FileDescriptor.err))) {
+            throw new RuntimeException("Static analysis found warnings");
+        }
+    }
+
+    /**
+     * Runs a complete analysis, the same way for the command line and for {@link AnalyzerDaemon} requests.
+     *
+     * @param standardError where the report goes unless it is written to a file, as well as notes about the run.
+     *                      It is flushed, but not closed
+     * @return whether warnings that should fail the run were found
+     */
+    static boolean analyze(@Nonnull final AnalyzerArguments arguments,
+                           @Nonnull final OutputStream standardError) throws IOException {
+        final StaticAnalyzerRuleRegistry ruleRegistry;
+        try {
+            ruleRegistry = createRuleRegistry(arguments);
+        } catch (IllegalArgumentException e) {
+            standardError.write((e.getMessage() + System.lineSeparator()).getBytes(StandardCharsets.UTF_8));
+            standardError.flush();
+            return false;
+        }
+
+        return analyze(
+                arguments,
+                standardError,
+                ruleRegistry,
+                arguments.cacheDirectory().map(FileSystemAnalysisResultCache::new).orElse(null),
+                SymbolSolverService.createJdkTypeSolver()
         );
+    }
 
-        final StaticAnalyzerImpl staticAnalyzer = new StaticAnalyzerImpl(analyzerRules);
-        final SourceCrawlerImpl sourceCrawler = new SourceCrawlerImpl();
-        final JavaParser javaParser = new JavaParser();
-        javaParser
-                .getParserConfiguration()
-                .setLanguageLevel(ParserConfiguration.LanguageLevel.JAVA_21);
+    /**
+     * Same as {@link #analyze(AnalyzerArguments, OutputStream)} with the parts that do not depend on the sources
+     * given by the caller, so that {@link AnalyzerDaemon} keeps them between requests.
+     *
+     * @param ruleRegistry        of the rules enabled by the arguments
+     * @param analysisResultCache of the cache directory of the arguments, if any
+     * @param jdkTypeSolver       used only if some rule resolves symbols
+     */
+    static boolean analyze(@Nonnull final AnalyzerArguments arguments,
+                           @Nonnull final OutputStream standardError,
+                           @Nonnull final StaticAnalyzerRuleRegistry ruleRegistry,
+                           @Nullable final AnalysisResultCache analysisResultCache,
+                           @Nonnull final SymbolSolverService.MemoizingTypeSolver jdkTypeSolver) throws IOException {
+        final AnalyzerMetrics analyzerMetrics = arguments.metricsPath().isPresent() ? new AnalyzerMetrics() : null;
+        final FileTimeBudget fileTimeBudget = arguments.fileTimeBudgetMillis().isPresent()
+                ? new FileTimeBudget(arguments.fileTimeBudgetMillis().getAsLong())
+                : null;
+        final SourceCrawler sourceCrawler = createSourceCrawler(arguments, analyzerMetrics);
+        final Set<ParserFeature> requiredParserFeatures = ruleRegistry.getRequiredParserFeatures();
+        final SourceFileFilter sourceFileFilter = createSourceFileFilter(arguments);
+        final SourceFileReader sourceFileReader = new SourceFileReader(
+                ParserFeature.createParserConfiguration(requiredParserFeatures).getCharacterEncoding(),
+                SourceFileReader.DEFAULT_MEMORY_MAPPING_THRESHOLD,
+                sourceFileFilter,
+                arguments.workersCount()
+        );
+        final SymbolSolverService symbolSolverService = requiredParserFeatures.contains(ParserFeature.SYMBOL_RESOLUTION)
+                ? new SymbolSolverService(arguments.sourceRoots(), createTypeSolverParserConfiguration(), jdkTypeSolver)
+                : null;
+        final BaselineRecorder baselineRecorder = arguments.writtenBaselinePath().isPresent()
+                ? new BaselineRecorder(new WarningFingerprinter(arguments.rootPath()))
+                : null;
+        final AnalyzerWarningFilter analyzerWarningFilter = baselineRecorder != null
+                ? baselineRecorder
+                : createBaselineFilter(arguments);
 
-        final AnalyzerWarningCrawlerImpl analyzerWarningCrawler = new AnalyzerWarningCrawlerImpl(
-                staticAnalyzer,
-                sourceCrawler,
-                javaParser
+        final AnalyzerWarningCrawler analyzerWarningCrawler;
+        if (arguments.readAheadLimit() > 0) {
+            analyzerWarningCrawler = new ParallelAnalyzerWarningCrawlerImpl(
+                    sourceCrawler,
+                    sourceFileReader,
+                    () -> createSourceFileAnalyzer(
+                            ruleRegistry,
+                            analysisResultCache,
+                            symbolSolverService,
+                            analyzerWarningFilter,
+                            analyzerMetrics,
+                            fileTimeBudget
+                    ),
+                    arguments.workersCount(),
+                    arguments.readAheadLimit(),
+                    new HeapBudget(
+                            arguments.heapBudgetBytes().orElseGet(Main::getDefaultHeapBudgetBytes),
+                            HeapBudget.estimateAstBytesPerSourceChar(requiredParserFeatures)
+                    )
+            );
+        } else {
+            analyzerWarningCrawler = new AnalyzerWarningCrawlerImpl(
+                    sourceCrawler,
+                    sourceFileReader,
+                    createSourceFileAnalyzer(
+                            ruleRegistry,
+                            analysisResultCache,
+                            symbolSolverService,
+                            analyzerWarningFilter,
+                            analyzerMetrics,
+                            fileTimeBudget
+                    )
+            );
+        }
+
+        final IncrementalAnalyzer incrementalAnalyzer = arguments.watch()
+                ? new IncrementalAnalyzer(
+                        arguments.rootPath(),
+                        new SourceCrawlerImpl(),
+                        sourceFileReader,
+                        createSourceFileAnalyzer(
+                                ruleRegistry,
+                                analysisResultCache,
+                                symbolSolverService,
+                                analyzerWarningFilter,
+                                null,
+                                null
+                        )
+                )
+                : null;
+
+        final LongSummaryStatistics totalWarnings;
+        try (final OutputStream output = openOutput(arguments, standardError);
+             final SourceTreeWatcher sourceTreeWatcher = incrementalAnalyzer == null
+                     ? null
+                     : new SourceTreeWatcher(arguments.rootPath(), new SourceCrawlerImpl(), SourceTreeWatcher.DEFAULT_DEBOUNCE_MILLIS)) {
+            try (final AnalyzerWarningsPrettyPrinter analyzerWarningsPrettyPrinter =
+                         AsyncAnalyzerWarningsPrinter.start(output, arguments.format());
+                 final Stream<SourceAwareAnalyzerWarning> warningsStream = analyzerWarningCrawler.crawl(arguments.rootPath())) {
+                totalWarnings = warningsStream.collect(Collectors.summarizingLong(warning -> {
+                    analyzerWarningsPrettyPrinter.prettyPrint(warning);
+                    if (incrementalAnalyzer != null) {
+                        incrementalAnalyzer.addWarning(warning);
+                    }
+                    return 1;
+                }));
+                analyzerWarningsPrettyPrinter.prettyPrint(new AnalyzerWarningStatistics(
+                        totalWarnings.getSum(),
+                        fileTimeBudget == null ? List.of() : fileTimeBudget.getSkippedFiles()
+                ));
+            }
+
+            if (analyzerMetrics != null) {
+                analyzerMetrics.write(arguments.metricsPath().get());
+            }
+            if (sourceFileFilter != null) {
+                writeExcludedSourcesNote(sourceFileFilter, standardError);
+            }
+            if (sourceTreeWatcher != null) {
+                watch(sourceTreeWatcher, incrementalAnalyzer, output, arguments.format(), standardError);
+                return incrementalAnalyzer.getWarningsCount() > 0;
+            }
+        }
+
+        if (baselineRecorder != null) {
+            final BaselineIndex baselineIndex = baselineRecorder.createIndex();
+            baselineIndex.write(arguments.writtenBaselinePath().get());
+            standardError.write(
+                    ("Recorded " + baselineIndex.size() + " warnings in the baseline" + System.lineSeparator())
+                            .getBytes(StandardCharsets.UTF_8)
+            );
+            standardError.flush();
+            return false;
+        }
+        return totalWarnings.getSum() > 0;
+    }
+
+    /**
+     * Reports warnings of changed sources until interrupted, every batch of changes as a separate report,
+     * which is why SARIF, a single document per run, is rejected together with watching.
+     * The watcher is started before the full analysis, so changes made while it runs are not missed.
+     * Sources that could not be parsed are noted on standard error and watched further.
+     */
+    private static void watch(final SourceTreeWatcher sourceTreeWatcher,
+                              final IncrementalAnalyzer incrementalAnalyzer,
+                              final OutputStream output,
+                              final AnalyzerWarningsFormat format,
+                              final OutputStream standardError) throws IOException {
+        while (true) {
+            final Map<Path, List<SourceAwareAnalyzerWarning>> updatedWarnings;
+            try {
+                updatedWarnings = incrementalAnalyzer.update(sourceTreeWatcher.awaitChangedPaths());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            for (final Map.Entry<Path, String> parseProblem : incrementalAnalyzer.getParseProblems().entrySet()) {
+                standardError.write(
+                        ("Could not parse " + parseProblem.getKey() + ", keeping its previous warnings: " + parseProblem.getValue()
+                                + System.lineSeparator()).getBytes(StandardCharsets.UTF_8)
+                );
+                standardError.flush();
+            }
+            if (updatedWarnings.isEmpty()) {
+                continue;
+            }
+
+            try (final AnalyzerWarningsPrettyPrinter analyzerWarningsPrettyPrinter = AsyncAnalyzerWarningsPrinter.start(output, format)) {
+                updatedWarnings.values().forEach(warnings -> warnings.forEach(analyzerWarningsPrettyPrinter::prettyPrint));
+                analyzerWarningsPrettyPrinter.prettyPrint(new AnalyzerWarningStatistics(incrementalAnalyzer.getWarningsCount()));
+            }
+        }
+    }
+
+    /**
+     * Closing the output only flushes standard error, so later errors are still printed.
+     */
+    private static OutputStream openOutput(final AnalyzerArguments arguments,
+                                           final OutputStream standardError) throws IOException {
+        if (arguments.outputPath().isPresent()) {
+            return Files.newOutputStream(arguments.outputPath().get());
+        }
+
+        return new FilterOutputStream(standardError) {
+            @Override
+            public void write(@Nonnull final byte[] bytes, final int offset, final int length) throws IOException {
+                out.write(bytes, offset, length);
+            }
+
+            @Override
+            public void close() throws IOException {
+                flush();
+            }
+        };
+    }
+
+    /**
+     * @throws IllegalArgumentException if some of the enabled rules are not registered
+     */
+    static StaticAnalyzerRuleRegistry createRuleRegistry(@Nonnull final AnalyzerArguments arguments) {
+        return arguments
+                .enabledRuleIds()
+                .map(StaticAnalyzerRuleRegistry::new)
+                .orElseGet(StaticAnalyzerRuleRegistry::new);
+    }
+
+    /**
+     * Warnings already recorded in the baseline neither fail the run nor are reported.
+     */
+    private static AnalyzerWarningFilter createBaselineFilter(final AnalyzerArguments arguments) throws IOException {
+        if (arguments.baselinePath().isEmpty()) {
+            return null;
+        }
+
+        return new BaselineAnalyzerWarningFilter(
+                BaselineIndex.read(arguments.baselinePath().get()),
+                new WarningFingerprinter(arguments.rootPath())
         );
+    }
+
+    private static SourceCrawler createSourceCrawler(final AnalyzerArguments arguments,
+                                                     final AnalyzerMetrics analyzerMetrics) throws IOException {
+        final SourceCrawlerImpl sourceCrawler = new SourceCrawlerImpl(Runtime.getRuntime().availableProcessors(), analyzerMetrics);
 
-        final Stream<SourceAwareAnalyzerWarning> warningsStream = analyzerWarningCrawler.crawl(rootPath);
+        final List<Path> changedPaths;
+        if (arguments.changedFilesList().isPresent()) {
+            final String changedFilesList = arguments.changedFilesList().get();
+            changedPaths = AnalyzerArguments.STANDARD_INPUT.equals(changedFilesList)
+                    ? ChangedPathsReader.readFromStream(System.in)
+                    : ChangedPathsReader.readFromFile(
+                            arguments.workingDirectory().resolve(changedFilesList),
+                            arguments.workingDirectory()
+                    );
+        } else if (arguments.changedSinceRevision().isPresent()) {
+            changedPaths = ChangedPathsReader.readFromGitDiff(arguments.rootPath(), arguments.changedSinceRevision().get());
+        } else {
+            return sourceCrawler;
+        }
 
-        final AnalyzerWarningsPrettyPrinterImpl analyzerWarningsPrettyPrinter = new AnalyzerWarningsPrettyPrinterImpl();
-        final LongSummaryStatistics totalWarnings = warningsStream.collect(Collectors.summarizingLong(warning -> {
-            analyzerWarningsPrettyPrinter.prettyPrint(warning);
-            return 1;
-        }));
-        analyzerWarningsPrettyPrinter.prettyPrint(new AnalyzerWarningStatistics(totalWarnings.getSum()));
+        return new ChangedSourceCrawler(sourceCrawler, changedPaths);
+    }
 
-        if (totalWarnings.getSum() > 0) {
-            throw new RuntimeException("Static analysis found warnings");
+    /**
+     * Sources are filtered only if some filter is asked for, so a plain run does not even look at their sizes.
+     */
+    private static SourceFileFilter createSourceFileFilter(final AnalyzerArguments arguments) {
+        if (arguments.excludedPathGlobs().isEmpty()
+                && arguments.maxFileBytes().isEmpty()
+                && arguments.maxFileLines().isEmpty()
+                && !arguments.skipGenerated()) {
+            return null;
         }
+
+        return new SourceFileFilter(
+                arguments.rootPath(),
+                arguments.excludedPathGlobs(),
+                arguments.maxFileBytes().orElse(Long.MAX_VALUE),
+                arguments.maxFileLines().orElse(Long.MAX_VALUE),
+                arguments.skipGenerated()
+        );
+    }
+
+    private static void writeExcludedSourcesNote(final SourceFileFilter sourceFileFilter,
+                                                 final OutputStream standardError) throws IOException {
+        final Map<SourceFileFilter.ExclusionReason, Long> excludedFilesCounts = sourceFileFilter.getExcludedFilesCounts();
+        if (excludedFilesCounts.isEmpty()) {
+            return;
+        }
+
+        final String note = "Excluded "
+                + excludedFilesCounts.values().stream().mapToLong(Long::longValue).sum()
+                + " sources before parsing: "
+                + excludedFilesCounts
+                .entrySet()
+                .stream()
+                .map(excludedFilesCount -> excludedFilesCount.getValue() + " " + excludedFilesCount.getKey().getDescription())
+                .collect(Collectors.joining(", "));
+        standardError.write((note + System.lineSeparator()).getBytes(StandardCharsets.UTF_8));
+        standardError.flush();
+    }
+
+    /**
+     * Leaves the other half of the heap to sources read ahead, warnings and the parsers themselves.
+     */
+    private static long getDefaultHeapBudgetBytes() {
+        return Runtime.getRuntime().maxMemory() / 2;
+    }
+
+    private static SourceFileAnalyzer createSourceFileAnalyzer(final StaticAnalyzerRuleRegistry ruleRegistry,
+                                                               final AnalysisResultCache analysisResultCache,
+                                                               final SymbolSolverService symbolSolverService,
+                                                               final AnalyzerWarningFilter analyzerWarningFilter,
+                                                               final AnalyzerMetrics analyzerMetrics,
+                                                               final FileTimeBudget fileTimeBudget) {
+        final StaticAnalyzer staticAnalyzer = createStaticAnalyzer(ruleRegistry, analyzerMetrics);
+        return new SourceFileAnalyzer(
+                staticAnalyzer,
+                createJavaParser(staticAnalyzer, symbolSolverService),
+                new SourceFileAnalyzer.Options(analysisResultCache, analyzerWarningFilter, analyzerMetrics, fileTimeBudget)
+        );
+    }
+
+    private static StaticAnalyzer createStaticAnalyzer(final StaticAnalyzerRuleRegistry ruleRegistry,
+                                                       final AnalyzerMetrics analyzerMetrics) {
+        return new StaticAnalyzerImpl(ruleRegistry.createRules(), analyzerMetrics);
+    }
+
+    private static JavaParser createJavaParser(final StaticAnalyzer staticAnalyzer,
+                                               final SymbolSolverService symbolSolverService) {
+        final ParserConfiguration parserConfiguration = staticAnalyzer
+                .createParserConfiguration()
+                .setLanguageLevel(ParserConfiguration.LanguageLevel.JAVA_21);
+        if (symbolSolverService != null) {
+            parserConfiguration.setSymbolResolver(symbolSolverService.createSymbolResolver());
+        }
+        return new JavaParser(parserConfiguration);
+    }
+
+    /**
+     * Files of the source roots are parsed by the type solver only to find declarations, so tokens and comments are dropped.
+     */
+    private static ParserConfiguration createTypeSolverParserConfiguration() {
+        return ParserFeature
+                .createParserConfiguration(Set.of(ParserFeature.POSITIONS))
+                .setLanguageLevel(ParserConfiguration.LanguageLevel.JAVA_21);
     }
 }
@@ -0,0 +1,17 @@
+package ru.itmo.kazakov.analyzer.core;
+
+import javax.annotation.Nonnull;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Stores warnings of a single rule for a single source content.
+ * Implementations must be safe to use from several threads and processes at once.
+ */
+public interface AnalysisResultCache {
+
+    @Nonnull
+    Optional<List<AnalyzerWarning>> get(@Nonnull AnalysisResultCacheKey key);
+
+    void put(@Nonnull AnalysisResultCacheKey key, @Nonnull List<AnalyzerWarning> warnings);
+}
@@ -0,0 +1,14 @@
+package ru.itmo.kazakov.analyzer.core;
+
+import com.github.javaparser.ParserConfiguration;
+
+import javax.annotation.Nonnull;
+
+public record AnalysisResultCacheKey(
+        @Nonnull String contentHash,
+        @Nonnull String ruleId,
+        int ruleVersion,
+        @Nonnull ParserConfiguration.LanguageLevel languageLevel
+) {
+    // no methods
+}
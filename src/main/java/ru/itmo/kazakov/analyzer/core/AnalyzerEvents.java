@@ -0,0 +1,106 @@
+package ru.itmo.kazakov.analyzer.core;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight Recorder events of the analysis phases, recorded with e.g. {@code -XX:StartFlightRecording=filename=run.jfr}.
+ * Every event is committed by the thread that did the work, so parse and rule events nest within
+ * the analyze event of their file on the thread timeline.
+ * Stack traces are not recorded, the events themselves tell where the time goes.
+ */
+public final class AnalyzerEvents {
+
+    private static final String CATEGORY = "Static Analyzer";
+
+    private AnalyzerEvents() {
+        // no instances
+    }
+
+    @Name("ru.itmo.kazakov.analyzer.DirectoryCrawl")
+    @Label("Directory Crawl")
+    @Description("Listing of a single directory while crawling sources")
+    @Category(CATEGORY)
+    @StackTrace(false)
+    public static class DirectoryCrawlEvent extends Event {
+
+        @Label("Directory")
+        public String path;
+
+        @Label("Sources Count")
+        public int sourcesCount;
+    }
+
+    @Name("ru.itmo.kazakov.analyzer.FileRead")
+    @Label("File Read")
+    @Category(CATEGORY)
+    @StackTrace(false)
+    public static class FileReadEvent extends Event {
+
+        @Label("Path")
+        public String path;
+
+        @Label("Size")
+        @DataAmount
+        public long size;
+    }
+
+    @Name("ru.itmo.kazakov.analyzer.FileParse")
+    @Label("File Parse")
+    @Category(CATEGORY)
+    @StackTrace(false)
+    public static class FileParseEvent extends Event {
+
+        @Label("Path")
+        public String path;
+
+        @Label("Length")
+        @Description("Length of the source in chars")
+        public int length;
+    }
+
+    @Name("ru.itmo.kazakov.analyzer.FileAnalyze")
+    @Label("File Analyze")
+    @Description("Cache lookups, parsing, analysis and filtering of a single file")
+    @Category(CATEGORY)
+    @StackTrace(false)
+    public static class FileAnalyzeEvent extends Event {
+
+        @Label("Path")
+        public String path;
+
+        @Label("Warnings Count")
+        public int warningsCount;
+    }
+
+    @Name("ru.itmo.kazakov.analyzer.RuleAnalyze")
+    @Label("Rule Analyze")
+    @Description("Analysis of a single file by a rule, node rules walked together share a single event")
+    @Category(CATEGORY)
+    @StackTrace(false)
+    public static class RuleAnalyzeEvent extends Event {
+
+        @Label("Rule Id")
+        public String ruleId;
+
+        @Label("Warnings Count")
+        public int warningsCount;
+    }
+
+    @Name("ru.itmo.kazakov.analyzer.WarningsWrite")
+    @Label("Warnings Write")
+    @Description("Flush of formatted warnings to the report output")
+    @Category(CATEGORY)
+    @StackTrace(false)
+    public static class WarningsWriteEvent extends Event {
+
+        @Label("Warnings Count")
+        @Description("Warnings written since the previous flush")
+        public long warningsCount;
+    }
+}
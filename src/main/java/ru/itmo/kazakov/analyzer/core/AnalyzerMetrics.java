@@ -0,0 +1,294 @@
+package ru.itmo.kazakov.analyzer.core;
+
+import com.github.javaparser.ast.Node;
+
+import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Collects wall time, CPU time and allocated bytes of the current thread around analysis phases, rules and files,
+ * to be written as a JSON report at the end of the run.
+ * Components take a nullable instance and do not measure anything without it, so disabled metrics cost a null check.
+ * Safe to use from several threads at once.
+ */
+public class AnalyzerMetrics {
+
+    public static final int DEFAULT_SLOWEST_COUNT = 10;
+
+    private static final com.sun.management.ThreadMXBean THREAD_MX_BEAN =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private final int slowestCount;
+    private final long startNanos = System.nanoTime();
+    private final Map<Phase, Measurements> measurementsByPhase = new ConcurrentHashMap<>();
+    private final Map<String, Measurements> measurementsByRule = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> allocatedBytesByThread = new ConcurrentHashMap<>();
+    private final LongAdder astNodesCount = new LongAdder();
+    private final PriorityQueue<FileMeasurement> slowestFiles =
+            new PriorityQueue<>(Comparator.comparingLong(FileMeasurement::wallNanos));
+
+    /**
+     * Files faster than this can not get into {@link #slowestFiles}, so they are rejected without locking.
+     */
+    private volatile long slowestFilesThresholdNanos = 0;
+
+    public AnalyzerMetrics() {
+        this(DEFAULT_SLOWEST_COUNT);
+    }
+
+    /**
+     * @param slowestCount how many of the slowest files and rules are reported
+     */
+    public AnalyzerMetrics(final int slowestCount) {
+        if (slowestCount < 1) {
+            throw new IllegalArgumentException("Slowest count must be positive, got " + slowestCount);
+        }
+        this.slowestCount = slowestCount;
+    }
+
+    @Nonnull
+    public Sample start() {
+        return new Sample(System.nanoTime(), currentThreadCpuNanos(), currentThreadAllocatedBytes());
+    }
+
+    /**
+     * Phases never overlap on a thread, so bytes they allocate are also summed up per thread.
+     */
+    public void recordPhase(@Nonnull final Phase phase, @Nonnull final Sample start) {
+        final long allocatedBytes = record(measurementsByPhase.computeIfAbsent(phase, ignored -> new Measurements()), start);
+        allocatedBytesByThread
+                .computeIfAbsent(Thread.currentThread().getName(), ignored -> new LongAdder())
+                .add(allocatedBytes);
+    }
+
+    /**
+     * Rules that run in one fused walk are measured together, under the ids of all of them.
+     */
+    public void recordRule(@Nonnull final String ruleId, @Nonnull final Sample start) {
+        record(measurementsByRule.computeIfAbsent(ruleId, ignored -> new Measurements()), start);
+    }
+
+    /**
+     * Records parsing and analysis of a whole file, in addition to its phases.
+     * Nodes of the AST are counted after the measurement.
+     */
+    public void recordFile(@Nonnull final Path path, @Nonnull final Node compiledFile, @Nonnull final Sample start) {
+        final long wallNanos = System.nanoTime() - start.wallNanos();
+        final long cpuNanos = currentThreadCpuNanos() - start.cpuNanos();
+        final long allocatedBytes = currentThreadAllocatedBytes() - start.allocatedBytes();
+        final long fileAstNodesCount = compiledFile.stream().count();
+        astNodesCount.add(fileAstNodesCount);
+        if (wallNanos <= slowestFilesThresholdNanos) {
+            return;
+        }
+
+        final FileMeasurement fileMeasurement = new FileMeasurement(path, wallNanos, cpuNanos, allocatedBytes, fileAstNodesCount);
+        synchronized (slowestFiles) {
+            slowestFiles.add(fileMeasurement);
+            if (slowestFiles.size() > slowestCount) {
+                slowestFiles.poll();
+                slowestFilesThresholdNanos = slowestFiles.element().wallNanos();
+            }
+        }
+    }
+
+    public void write(@Nonnull final Path metricsPath) throws IOException {
+        try (final Writer writer = Files.newBufferedWriter(metricsPath, StandardCharsets.UTF_8)) {
+            write(writer);
+        }
+    }
+
+    public void write(@Nonnull final Writer writer) throws IOException {
+        writer
+                .append("{\"wallNanos\":").append(String.valueOf(System.nanoTime() - startNanos))
+                .append(",\"astNodesCount\":").append(String.valueOf(astNodesCount.sum()))
+                .append(",\"phases\":{");
+        boolean isFirst = true;
+        for (final Phase phase : Phase.values()) {
+            final Measurements measurements = measurementsByPhase.get(phase);
+            if (measurements != null) {
+                writer.append(isFirst ? "" : ",").append('"').append(phase.name().toLowerCase(Locale.ROOT)).append("\":");
+                measurements.write(writer);
+                isFirst = false;
+            }
+        }
+
+        writer.append("},\"slowestRules\":[");
+        final List<Map.Entry<String, Measurements>> rules = new ArrayList<>(measurementsByRule.entrySet());
+        rules.sort(Comparator.comparingLong(
+                (final Map.Entry<String, Measurements> rule) -> rule.getValue().wallNanos.sum()
+        ).reversed());
+        for (int i = 0; i < Math.min(rules.size(), slowestCount); i++) {
+            writer.append(i > 0 ? "," : "").append("{\"ruleId\":");
+            AnalyzerWarningsFormat.writeJsonString(writer, rules.get(i).getKey());
+            writer.append(",\"metrics\":");
+            rules.get(i).getValue().write(writer);
+            writer.append('}');
+        }
+
+        writer.append("],\"slowestFiles\":[");
+        final List<FileMeasurement> files;
+        synchronized (slowestFiles) {
+            files = new ArrayList<>(slowestFiles);
+        }
+        files.sort(Comparator.comparingLong(FileMeasurement::wallNanos).reversed());
+        for (int i = 0; i < files.size(); i++) {
+            final FileMeasurement file = files.get(i);
+            writer.append(i > 0 ? "," : "").append("{\"path\":");
+            AnalyzerWarningsFormat.writeJsonString(writer, file.path().toString());
+            writer
+                    .append(",\"wallNanos\":").append(String.valueOf(file.wallNanos()))
+                    .append(",\"cpuNanos\":").append(String.valueOf(file.cpuNanos()))
+                    .append(",\"allocatedBytes\":").append(String.valueOf(file.allocatedBytes()))
+                    .append(",\"astNodesCount\":").append(String.valueOf(file.astNodesCount()))
+                    .append('}');
+        }
+
+        writer.append("],\"allocatedBytesByThread\":{");
+        isFirst = true;
+        for (final Map.Entry<String, LongAdder> thread : new TreeMap<>(allocatedBytesByThread).entrySet()) {
+            writer.append(isFirst ? "" : ",");
+            AnalyzerWarningsFormat.writeJsonString(writer, thread.getKey());
+            writer.append(':').append(String.valueOf(thread.getValue().sum()));
+            isFirst = false;
+        }
+        writer.append("}}\n");
+    }
+
+    private static long record(final Measurements measurements, final Sample start) {
+        final long allocatedBytes = currentThreadAllocatedBytes() - start.allocatedBytes();
+        measurements.add(
+                System.nanoTime() - start.wallNanos(),
+                currentThreadCpuNanos() - start.cpuNanos(),
+                allocatedBytes
+        );
+        return allocatedBytes;
+    }
+
+    /**
+     * Virtual threads and some platforms do not measure CPU time, it is counted as zero then.
+     */
+    private static long currentThreadCpuNanos() {
+        return Math.max(THREAD_MX_BEAN.getCurrentThreadCpuTime(), 0);
+    }
+
+    private static long currentThreadAllocatedBytes() {
+        return Math.max(THREAD_MX_BEAN.getCurrentThreadAllocatedBytes(), 0);
+    }
+
+    public enum Phase {
+        /**
+         * Listing a single directory.
+         */
+        CRAWL,
+        PARSE,
+        /**
+         * Running all rules that are not cached over a single file.
+         */
+        ANALYZE
+    }
+
+    /**
+     * Counters of the current thread at the start of a measurement.
+     */
+    public record Sample(
+            long wallNanos,
+            long cpuNanos,
+            long allocatedBytes
+    ) {
+        // no methods
+    }
+
+    private record FileMeasurement(
+            @Nonnull Path path,
+            long wallNanos,
+            long cpuNanos,
+            long allocatedBytes,
+            long astNodesCount
+    ) {
+        // no methods
+    }
+
+    /**
+     * Totals and a latency histogram with a bucket per power of two nanoseconds.
+     */
+    private static class Measurements {
+
+        private static final double[] REPORTED_PERCENTILES = {0.5, 0.9, 0.99};
+
+        private final LongAdder count = new LongAdder();
+        private final LongAdder wallNanos = new LongAdder();
+        private final LongAdder cpuNanos = new LongAdder();
+        private final LongAdder allocatedBytes = new LongAdder();
+        private final AtomicLongArray latencyBuckets = new AtomicLongArray(Long.SIZE);
+
+        private void add(final long measuredWallNanos, final long measuredCpuNanos, final long measuredAllocatedBytes) {
+            count.increment();
+            wallNanos.add(measuredWallNanos);
+            cpuNanos.add(measuredCpuNanos);
+            allocatedBytes.add(measuredAllocatedBytes);
+            latencyBuckets.incrementAndGet(Long.SIZE - 1 - Long.numberOfLeadingZeros(Math.max(measuredWallNanos, 1)));
+        }
+
+        /**
+         * Percentiles are upper bounds of the buckets they fall into.
+         */
+        private void write(final Writer writer) throws IOException {
+            final long totalCount = count.sum();
+            writer
+                    .append("{\"count\":").append(String.valueOf(totalCount))
+                    .append(",\"wallNanos\":").append(String.valueOf(wallNanos.sum()))
+                    .append(",\"cpuNanos\":").append(String.valueOf(cpuNanos.sum()))
+                    .append(",\"allocatedBytes\":").append(String.valueOf(allocatedBytes.sum()));
+
+            long bucketsCount = 0;
+            int percentileIndex = 0;
+            for (int i = 0; i < latencyBuckets.length(); i++) {
+                bucketsCount += latencyBuckets.get(i);
+                while (percentileIndex < REPORTED_PERCENTILES.length
+                        && totalCount > 0
+                        && bucketsCount >= Math.ceil(totalCount * REPORTED_PERCENTILES[percentileIndex])) {
+                    writer
+                            .append(",\"p").append(String.valueOf(Math.round(REPORTED_PERCENTILES[percentileIndex] * 100)))
+                            .append("Nanos\":").append(String.valueOf(getBucketUpperBound(i)));
+                    percentileIndex++;
+                }
+            }
+
+            writer.append(",\"latencyHistogram\":[");
+            boolean isFirst = true;
+            for (int i = 0; i < latencyBuckets.length(); i++) {
+                final long bucketCount = latencyBuckets.get(i);
+                if (bucketCount > 0) {
+                    writer
+                            .append(isFirst ? "" : ",")
+                            .append("{\"upToNanos\":").append(String.valueOf(getBucketUpperBound(i)))
+                            .append(",\"count\":").append(String.valueOf(bucketCount))
+                            .append('}');
+                    isFirst = false;
+                }
+            }
+            writer.append("]}");
+        }
+
+        private static long getBucketUpperBound(final int bucket) {
+            // the last bucket overflows to Long.MAX_VALUE
+            return (1L << (bucket + 1)) - 1;
+        }
+    }
+}
@@ -1,14 +1,95 @@
 package ru.itmo.kazakov.analyzer.core;
 
 import com.github.javaparser.Position;
+import com.github.javaparser.Range;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.List;
 import java.util.Optional;
 
+/**
+ * Warnings are kept until they are reported, so they are stored compactly:
+ * the message is a shared template with arguments, rendered only when it is printed,
+ * and positions are packed into primitives, see {@link #packPosition(Position)}.
+ * Every {@code {}} in a template is replaced with the next argument,
+ * and {@code {...}} is replaced with all the remaining ones, separated with commas.
+ */
 public record AnalyzerWarning(
-        @Nonnull String message,
-        @Nonnull Optional<Position> beginPosition,
-        @Nonnull Optional<Position> endPosition
+        @Nonnull String ruleId,
+        @Nonnull String messageTemplate,
+        @Nonnull List<String> messageArguments,
+        long packedBeginPosition,
+        long packedEndPosition
 ) {
-    // no methods
+
+    public static final long UNKNOWN_POSITION = Long.MIN_VALUE;
+
+    private static final String ARGUMENT_PLACEHOLDER = "{}";
+    private static final String REMAINING_ARGUMENTS_PLACEHOLDER = "{...}";
+
+    public AnalyzerWarning(@Nonnull final String ruleId,
+                           @Nonnull final String messageTemplate,
+                           @Nonnull final List<String> messageArguments,
+                           @Nullable final Range range) {
+        this(
+                ruleId,
+                messageTemplate,
+                messageArguments,
+                range == null ? UNKNOWN_POSITION : packPosition(range.begin),
+                range == null ? UNKNOWN_POSITION : packPosition(range.end)
+        );
+    }
+
+    public static long packPosition(@Nonnull final Position position) {
+        return ((long) position.line << Integer.SIZE) | Integer.toUnsignedLong(position.column);
+    }
+
+    @Nonnull
+    public static Optional<Position> unpackPosition(final long packedPosition) {
+        if (packedPosition == UNKNOWN_POSITION) {
+            return Optional.empty();
+        }
+
+        return Optional.of(new Position((int) (packedPosition >> Integer.SIZE), (int) packedPosition));
+    }
+
+    @Nonnull
+    public Optional<Position> beginPosition() {
+        return unpackPosition(packedBeginPosition);
+    }
+
+    @Nonnull
+    public Optional<Position> endPosition() {
+        return unpackPosition(packedEndPosition);
+    }
+
+    @Nonnull
+    public String message() {
+        final StringBuilder message = new StringBuilder(messageTemplate.length() + 16 * messageArguments.size());
+        int argumentIndex = 0;
+        int templateIndex = 0;
+        while (templateIndex < messageTemplate.length()) {
+            final int placeholderIndex = messageTemplate.indexOf('{', templateIndex);
+            if (placeholderIndex < 0) {
+                break;
+            }
+
+            message.append(messageTemplate, templateIndex, placeholderIndex);
+            if (messageTemplate.startsWith(REMAINING_ARGUMENTS_PLACEHOLDER, placeholderIndex)) {
+                for (int i = argumentIndex; i < messageArguments.size(); i++) {
+                    message.append(i > argumentIndex ? ", " : "").append(messageArguments.get(i));
+                }
+                argumentIndex = messageArguments.size();
+                templateIndex = placeholderIndex + REMAINING_ARGUMENTS_PLACEHOLDER.length();
+            } else if (messageTemplate.startsWith(ARGUMENT_PLACEHOLDER, placeholderIndex) && argumentIndex < messageArguments.size()) {
+                message.append(messageArguments.get(argumentIndex++));
+                templateIndex = placeholderIndex + ARGUMENT_PLACEHOLDER.length();
+            } else {
+                message.append('{');
+                templateIndex = placeholderIndex + 1;
+            }
+        }
+        return message.append(messageTemplate, templateIndex, messageTemplate.length()).toString();
+    }
 }
@@ -1,45 +1,41 @@
 package ru.itmo.kazakov.analyzer.core;
 
 import com.github.javaparser.JavaParser;
-import com.github.javaparser.JavaParserAdapter;
-import com.github.javaparser.ast.CompilationUnit;
 
 import javax.annotation.Nonnull;
-import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.nio.file.Path;
 import java.util.stream.Stream;
 
 public class AnalyzerWarningCrawlerImpl implements AnalyzerWarningCrawler {
 
-    private final StaticAnalyzerImpl staticAnalyzer;
-    private final SourceCrawlerImpl sourceCrawler;
-    private final JavaParserAdapter javaParserAdapter;
+    private final SourceCrawler sourceCrawler;
+    private final SourceFileReader sourceFileReader;
+    private final SourceFileAnalyzer sourceFileAnalyzer;
 
-    public AnalyzerWarningCrawlerImpl(final StaticAnalyzerImpl staticAnalyzer,
-                                      final SourceCrawlerImpl sourceCrawler,
+    public AnalyzerWarningCrawlerImpl(final StaticAnalyzer staticAnalyzer,
+                                      final SourceCrawler sourceCrawler,
                                       final JavaParser javaParser) {
-        this.staticAnalyzer = staticAnalyzer;
+        this(
+                sourceCrawler,
+                new SourceFileReader(javaParser.getParserConfiguration().getCharacterEncoding()),
+                new SourceFileAnalyzer(staticAnalyzer, javaParser, SourceFileAnalyzer.Options.DEFAULT)
+        );
+    }
+
+    public AnalyzerWarningCrawlerImpl(final SourceCrawler sourceCrawler,
+                                      final SourceFileReader sourceFileReader,
+                                      final SourceFileAnalyzer sourceFileAnalyzer) {
         this.sourceCrawler = sourceCrawler;
-        this.javaParserAdapter = new JavaParserAdapter(javaParser);
+        this.sourceFileReader = sourceFileReader;
+        this.sourceFileAnalyzer = sourceFileAnalyzer;
     }
 
     @Override
     public Stream<SourceAwareAnalyzerWarning> crawl(@Nonnull final Path rootPath) throws IOException {
         return sourceCrawler
                 .crawlSources(rootPath)
-                .flatMap(file -> {
-                    final CompilationUnit compiledFile;
-                    try {
-                        compiledFile = javaParserAdapter.parse(file);
-                    } catch (FileNotFoundException e) {
-                        System.err.println("Crawled file " + file.getAbsolutePath() + " but could not open it");
-                        e.printStackTrace(System.err);
-                        return Stream.empty();
-                    }
-
-                    final Stream<AnalyzerWarning> warnings = staticAnalyzer.analyze(compiledFile);
-                    return warnings.map(warning -> new SourceAwareAnalyzerWarning(warning, file.toPath()));
-                });
+                .flatMap(source -> sourceFileReader.read(source).stream())
+                .flatMap(sourceFile -> sourceFileAnalyzer.analyze(sourceFile).stream());
     }
 }
@@ -0,0 +1,14 @@
+package ru.itmo.kazakov.analyzer.core;
+
+import javax.annotation.Nonnull;
+import java.util.List;
+
+/**
+ * Applied to warnings of every analyzed file, cached or not, while its content is still at hand.
+ * Implementations must be safe to use from several threads at once.
+ */
+public interface AnalyzerWarningFilter {
+
+    @Nonnull
+    List<SourceAwareAnalyzerWarning> filter(@Nonnull SourceFile sourceFile, @Nonnull List<SourceAwareAnalyzerWarning> warnings);
+}
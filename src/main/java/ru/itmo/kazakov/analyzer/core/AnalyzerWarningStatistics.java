@@ -1,7 +1,17 @@
 package ru.itmo.kazakov.analyzer.core;
 
+import javax.annotation.Nonnull;
+import java.util.List;
+
+/**
+ * @param skippedFiles files that were not analyzed completely, so their warnings are not counted
+ */
 public record AnalyzerWarningStatistics(
-        long warningsCount
+        long warningsCount,
+        @Nonnull List<SkippedSourceFile> skippedFiles
 ) {
-    // no methods
+
+    public AnalyzerWarningStatistics(final long warningsCount) {
+        this(warningsCount, List.of());
+    }
 }
@@ -0,0 +1,241 @@
+package ru.itmo.kazakov.analyzer.core;
+
+import com.github.javaparser.Position;
+
+import javax.annotation.Nonnull;
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Streaming output formats of {@link AsyncAnalyzerWarningsPrinter}.
+ * A report is a header, warnings in order, optionally statistics, and a footer.
+ */
+public enum AnalyzerWarningsFormat {
+
+    /**
+     * Human-readable lines, the same as {@link AnalyzerWarningsPrettyPrinterImpl} prints.
+     */
+    TEXT {
+        @Override
+        public void writeWarning(@Nonnull final Writer writer,
+                                 @Nonnull final SourceAwareAnalyzerWarning analyzerWarning,
+                                 final long warningIndex) throws IOException {
+            final AnalyzerWarning warning = analyzerWarning.warning();
+            writer.append("Warning in ").append(String.valueOf(analyzerWarning.sourceFilePath().getFileName()));
+            if (warning.beginPosition().isPresent()) {
+                writer.append(" starting at ").append(warning.beginPosition().get().toString());
+            } else {
+                writer.append(" starting at unknown position");
+            }
+            if (warning.endPosition().isPresent()) {
+                writer.append(" and ending at ").append(warning.endPosition().get().toString());
+            }
+            writer.append(" with message ").append(warning.message()).append(System.lineSeparator());
+        }
+
+        @Override
+        public void writeStatistics(@Nonnull final Writer writer,
+                                    @Nonnull final AnalyzerWarningStatistics analyzerWarningStatistics) throws IOException {
+            writer
+                    .append("Found ")
+                    .append(String.valueOf(analyzerWarningStatistics.warningsCount()))
+                    .append(" total warnings")
+                    .append(System.lineSeparator());
+            for (final SkippedSourceFile skippedFile : analyzerWarningStatistics.skippedFiles()) {
+                writer
+                        .append("Skipped ").append(skippedFile.path().toString())
+                        .append(": ").append(skippedFile.reason())
+                        .append(", after ").append(String.valueOf(getElapsedMillis(skippedFile))).append(" ms")
+                        .append(System.lineSeparator());
+            }
+        }
+    },
+
+    /**
+     * One JSON object per line, statistics are a separate object.
+     */
+    JSON_LINES {
+        @Override
+        public void writeWarning(@Nonnull final Writer writer,
+                                 @Nonnull final SourceAwareAnalyzerWarning analyzerWarning,
+                                 final long warningIndex) throws IOException {
+            final AnalyzerWarning warning = analyzerWarning.warning();
+            writer.append("{\"file\":");
+            writeJsonString(writer, analyzerWarning.sourceFilePath().toString());
+            writer.append(",\"ruleId\":");
+            writeJsonString(writer, warning.ruleId());
+            writer.append(",\"message\":");
+            writeJsonString(writer, warning.message());
+            writeJsonPosition(writer, "begin", warning.beginPosition());
+            writeJsonPosition(writer, "end", warning.endPosition());
+            writer.append("}\n");
+        }
+
+        @Override
+        public void writeStatistics(@Nonnull final Writer writer,
+                                    @Nonnull final AnalyzerWarningStatistics analyzerWarningStatistics) throws IOException {
+            writer
+                    .append("{\"warningsCount\":")
+                    .append(String.valueOf(analyzerWarningStatistics.warningsCount()));
+            if (!analyzerWarningStatistics.skippedFiles().isEmpty()) {
+                writer.append(",\"skippedFiles\":[");
+                for (int i = 0; i < analyzerWarningStatistics.skippedFiles().size(); i++) {
+                    final SkippedSourceFile skippedFile = analyzerWarningStatistics.skippedFiles().get(i);
+                    writer.append(i > 0 ? ",{\"file\":" : "{\"file\":");
+                    writeJsonString(writer, skippedFile.path().toString());
+                    writer.append(",\"reason\":");
+                    writeJsonString(writer, skippedFile.reason());
+                    writer.append(",\"elapsedMillis\":").append(String.valueOf(getElapsedMillis(skippedFile))).append('}');
+                }
+                writer.append(']');
+            }
+            writer.append("}\n");
+        }
+
+        private static void writeJsonPosition(final Writer writer,
+                                              final String name,
+                                              final Optional<Position> position) throws IOException {
+            if (position.isPresent()) {
+                writer
+                        .append(",\"").append(name).append("Line\":").append(String.valueOf(position.get().line))
+                        .append(",\"").append(name).append("Column\":").append(String.valueOf(position.get().column));
+            }
+        }
+    },
+
+    /**
+     * A single SARIF 2.1.0 log with one run. Results are streamed into it, statistics become run properties.
+     */
+    SARIF {
+        @Override
+        public void writeHeader(@Nonnull final Writer writer) throws IOException {
+            writer.append("{\"$schema\":\"https://json.schemastore.org/sarif-2.1.0.json\",\"version\":\"2.1.0\",")
+                    .append("\"runs\":[{\"tool\":{\"driver\":{\"name\":\"StaticAnalysis\"}},\"results\":[\n");
+        }
+
+        @Override
+        public void writeWarning(@Nonnull final Writer writer,
+                                 @Nonnull final SourceAwareAnalyzerWarning analyzerWarning,
+                                 final long warningIndex) throws IOException {
+            final AnalyzerWarning warning = analyzerWarning.warning();
+            if (warningIndex > 0) {
+                writer.append(",\n");
+            }
+            writer.append("{\"ruleId\":");
+            writeJsonString(writer, warning.ruleId());
+            writer.append(",\"level\":\"warning\",\"message\":{\"text\":");
+            writeJsonString(writer, warning.message());
+            writer.append("},\"locations\":[{\"physicalLocation\":{\"artifactLocation\":{\"uri\":");
+            writeJsonString(writer, toUriReference(analyzerWarning.sourceFilePath()));
+            writer.append('}');
+            if (warning.beginPosition().isPresent()) {
+                final Position beginPosition = warning.beginPosition().get();
+                writer
+                        .append(",\"region\":{\"startLine\":").append(String.valueOf(beginPosition.line))
+                        .append(",\"startColumn\":").append(String.valueOf(beginPosition.column));
+                if (warning.endPosition().isPresent()) {
+                    final Position endPosition = warning.endPosition().get();
+                    // SARIF end columns point after the last character, JavaParser ones point at it
+                    writer
+                            .append(",\"endLine\":").append(String.valueOf(endPosition.line))
+                            .append(",\"endColumn\":").append(String.valueOf(endPosition.column + 1));
+                }
+                writer.append('}');
+            }
+            writer.append("}}]}");
+        }
+
+        @Override
+        public void writeStatistics(@Nonnull final Writer writer,
+                                    @Nonnull final AnalyzerWarningStatistics analyzerWarningStatistics) throws IOException {
+            writer
+                    .append("\n],\"properties\":{\"warningsCount\":")
+                    .append(String.valueOf(analyzerWarningStatistics.warningsCount()))
+                    .append('}');
+            if (!analyzerWarningStatistics.skippedFiles().isEmpty()) {
+                // skipped files are not results, they are reported as notifications about the analysis itself
+                writer.append(",\"invocations\":[{\"executionSuccessful\":true,\"toolExecutionNotifications\":[");
+                for (int i = 0; i < analyzerWarningStatistics.skippedFiles().size(); i++) {
+                    final SkippedSourceFile skippedFile = analyzerWarningStatistics.skippedFiles().get(i);
+                    writer.append(i > 0 ? ",{" : "{").append("\"level\":\"warning\",\"message\":{\"text\":");
+                    writeJsonString(writer, skippedFile.reason() + ", after " + getElapsedMillis(skippedFile) + " ms");
+                    writer.append("},\"locations\":[{\"physicalLocation\":{\"artifactLocation\":{\"uri\":");
+                    writeJsonString(writer, toUriReference(skippedFile.path()));
+                    writer.append("}}}]}");
+                }
+                writer.append("]}]");
+            }
+            writer.append("}]}\n");
+        }
+
+        @Override
+        public void writeFooter(@Nonnull final Writer writer, final boolean isStatisticsWritten) throws IOException {
+            if (!isStatisticsWritten) {
+                writer.append("\n]}]}\n");
+            }
+        }
+
+        private static String toUriReference(final Path path) {
+            try {
+                return new URI(null, null, path.toString().replace(File.separatorChar, '/'), null).toASCIIString();
+            } catch (URISyntaxException e) {
+                throw new IllegalArgumentException("Could not make a URI of " + path, e);
+            }
+        }
+    };
+
+    public void writeHeader(@Nonnull final Writer writer) throws IOException {
+        // no header by default
+    }
+
+    public void writeFooter(@Nonnull final Writer writer, final boolean isStatisticsWritten) throws IOException {
+        // no footer by default
+    }
+
+    /**
+     * @param warningIndex number of warnings written before this one
+     */
+    public abstract void writeWarning(@Nonnull final Writer writer,
+                                      @Nonnull final SourceAwareAnalyzerWarning analyzerWarning,
+                                      final long warningIndex) throws IOException;
+
+    /**
+     * Written at most once, after all warnings.
+     */
+    public abstract void writeStatistics(@Nonnull final Writer writer,
+                                         @Nonnull final AnalyzerWarningStatistics analyzerWarningStatistics) throws IOException;
+
+    private static long getElapsedMillis(final SkippedSourceFile skippedFile) {
+        return TimeUnit.NANOSECONDS.toMillis(skippedFile.elapsedNanos());
+    }
+
+    static void writeJsonString(@Nonnull final Writer writer, @Nonnull final String value) throws IOException {
+        writer.append('"');
+        int unescapedStart = 0;
+        for (int i = 0; i < value.length(); i++) {
+            final char character = value.charAt(i);
+            if (character >= 0x20 && character != '"' && character != '\\') {
+                continue;
+            }
+
+            writer.write(value, unescapedStart, i - unescapedStart);
+            unescapedStart = i + 1;
+            switch (character) {
+                case '"' -> writer.append("\\\"");
+                case '\\' -> writer.append("\\\\");
+                case '\n' -> writer.append("\\n");
+                case '\r' -> writer.append("\\r");
+                case '\t' -> writer.append("\\t");
+                default -> writer.append(String.format("\\u%04x", (int) character));
+            }
+        }
+        writer.write(value, unescapedStart, value.length() - unescapedStart);
+        writer.append('"');
+    }
+}
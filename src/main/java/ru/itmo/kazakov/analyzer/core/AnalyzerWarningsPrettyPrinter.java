@@ -2,7 +2,15 @@ package ru.itmo.kazakov.analyzer.core;
 
 import javax.annotation.Nonnull;
 
-public interface AnalyzerWarningsPrettyPrinter {
+public interface AnalyzerWarningsPrettyPrinter extends AutoCloseable {
+
+    /**
+     * Everything printed before is written out when this returns.
+     */
+    @Override
+    default void close() {
+        // printed immediately by default
+    }
 
     void prettyPrint(@Nonnull SourceAwareAnalyzerWarning analyzerWarning);
 
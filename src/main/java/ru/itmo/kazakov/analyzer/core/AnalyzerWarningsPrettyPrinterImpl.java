@@ -1,6 +1,7 @@
 package ru.itmo.kazakov.analyzer.core;
 
 import javax.annotation.Nonnull;
+import java.util.concurrent.TimeUnit;
 
 public class AnalyzerWarningsPrettyPrinterImpl implements AnalyzerWarningsPrettyPrinter {
 
@@ -26,5 +27,10 @@ public class AnalyzerWarningsPrettyPrinterImpl implements AnalyzerWarningsPretty
     @Override
     public void prettyPrint(@Nonnull final AnalyzerWarningStatistics analyzerWarningStatistics) {
         System.err.println("Found " + analyzerWarningStatistics.warningsCount() + " total warnings");
+        analyzerWarningStatistics.skippedFiles().forEach(skippedFile -> System.err.println(
+                "Skipped " + skippedFile.path()
+                        + ": " + skippedFile.reason()
+                        + ", after " + TimeUnit.NANOSECONDS.toMillis(skippedFile.elapsedNanos()) + " ms"
+        ));
     }
 }
@@ -0,0 +1,195 @@
+package ru.itmo.kazakov.analyzer.core;
+
+import javax.annotation.Nonnull;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hands warnings over to a single writer thread through a bounded queue, so analysis waits on output only
+ * while the queue is full, which keeps warnings of a slow output from piling up on the heap.
+ * The writer formats them into a large buffer, which is flushed when it is full
+ * or when no warnings arrive for a while, so interactive runs still see warnings promptly.
+ * The output is flushed but not closed by {@link #close()}, it stays owned by the caller.
+ */
+public class AsyncAnalyzerWarningsPrinter implements AnalyzerWarningsPrettyPrinter {
+
+    public static final int DEFAULT_QUEUE_CAPACITY = 4096;
+
+    private static final int OUTPUT_BUFFER_CHARS = 1 << 20;
+    private static final long IDLE_FLUSH_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+    private static final Object END_OF_EVENTS = new Object();
+
+    private final AnalyzerWarningsFormat format;
+    private final Writer writer;
+    private final BlockingQueue<Object> events;
+    private Thread writerThread;
+
+    private volatile boolean isClosed = false;
+    private volatile IOException writeFailure = null;
+
+    private AsyncAnalyzerWarningsPrinter(final OutputStream output,
+                                         final AnalyzerWarningsFormat format,
+                                         final int queueCapacity) {
+        if (queueCapacity < 1) {
+            throw new IllegalArgumentException("Queue capacity must be positive, got " + queueCapacity);
+        }
+
+        this.format = format;
+        this.writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8), OUTPUT_BUFFER_CHARS);
+        this.events = new ArrayBlockingQueue<>(queueCapacity);
+    }
+
+    @Nonnull
+    public static AsyncAnalyzerWarningsPrinter start(@Nonnull final OutputStream output,
+                                                     @Nonnull final AnalyzerWarningsFormat format) {
+        return start(output, format, DEFAULT_QUEUE_CAPACITY);
+    }
+
+    /**
+     * @param queueCapacity how many warnings may wait for the writer before printing blocks
+     */
+    @Nonnull
+    public static AsyncAnalyzerWarningsPrinter start(@Nonnull final OutputStream output,
+                                                     @Nonnull final AnalyzerWarningsFormat format,
+                                                     final int queueCapacity) {
+        final AsyncAnalyzerWarningsPrinter printer = new AsyncAnalyzerWarningsPrinter(output, format, queueCapacity);
+        printer.writerThread = Thread
+                .ofPlatform()
+                .name("warnings-writer")
+                .daemon()
+                .start(printer::writeEvents);
+        return printer;
+    }
+
+    @Override
+    public void prettyPrint(@Nonnull final SourceAwareAnalyzerWarning analyzerWarning) {
+        offer(analyzerWarning);
+    }
+
+    @Override
+    public void prettyPrint(@Nonnull final AnalyzerWarningStatistics analyzerWarningStatistics) {
+        offer(analyzerWarningStatistics);
+    }
+
+    /**
+     * Waits until everything printed so far is written and flushed.
+     */
+    @Override
+    public void close() {
+        if (isClosed) {
+            return;
+        }
+
+        isClosed = true;
+        try {
+            events.put(END_OF_EVENTS);
+            writerThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for warnings to be written", e);
+        }
+
+        if (writeFailure != null) {
+            throw new UncheckedIOException("Could not write warnings", writeFailure);
+        }
+    }
+
+    /**
+     * Blocks while the queue is full.
+     */
+    private void offer(final Object event) {
+        if (isClosed) {
+            throw new IllegalStateException("Printer is already closed");
+        }
+
+        try {
+            events.put(event);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Interrupted while waiting for the warnings writer");
+        }
+    }
+
+    /**
+     * Takes events until the end of them even if writing fails, so that printing never blocks for good.
+     */
+    private void writeEvents() {
+        try {
+            writeEventsUntilEnd();
+        } catch (IOException e) {
+            writeFailure = e;
+            discardEventsUntilEnd();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException | Error e) {
+            discardEventsUntilEnd();
+            throw e;
+        }
+    }
+
+    private void writeEventsUntilEnd() throws IOException, InterruptedException {
+        format.writeHeader(writer);
+
+        long warningsCount = 0;
+        long flushedWarningsCount = 0;
+        boolean isStatisticsWritten = false;
+        boolean hasUnflushedOutput = true;
+        while (true) {
+            final Object event = events.poll(IDLE_FLUSH_NANOS, TimeUnit.NANOSECONDS);
+            if (event instanceof SourceAwareAnalyzerWarning warning) {
+                format.writeWarning(writer, warning, warningsCount++);
+                hasUnflushedOutput = true;
+            } else if (event instanceof AnalyzerWarningStatistics statistics) {
+                if (!isStatisticsWritten) {
+                    format.writeStatistics(writer, statistics);
+                    isStatisticsWritten = true;
+                    hasUnflushedOutput = true;
+                }
+            } else if (event == END_OF_EVENTS) {
+                break;
+            } else if (hasUnflushedOutput) {
+                flush(warningsCount - flushedWarningsCount);
+                flushedWarningsCount = warningsCount;
+                hasUnflushedOutput = false;
+            }
+        }
+
+        format.writeFooter(writer, isStatisticsWritten);
+        flush(warningsCount - flushedWarningsCount);
+    }
+
+    private void discardEventsUntilEnd() {
+        try {
+            while (events.take() != END_OF_EVENTS) {
+                // printed after the output failed
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Records a {@link AnalyzerEvents.WarningsWriteEvent} with the warnings formatted since the previous flush,
+     * formatting a single warning is too short to be worth an event of its own.
+     */
+    private void flush(final long unflushedWarningsCount) throws IOException {
+        final AnalyzerEvents.WarningsWriteEvent writeEvent = new AnalyzerEvents.WarningsWriteEvent();
+        writeEvent.begin();
+
+        writer.flush();
+
+        if (writeEvent.shouldCommit()) {
+            writeEvent.warningsCount = unflushedWarningsCount;
+            writeEvent.commit();
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package ru.itmo.kazakov.analyzer.core;
+
+import javax.annotation.Nonnull;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Drops warnings recorded in a baseline, so only new warnings are reported.
+ */
+public class BaselineAnalyzerWarningFilter implements AnalyzerWarningFilter {
+
+    private final BaselineIndex baselineIndex;
+    private final WarningFingerprinter warningFingerprinter;
+
+    public BaselineAnalyzerWarningFilter(@Nonnull final BaselineIndex baselineIndex,
+                                         @Nonnull final WarningFingerprinter warningFingerprinter) {
+        this.baselineIndex = baselineIndex;
+        this.warningFingerprinter = warningFingerprinter;
+    }
+
+    @Nonnull
+    @Override
+    public List<SourceAwareAnalyzerWarning> filter(@Nonnull final SourceFile sourceFile,
+                                                   @Nonnull final List<SourceAwareAnalyzerWarning> warnings) {
+        if (warnings.isEmpty()) {
+            return warnings;
+        }
+
+        final long[] fingerprints = warningFingerprinter.fingerprint(sourceFile, warnings);
+
+        final List<SourceAwareAnalyzerWarning> newWarnings = new ArrayList<>();
+        for (int i = 0; i < fingerprints.length; i++) {
+            if (!baselineIndex.contains(fingerprints[i])) {
+                newWarnings.add(warnings.get(i));
+            }
+        }
+        return newWarnings;
+    }
+}
@@ -0,0 +1,120 @@
+package ru.itmo.kazakov.analyzer.core;
+
+import javax.annotation.Nonnull;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Set of warning fingerprints, see {@link WarningFingerprinter}, kept as an open addressing hash table.
+ * The file is the table itself, so it is memory-mapped rather than parsed,
+ * and a baseline of millions of warnings is ready to use at once and costs a few probes per lookup.
+ */
+public class BaselineIndex {
+
+    private static final int MAGIC = 0x53414249;
+    private static final int FORMAT_VERSION = 1;
+    private static final int HEADER_BYTES = 4 * Integer.BYTES;
+    private static final int MIN_CAPACITY = 16;
+
+    /**
+     * Zero marks empty slots, so a zero fingerprint is stored as this one.
+     */
+    private static final long ZERO_FINGERPRINT_REPLACEMENT = 1;
+
+    private final LongBuffer slots;
+    private final int mask;
+    private final int size;
+
+    private BaselineIndex(final LongBuffer slots, final int size) {
+        this.slots = slots;
+        this.mask = slots.capacity() - 1;
+        this.size = size;
+    }
+
+    @Nonnull
+    public static BaselineIndex of(@Nonnull final long[] fingerprints) {
+        final int capacity = Math.max(MIN_CAPACITY, Integer.highestOneBit(Math.max(1, fingerprints.length * 2 - 1)) << 1);
+        final BaselineIndex index = new BaselineIndex(LongBuffer.allocate(capacity), 0);
+
+        int size = 0;
+        for (final long fingerprint : fingerprints) {
+            final int slot = index.findSlot(fingerprint);
+            if (index.slots.get(slot) == 0) {
+                index.slots.put(slot, toStoredFingerprint(fingerprint));
+                size++;
+            }
+        }
+        return new BaselineIndex(index.slots, size);
+    }
+
+    @Nonnull
+    public static BaselineIndex read(@Nonnull final Path path) throws IOException {
+        final MappedByteBuffer mappedFile;
+        try (final FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            mappedFile = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+
+        if (mappedFile.remaining() < HEADER_BYTES
+                || mappedFile.getInt() != MAGIC
+                || mappedFile.getInt() != FORMAT_VERSION) {
+            throw new IOException("Not a baseline file: " + path);
+        }
+
+        final int size = mappedFile.getInt();
+        final int capacity = mappedFile.getInt();
+        if (capacity < MIN_CAPACITY
+                || Integer.bitCount(capacity) != 1
+                || size < 0
+                || size >= capacity
+                || mappedFile.remaining() != (long) capacity * Long.BYTES) {
+            throw new IOException("Corrupted baseline file: " + path);
+        }
+        return new BaselineIndex(mappedFile.slice().asLongBuffer(), size);
+    }
+
+    public void write(@Nonnull final Path path) throws IOException {
+        try (final DataOutputStream output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path)))) {
+            output.writeInt(MAGIC);
+            output.writeInt(FORMAT_VERSION);
+            output.writeInt(size);
+            output.writeInt(slots.capacity());
+            for (int i = 0; i < slots.capacity(); i++) {
+                output.writeLong(slots.get(i));
+            }
+        }
+    }
+
+    public boolean contains(final long fingerprint) {
+        return slots.get(findSlot(fingerprint)) != 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Fingerprints are already well mixed hashes, so their low bits are used as is.
+     */
+    private int findSlot(final long fingerprint) {
+        final long storedFingerprint = toStoredFingerprint(fingerprint);
+        int slot = (int) storedFingerprint & mask;
+        while (true) {
+            final long slotFingerprint = slots.get(slot);
+            if (slotFingerprint == 0 || slotFingerprint == storedFingerprint) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    private static long toStoredFingerprint(final long fingerprint) {
+        return fingerprint == 0 ? ZERO_FINGERPRINT_REPLACEMENT : fingerprint;
+    }
+}
@@ -0,0 +1,45 @@
+package ru.itmo.kazakov.analyzer.core;
+
+import javax.annotation.Nonnull;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Collects fingerprints of all warnings into a new baseline and keeps the warnings themselves.
+ */
+public class BaselineRecorder implements AnalyzerWarningFilter {
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private final WarningFingerprinter warningFingerprinter;
+
+    private long[] fingerprints = new long[INITIAL_CAPACITY];
+    private int fingerprintsCount = 0;
+
+    public BaselineRecorder(@Nonnull final WarningFingerprinter warningFingerprinter) {
+        this.warningFingerprinter = warningFingerprinter;
+    }
+
+    @Nonnull
+    @Override
+    public List<SourceAwareAnalyzerWarning> filter(@Nonnull final SourceFile sourceFile,
+                                                   @Nonnull final List<SourceAwareAnalyzerWarning> warnings) {
+        final long[] fileFingerprints = warningFingerprinter.fingerprint(sourceFile, warnings);
+        synchronized (this) {
+            if (fingerprintsCount + fileFingerprints.length > fingerprints.length) {
+                fingerprints = Arrays.copyOf(
+                        fingerprints,
+                        Math.max(fingerprints.length * 2, fingerprintsCount + fileFingerprints.length)
+                );
+            }
+            System.arraycopy(fileFingerprints, 0, fingerprints, fingerprintsCount, fileFingerprints.length);
+            fingerprintsCount += fileFingerprints.length;
+        }
+        return warnings;
+    }
+
+    @Nonnull
+    public synchronized BaselineIndex createIndex() {
+        return BaselineIndex.of(Arrays.copyOf(fingerprints, fingerprintsCount));
+    }
+}
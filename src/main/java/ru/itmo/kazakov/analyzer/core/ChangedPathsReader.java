@@ -0,0 +1,88 @@
+package ru.itmo.kazakov.analyzer.core;
+
+import javax.annotation.Nonnull;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Reads lists of changed paths for {@link ChangedSourceCrawler}.
+ * Relative paths from a list are resolved against the given working directory, the process one by default,
+ * paths from {@code git diff} are resolved against the analyzed root.
+ */
+public final class ChangedPathsReader {
+
+    private ChangedPathsReader() {
+        // no instances
+    }
+
+    @Nonnull
+    public static List<Path> readFromFile(@Nonnull final Path listFile) throws IOException {
+        return readFromFile(listFile, Path.of(""));
+    }
+
+    @Nonnull
+    public static List<Path> readFromFile(@Nonnull final Path listFile, @Nonnull final Path workingDirectory) throws IOException {
+        try (final Stream<String> lines = Files.lines(listFile, StandardCharsets.UTF_8)) {
+            return toPaths(lines, workingDirectory);
+        }
+    }
+
+    @Nonnull
+    public static List<Path> readFromStream(@Nonnull final InputStream input) throws IOException {
+        final BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+        try {
+            return toPaths(reader.lines(), Path.of(""));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    @Nonnull
+    public static List<Path> readFromGitDiff(@Nonnull final Path rootPath, @Nonnull final String baseRevision) throws IOException {
+        final Process gitDiff = new ProcessBuilder(
+                "git", "-C", rootPath.toString(), "diff", "--name-only", "--relative", "-z", baseRevision, "--"
+        )
+                .redirectError(ProcessBuilder.Redirect.INHERIT)
+                .start();
+
+        final String output;
+        try (final InputStream gitOutput = gitDiff.getInputStream()) {
+            output = new String(gitOutput.readAllBytes(), StandardCharsets.UTF_8);
+        }
+
+        final int exitCode;
+        try {
+            exitCode = gitDiff.waitFor();
+        } catch (InterruptedException e) {
+            gitDiff.destroy();
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for git diff", e);
+        }
+        if (exitCode != 0) {
+            throw new IOException("git diff against " + baseRevision + " failed with exit code " + exitCode);
+        }
+
+        return Arrays
+                .stream(output.split("\0"))
+                .filter(name -> !name.isEmpty())
+                .map(rootPath::resolve)
+                .toList();
+    }
+
+    private static List<Path> toPaths(final Stream<String> lines, final Path workingDirectory) {
+        return lines
+                .map(String::strip)
+                .filter(line -> !line.isEmpty())
+                .map(workingDirectory::resolve)
+                .toList();
+    }
+}
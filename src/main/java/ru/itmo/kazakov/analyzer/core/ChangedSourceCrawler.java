@@ -0,0 +1,49 @@
+package ru.itmo.kazakov.analyzer.core;
+
+import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Crawls only the given changed paths, keeping those that {@link SourceCrawlerImpl} would crawl from the same root.
+ * The crawl cost depends on the number of changed paths rather than on the size of the tree.
+ */
+public class ChangedSourceCrawler implements SourceCrawler {
+
+    private final SourceCrawlerImpl sourceCrawler;
+    private final List<Path> changedPaths;
+
+    public ChangedSourceCrawler(@Nonnull final SourceCrawlerImpl sourceCrawler,
+                                @Nonnull final Collection<Path> changedPaths) {
+        this.sourceCrawler = sourceCrawler;
+        this.changedPaths = changedPaths
+                .stream()
+                .map(path -> path.toAbsolutePath().normalize())
+                .distinct()
+                .sorted()
+                .toList();
+    }
+
+    @Override
+    public Stream<Path> crawlSources(@Nonnull final Path rootPath) throws IOException {
+        final Path absoluteRootPath = rootPath.toAbsolutePath().normalize();
+        final List<Path> sources = new ArrayList<>();
+
+        for (final Path changedPath : changedPaths) {
+            if (!changedPath.startsWith(absoluteRootPath)) {
+                continue;
+            }
+
+            final Path source = rootPath.resolve(absoluteRootPath.relativize(changedPath));
+            if (sourceCrawler.isCrawledSource(rootPath, source)) {
+                sources.add(source);
+            }
+        }
+
+        return sources.stream();
+    }
+}
@@ -0,0 +1,139 @@
+package ru.itmo.kazakov.analyzer.core;
+
+import javax.annotation.Nonnull;
+import java.io.*;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.regex.Pattern;
+
+/**
+ * Keeps every cache entry in its own file, sharded by the content hash prefix.
+ * Entries are written to a temporary file and atomically moved in place,
+ * so concurrent readers either miss or see a complete entry.
+ */
+public class FileSystemAnalysisResultCache implements AnalysisResultCache {
+
+    private static final int FORMAT_VERSION = 2;
+    private static final int SHARD_PREFIX_LENGTH = 2;
+    private static final Pattern UNSAFE_FILE_NAME_CHARACTERS = Pattern.compile("[^A-Za-z0-9_.-]");
+
+    private final Path cacheDirectory;
+
+    public FileSystemAnalysisResultCache(@Nonnull final Path cacheDirectory) {
+        this.cacheDirectory = cacheDirectory;
+    }
+
+    @Nonnull
+    @Override
+    public Optional<List<AnalyzerWarning>> get(@Nonnull final AnalysisResultCacheKey key) {
+        final byte[] entry;
+        try {
+            entry = Files.readAllBytes(getEntryPath(key));
+        } catch (NoSuchFileException e) {
+            return Optional.empty();
+        } catch (IOException e) {
+            System.err.println("Could not read analysis cache entry for " + key);
+            e.printStackTrace(System.err);
+            return Optional.empty();
+        }
+
+        try (final DataInputStream input = new DataInputStream(new ByteArrayInputStream(entry))) {
+            return Optional.of(readWarnings(input, key.ruleId()));
+        } catch (IOException e) {
+            System.err.println("Ignoring corrupted analysis cache entry for " + key);
+            return Optional.empty();
+        }
+    }
+
+    @Override
+    public void put(@Nonnull final AnalysisResultCacheKey key, @Nonnull final List<AnalyzerWarning> warnings) {
+        final Path entryPath = getEntryPath(key);
+        try {
+            Files.createDirectories(entryPath.getParent());
+
+            final Path temporaryEntryPath = Files.createTempFile(entryPath.getParent(), entryPath.getFileName().toString(), ".tmp");
+            try {
+                try (final DataOutputStream output = new DataOutputStream(
+                        new BufferedOutputStream(Files.newOutputStream(temporaryEntryPath))
+                )) {
+                    writeWarnings(output, warnings);
+                }
+                moveAtomically(temporaryEntryPath, entryPath);
+            } finally {
+                Files.deleteIfExists(temporaryEntryPath);
+            }
+        } catch (IOException e) {
+            System.err.println("Could not write analysis cache entry for " + key);
+            e.printStackTrace(System.err);
+        }
+    }
+
+    private Path getEntryPath(final AnalysisResultCacheKey key) {
+        final String entryName = key.contentHash()
+                + "-" + UNSAFE_FILE_NAME_CHARACTERS.matcher(key.ruleId()).replaceAll("_")
+                + "-v" + key.ruleVersion()
+                + "-" + key.languageLevel().name();
+
+        return cacheDirectory
+                .resolve(key.contentHash().substring(0, SHARD_PREFIX_LENGTH))
+                .resolve(entryName);
+    }
+
+    private static void moveAtomically(final Path source, final Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private static void writeWarnings(final DataOutputStream output, final List<AnalyzerWarning> warnings) throws IOException {
+        output.writeInt(FORMAT_VERSION);
+        output.writeInt(warnings.size());
+        for (final AnalyzerWarning warning : warnings) {
+            output.writeUTF(warning.messageTemplate());
+            output.writeInt(warning.messageArguments().size());
+            for (final String messageArgument : warning.messageArguments()) {
+                output.writeUTF(messageArgument);
+            }
+            output.writeLong(warning.packedBeginPosition());
+            output.writeLong(warning.packedEndPosition());
+        }
+    }
+
+    /**
+     * Rules keep templates in constants, so interning makes cached warnings share them the same way.
+     */
+    private static List<AnalyzerWarning> readWarnings(final DataInputStream input, final String ruleId) throws IOException {
+        if (input.readInt() != FORMAT_VERSION) {
+            throw new IOException("Unsupported analysis cache entry format");
+        }
+
+        final int warningsCount = input.readInt();
+        final List<AnalyzerWarning> warnings = new ArrayList<>(warningsCount);
+        for (int i = 0; i < warningsCount; i++) {
+            final String messageTemplate = input.readUTF().intern();
+            final String[] messageArguments = new String[input.readInt()];
+            for (int j = 0; j < messageArguments.length; j++) {
+                messageArguments[j] = input.readUTF();
+            }
+            final long packedBeginPosition = input.readLong();
+            final long packedEndPosition = input.readLong();
+
+            warnings.add(new AnalyzerWarning(
+                    ruleId,
+                    messageTemplate,
+                    List.of(messageArguments),
+                    packedBeginPosition,
+                    packedEndPosition
+            ));
+        }
+        return warnings;
+    }
+}
@@ -0,0 +1,137 @@
+package ru.itmo.kazakov.analyzer.core;
+
+import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Limits the time a single file may be parsed and analyzed for, so one pathological file can not stall a run.
+ * A watchdog thread expires the {@link Deadline} of a file once its budget is spent, and the analysis notices it
+ * at its next {@link Deadline#checkpoint() checkpoint}: while the parser reads the source, at every node of the fused
+ * rule walk and between other rules. A rule that loops in its own code is not stopped.
+ * Files that ran out of time are recorded as skipped and the run goes on without their warnings.
+ * The watchdog thread stops while no files are analyzed, so budgets need no closing.
+ */
+public class FileTimeBudget {
+
+    private static final long IDLE_WATCHDOG_KEEP_ALIVE_SECONDS = 1;
+
+    private final long budgetNanos;
+    private final ScheduledThreadPoolExecutor watchdog;
+    private final List<SkippedSourceFile> skippedFiles = new ArrayList<>();
+
+    public FileTimeBudget(final long budgetMillis) {
+        if (budgetMillis < 1) {
+            throw new IllegalArgumentException("File time budget must be positive, got " + budgetMillis);
+        }
+
+        this.budgetNanos = TimeUnit.MILLISECONDS.toNanos(budgetMillis);
+        this.watchdog = new ScheduledThreadPoolExecutor(1, runnable -> Thread
+                .ofPlatform()
+                .name("file-time-budget-watchdog")
+                .daemon()
+                .unstarted(runnable)
+        );
+        this.watchdog.setKeepAliveTime(IDLE_WATCHDOG_KEEP_ALIVE_SECONDS, TimeUnit.SECONDS);
+        this.watchdog.allowCoreThreadTimeOut(true);
+        this.watchdog.setRemoveOnCancelPolicy(true);
+    }
+
+    /**
+     * Starts spending the budget of a file, the deadline must be closed once the file is done with.
+     */
+    @Nonnull
+    public Deadline start() {
+        final Deadline deadline = new Deadline();
+        deadline.expiration = watchdog.schedule(deadline::expire, budgetNanos, TimeUnit.NANOSECONDS);
+        return deadline;
+    }
+
+    public void skip(@Nonnull final Path path, @Nonnull final Deadline deadline) {
+        final SkippedSourceFile skippedFile = new SkippedSourceFile(
+                path,
+                "Exceeded the time budget of " + TimeUnit.NANOSECONDS.toMillis(budgetNanos) + " ms while " + deadline.stage,
+                System.nanoTime() - deadline.startNanos
+        );
+        synchronized (skippedFiles) {
+            skippedFiles.add(skippedFile);
+        }
+    }
+
+    /**
+     * @return files skipped so far, in the order of their paths
+     */
+    @Nonnull
+    public List<SkippedSourceFile> getSkippedFiles() {
+        final List<SkippedSourceFile> sortedSkippedFiles;
+        synchronized (skippedFiles) {
+            sortedSkippedFiles = new ArrayList<>(skippedFiles);
+        }
+        sortedSkippedFiles.sort(Comparator.comparing(SkippedSourceFile::path));
+        return sortedSkippedFiles;
+    }
+
+    public static class Deadline implements AutoCloseable {
+
+        private final long startNanos = System.nanoTime();
+        private volatile boolean isExpired = false;
+        private String stage = "starting";
+        private ScheduledFuture<?> expiration;
+
+        private Deadline() {
+            // created by budgets only
+        }
+
+        /**
+         * Names what the file is spending its budget on, for the skip reason.
+         */
+        public void enterStage(@Nonnull final String stageName) {
+            this.stage = stageName;
+        }
+
+        public boolean isExpired() {
+            return isExpired;
+        }
+
+        /**
+         * @throws CancellationException if the budget is spent
+         */
+        public void checkpoint() {
+            if (isExpired) {
+                throw new CancellationException("File time budget is spent while " + stage);
+            }
+        }
+
+        /**
+         * The reader passes a checkpoint before every chunk of the source it hands out.
+         */
+        @Nonnull
+        public Reader createCheckingReader(@Nonnull final String content) {
+            return new StringReader(content) {
+                @Override
+                public int read(@Nonnull final char[] buffer, final int offset, final int length) throws IOException {
+                    checkpoint();
+                    return super.read(buffer, offset, length);
+                }
+            };
+        }
+
+        @Override
+        public void close() {
+            expiration.cancel(false);
+        }
+
+        private void expire() {
+            isExpired = true;
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package ru.itmo.kazakov.analyzer.core;
+
+import ru.itmo.kazakov.analyzer.rule.ParserFeature;
+
+import javax.annotation.Nonnull;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.MemoryUsage;
+import java.util.Set;
+
+/**
+ * Limits the heap retained by ASTs that are parsed or analyzed at the same time.
+ * Every file is estimated by its size before parsing, and a file is admitted while the estimates of files
+ * in flight fit into the budget and the heap, as reported by {@link MemoryMXBean}, has room for it.
+ * One file is always admitted, so files larger than the budget are still analyzed, just one at a time.
+ */
+public class HeapBudget {
+
+    /**
+     * Retained AST size per source char with tokens kept, measured on the first 400 files of the default
+     * {@code CorpusGenerator} corpus. JDK sources, with their long comments, retain less, about 56.
+     */
+    public static final long TOKENS_AST_BYTES_PER_SOURCE_CHAR = 130;
+
+    /**
+     * Retained AST size per source char with tokens dropped after parsing, measured the same way.
+     * JDK sources retain about 34.
+     */
+    public static final long TOKENLESS_AST_BYTES_PER_SOURCE_CHAR = 47;
+
+    private static final long HEAP_RECHECK_MILLIS = 10;
+
+    private final long budgetBytes;
+    private final long astBytesPerSourceChar;
+    private final MemoryMXBean memoryMXBean;
+
+    private long reservedBytes = 0;
+    private int inFlightCount = 0;
+
+    /**
+     * @param astBytesPerSourceChar estimate for the parser configuration in use,
+     *                              see {@link #estimateAstBytesPerSourceChar(Set)}
+     */
+    public HeapBudget(final long budgetBytes, final long astBytesPerSourceChar) {
+        this(budgetBytes, astBytesPerSourceChar, ManagementFactory.getMemoryMXBean());
+    }
+
+    public HeapBudget(final long budgetBytes,
+                      final long astBytesPerSourceChar,
+                      @Nonnull final MemoryMXBean memoryMXBean) {
+        if (budgetBytes < 1) {
+            throw new IllegalArgumentException("Heap budget must be positive, got " + budgetBytes);
+        }
+        if (astBytesPerSourceChar < 1) {
+            throw new IllegalArgumentException("AST bytes per source char must be positive, got " + astBytesPerSourceChar);
+        }
+
+        this.budgetBytes = budgetBytes;
+        this.astBytesPerSourceChar = astBytesPerSourceChar;
+        this.memoryMXBean = memoryMXBean;
+    }
+
+    /**
+     * Tokens make up most of a retained AST, so the estimate depends on whether they are kept after parsing.
+     */
+    public static long estimateAstBytesPerSourceChar(@Nonnull final Set<ParserFeature> parserFeatures) {
+        return parserFeatures.contains(ParserFeature.TOKENS) || parserFeatures.contains(ParserFeature.LEXICAL_PRESERVATION)
+                ? TOKENS_AST_BYTES_PER_SOURCE_CHAR
+                : TOKENLESS_AST_BYTES_PER_SOURCE_CHAR;
+    }
+
+    public long estimateAstBytes(@Nonnull final SourceFile sourceFile) {
+        return sourceFile.content().length() * astBytesPerSourceChar;
+    }
+
+    /**
+     * Blocks until the file fits. While the heap has no room and nothing is released,
+     * the heap usage is polled every 10 ms, so memory freed by a collection is noticed
+     * as well. The used heap reported by {@link MemoryMXBean#getHeapMemoryUsage()} includes garbage not collected
+     * yet, so right after a burst of large files workers may keep polling until the next collection,
+     * even though the ASTs of those files are no longer reachable.
+     */
+    public synchronized void acquire(final long estimatedBytes) throws InterruptedException {
+        while (inFlightCount > 0 && !fits(estimatedBytes)) {
+            wait(HEAP_RECHECK_MILLIS);
+        }
+
+        reservedBytes += estimatedBytes;
+        inFlightCount++;
+    }
+
+    public synchronized void release(final long estimatedBytes) {
+        reservedBytes -= estimatedBytes;
+        inFlightCount--;
+        notifyAll();
+    }
+
+    private boolean fits(final long estimatedBytes) {
+        if (reservedBytes + estimatedBytes > budgetBytes) {
+            return false;
+        }
+
+        final MemoryUsage heapUsage = memoryMXBean.getHeapMemoryUsage();
+        final long heapLimit = heapUsage.getMax() < 0 ? heapUsage.getCommitted() : heapUsage.getMax();
+        return heapUsage.getUsed() + estimatedBytes <= heapLimit;
+    }
+}
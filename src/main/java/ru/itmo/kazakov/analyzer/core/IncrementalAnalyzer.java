@@ -0,0 +1,129 @@
+package ru.itmo.kazakov.analyzer.core;
+
+import com.github.javaparser.ParseProblemException;
+
+import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+/**
+ * Keeps warnings of every source of a tree in memory, so that after changes only the changed sources are analyzed.
+ * A changed source that can not be parsed, usually saved in the middle of an edit, keeps its previous warnings
+ * until it is parsed again.
+ * Holds a {@link SourceFileAnalyzer}, so it must be confined to one thread at a time.
+ */
+public class IncrementalAnalyzer {
+
+    private final Path rootPath;
+    private final SourceCrawlerImpl sourceCrawler;
+    private final SourceFileReader sourceFileReader;
+    private final SourceFileAnalyzer sourceFileAnalyzer;
+    private final Map<Path, List<SourceAwareAnalyzerWarning>> warningsBySource = new HashMap<>();
+    private final Map<Path, String> parseProblems = new TreeMap<>();
+
+    private long warningsCount = 0;
+
+    public IncrementalAnalyzer(@Nonnull final Path rootPath,
+                               @Nonnull final SourceCrawlerImpl sourceCrawler,
+                               @Nonnull final SourceFileReader sourceFileReader,
+                               @Nonnull final SourceFileAnalyzer sourceFileAnalyzer) {
+        this.rootPath = rootPath;
+        this.sourceCrawler = sourceCrawler;
+        this.sourceFileReader = sourceFileReader;
+        this.sourceFileAnalyzer = sourceFileAnalyzer;
+    }
+
+    /**
+     * Remembers a warning of a full analysis, sources without warnings need not be added.
+     */
+    public void addWarning(@Nonnull final SourceAwareAnalyzerWarning warning) {
+        warningsBySource.computeIfAbsent(warning.sourceFilePath(), sourceFilePath -> new ArrayList<>()).add(warning);
+        warningsCount++;
+    }
+
+    public long getWarningsCount() {
+        return warningsCount;
+    }
+
+    /**
+     * @return problems of the sources that could not be parsed by the last update, sorted by path
+     */
+    @Nonnull
+    public Map<Path, String> getParseProblems() {
+        return Collections.unmodifiableMap(parseProblems);
+    }
+
+    /**
+     * Analyzes changed sources again. A changed directory stands for all the sources in it,
+     * and sources that no longer exist lose their warnings.
+     *
+     * @return current warnings of every analyzed source and of every deleted one that had some, sorted by path
+     */
+    @Nonnull
+    public Map<Path, List<SourceAwareAnalyzerWarning>> update(@Nonnull final Collection<Path> changedPaths) throws IOException {
+        final Map<Path, List<SourceAwareAnalyzerWarning>> updatedWarnings = new TreeMap<>();
+        parseProblems.clear();
+        for (final Path changedPath : changedPaths) {
+            if (sourceCrawler.isCrawledSource(rootPath, changedPath)) {
+                analyze(changedPath, updatedWarnings);
+                continue;
+            }
+
+            final List<Path> forgottenSources = warningsBySource
+                    .keySet()
+                    .stream()
+                    .filter(source -> source.startsWith(changedPath))
+                    .toList();
+            for (final Path forgottenSource : forgottenSources) {
+                replaceWarnings(forgottenSource, List.of(), updatedWarnings);
+            }
+
+            if (sourceCrawler.isCrawledDirectory(rootPath, changedPath)) {
+                try (final Stream<Path> sources = sourceCrawler.crawlSources(changedPath)) {
+                    for (final Path source : (Iterable<Path>) sources::iterator) {
+                        analyze(source, updatedWarnings);
+                    }
+                }
+            }
+        }
+        return updatedWarnings;
+    }
+
+    private void analyze(final Path source, final Map<Path, List<SourceAwareAnalyzerWarning>> updatedWarnings) {
+        final List<SourceAwareAnalyzerWarning> warnings;
+        try {
+            warnings = sourceFileReader
+                    .read(source)
+                    .map(sourceFileAnalyzer::analyze)
+                    .orElse(List.of());
+        } catch (ParseProblemException e) {
+            parseProblems.put(
+                    source,
+                    e.getProblems().isEmpty() ? e.getMessage() : e.getProblems().getFirst().getVerboseMessage()
+            );
+            return;
+        }
+        replaceWarnings(source, warnings, updatedWarnings);
+    }
+
+    private void replaceWarnings(final Path source,
+                                 final List<SourceAwareAnalyzerWarning> warnings,
+                                 final Map<Path, List<SourceAwareAnalyzerWarning>> updatedWarnings) {
+        final List<SourceAwareAnalyzerWarning> previousWarnings = warnings.isEmpty()
+                ? warningsBySource.remove(source)
+                : warningsBySource.put(source, warnings);
+        if (previousWarnings != null) {
+            warningsCount -= previousWarnings.size();
+        }
+        warningsCount += warnings.size();
+        updatedWarnings.put(source, warnings);
+    }
+}
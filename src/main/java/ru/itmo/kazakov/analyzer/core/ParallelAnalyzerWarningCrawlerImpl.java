@@ -0,0 +1,228 @@
+package ru.itmo.kazakov.analyzer.core;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Analyzes crawled files in two stages: sources are read ahead on virtual threads,
+ * then parsed and analyzed on a fixed number of worker threads, so workers never wait on the filesystem.
+ * Every worker borrows its own {@link SourceFileAnalyzer}, so parsers and rules are never shared between threads.
+ * At most {@code readAheadLimit} files are read or waiting to be consumed at a time.
+ * With a {@link HeapBudget}, workers wait before parsing while the ASTs in flight would not fit into it.
+ * Warnings are emitted in the crawl order, the same way {@link AnalyzerWarningCrawlerImpl} does.
+ */
+public class ParallelAnalyzerWarningCrawlerImpl implements AnalyzerWarningCrawler {
+
+    private static final long IDLE_WORKER_KEEP_ALIVE_SECONDS = 1;
+
+    private static final CompletableFuture<List<SourceAwareAnalyzerWarning>> END_OF_SOURCES =
+            CompletableFuture.completedFuture(List.of());
+
+    private final SourceCrawler sourceCrawler;
+    private final SourceFileReader sourceFileReader;
+    private final Supplier<SourceFileAnalyzer> sourceFileAnalyzerFactory;
+    private final int workersCount;
+    private final int readAheadLimit;
+    @Nullable
+    private final HeapBudget heapBudget;
+    private final Queue<SourceFileAnalyzer> idleSourceFileAnalyzers = new ConcurrentLinkedQueue<>();
+
+    public ParallelAnalyzerWarningCrawlerImpl(@Nonnull final SourceCrawler sourceCrawler,
+                                              @Nonnull final SourceFileReader sourceFileReader,
+                                              @Nonnull final Supplier<SourceFileAnalyzer> sourceFileAnalyzerFactory,
+                                              final int workersCount,
+                                              final int readAheadLimit) {
+        this(sourceCrawler, sourceFileReader, sourceFileAnalyzerFactory, workersCount, readAheadLimit, null);
+    }
+
+    public ParallelAnalyzerWarningCrawlerImpl(@Nonnull final SourceCrawler sourceCrawler,
+                                              @Nonnull final SourceFileReader sourceFileReader,
+                                              @Nonnull final Supplier<SourceFileAnalyzer> sourceFileAnalyzerFactory,
+                                              final int workersCount,
+                                              final int readAheadLimit,
+                                              @Nullable final HeapBudget heapBudget) {
+        if (workersCount < 1) {
+            throw new IllegalArgumentException("Workers count must be positive, got " + workersCount);
+        }
+        if (readAheadLimit < 1) {
+            throw new IllegalArgumentException("Read-ahead limit must be positive, got " + readAheadLimit);
+        }
+
+        this.sourceCrawler = sourceCrawler;
+        this.sourceFileReader = sourceFileReader;
+        this.sourceFileAnalyzerFactory = sourceFileAnalyzerFactory;
+        this.workersCount = workersCount;
+        this.readAheadLimit = readAheadLimit;
+        this.heapBudget = heapBudget;
+    }
+
+    @Override
+    public Stream<SourceAwareAnalyzerWarning> crawl(@Nonnull final Path rootPath) throws IOException {
+        final Stream<Path> sources = sourceCrawler.crawlSources(rootPath);
+        final ExecutorService readers = Executors.newThreadPerTaskExecutor(
+                Thread.ofVirtual().name("source-reader-", 1).factory()
+        );
+        final ThreadPoolExecutor workers = new ThreadPoolExecutor(
+                workersCount,
+                workersCount,
+                IDLE_WORKER_KEEP_ALIVE_SECONDS,
+                TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(),
+                new WorkerThreadFactory()
+        );
+        workers.allowCoreThreadTimeOut(true);
+        final BlockingQueue<CompletableFuture<List<SourceAwareAnalyzerWarning>>> pendingResults =
+                new ArrayBlockingQueue<>(readAheadLimit);
+
+        final Thread dispatcher = Thread
+                .ofPlatform()
+                .name("analyzer-dispatcher")
+                .daemon()
+                .start(() -> dispatch(sources, readers, workers, pendingResults));
+
+        return StreamSupport
+                .stream(new PendingResultsSpliterator(pendingResults), false)
+                .flatMap(List::stream)
+                .onClose(() -> {
+                    dispatcher.interrupt();
+                    readers.shutdownNow();
+                    workers.shutdownNow();
+                    sources.close();
+                });
+    }
+
+    private void dispatch(final Stream<Path> sources,
+                          final ExecutorService readers,
+                          final ExecutorService workers,
+                          final BlockingQueue<CompletableFuture<List<SourceAwareAnalyzerWarning>>> pendingResults) {
+        try {
+            try {
+                sources.forEachOrdered(source -> {
+                    final CompletableFuture<List<SourceAwareAnalyzerWarning>> pendingResult = CompletableFuture
+                            .supplyAsync(() -> sourceFileReader.read(source), readers)
+                            .thenApplyAsync(this::analyzeOnWorker, workers);
+                    try {
+                        pendingResults.put(pendingResult);
+                    } catch (InterruptedException e) {
+                        throw new CancellationException("Crawl was closed");
+                    }
+                });
+            } catch (RuntimeException e) {
+                pendingResults.put(CompletableFuture.failedFuture(e));
+            }
+
+            pendingResults.put(END_OF_SOURCES);
+
+            // a read hands its file to the workers as it completes, so workers may only be shut down after the last read
+            readers.shutdown();
+            readers.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+            workers.shutdown();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            readers.shutdown();
+        }
+    }
+
+    private List<SourceAwareAnalyzerWarning> analyzeOnWorker(final Optional<SourceFile> sourceFile) {
+        if (sourceFile.isEmpty()) {
+            return List.of();
+        }
+
+        if (heapBudget == null) {
+            return analyzeWithIdleAnalyzer(sourceFile.get());
+        }
+
+        final long estimatedAstBytes = heapBudget.estimateAstBytes(sourceFile.get());
+        try {
+            heapBudget.acquire(estimatedAstBytes);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Crawl was closed");
+        }
+
+        try {
+            return analyzeWithIdleAnalyzer(sourceFile.get());
+        } finally {
+            heapBudget.release(estimatedAstBytes);
+        }
+    }
+
+    private List<SourceAwareAnalyzerWarning> analyzeWithIdleAnalyzer(final SourceFile sourceFile) {
+        final SourceFileAnalyzer sourceFileAnalyzer = Objects.requireNonNullElseGet(
+                idleSourceFileAnalyzers.poll(),
+                sourceFileAnalyzerFactory
+        );
+
+        try {
+            return sourceFileAnalyzer.analyze(sourceFile);
+        } finally {
+            idleSourceFileAnalyzers.offer(sourceFileAnalyzer);
+        }
+    }
+
+    private static class PendingResultsSpliterator extends Spliterators.AbstractSpliterator<List<SourceAwareAnalyzerWarning>> {
+
+        private final BlockingQueue<CompletableFuture<List<SourceAwareAnalyzerWarning>>> pendingResults;
+
+        private PendingResultsSpliterator(
+                final BlockingQueue<CompletableFuture<List<SourceAwareAnalyzerWarning>>> pendingResults
+        ) {
+            super(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL);
+            this.pendingResults = pendingResults;
+        }
+
+        @Override
+        public boolean tryAdvance(final Consumer<? super List<SourceAwareAnalyzerWarning>> action) {
+            final CompletableFuture<List<SourceAwareAnalyzerWarning>> pendingResult;
+            try {
+                pendingResult = pendingResults.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new CancellationException("Interrupted while waiting for analysis results");
+            }
+
+            if (pendingResult == END_OF_SOURCES) {
+                return false;
+            }
+
+            try {
+                action.accept(pendingResult.join());
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException cause) {
+                    throw cause;
+                }
+                throw e;
+            }
+            return true;
+        }
+    }
+
+    private static class WorkerThreadFactory implements ThreadFactory {
+
+        private final AtomicInteger createdThreads = new AtomicInteger();
+
+        @Override
+        public Thread newThread(@Nonnull final Runnable runnable) {
+            return Thread
+                    .ofPlatform()
+                    .name("analyzer-worker-" + createdThreads.incrementAndGet())
+                    .daemon()
+                    .unstarted(runnable);
+        }
+    }
+}
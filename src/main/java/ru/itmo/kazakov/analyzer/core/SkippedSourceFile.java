@@ -0,0 +1,12 @@
+package ru.itmo.kazakov.analyzer.core;
+
+import javax.annotation.Nonnull;
+import java.nio.file.Path;
+
+public record SkippedSourceFile(
+        @Nonnull Path path,
+        @Nonnull String reason,
+        long elapsedNanos
+) {
+    // no methods
+}
@@ -1,54 +1,273 @@
 package ru.itmo.kazakov.analyzer.core;
 
 import javax.annotation.Nonnull;
-import java.io.File;
+import javax.annotation.Nullable;
 import java.io.IOException;
-import java.nio.file.FileVisitResult;
+import java.io.Serial;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryIteratorException;
+import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
+import java.nio.file.LinkOption;
 import java.nio.file.Path;
-import java.nio.file.SimpleFileVisitor;
 import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.Semaphore;
+import java.util.function.Consumer;
 import java.util.regex.Pattern;
 import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
-import static java.nio.file.FileVisitResult.CONTINUE;
-import static java.nio.file.FileVisitResult.SKIP_SUBTREE;
-
+/**
+ * Lazily crawls java sources, listing directory subtrees in parallel on a fork-join pool.
+ * Sources are handed out in the same order on every run, sorted by name within a directory
+ * and coming before the sources of its subdirectories.
+ */
 public class SourceCrawlerImpl implements SourceCrawler {
 
     private static final Pattern JAVA_IDENTIFIER =
             Pattern.compile("\\p{javaJavaIdentifierStart}\\p{javaJavaIdentifierPart}*");
 
+    private static final int PREFETCHED_DIRECTORIES_LIMIT = 256;
+
+    private final int parallelism;
+    @Nullable
+    private final AnalyzerMetrics analyzerMetrics;
+
+    public SourceCrawlerImpl() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    public SourceCrawlerImpl(final int parallelism) {
+        this(parallelism, null);
+    }
+
+    /**
+     * @param analyzerMetrics measures listing of every directory, if any
+     */
+    public SourceCrawlerImpl(final int parallelism, @Nullable final AnalyzerMetrics analyzerMetrics) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Crawler parallelism must be positive, got " + parallelism);
+        }
+        this.parallelism = parallelism;
+        this.analyzerMetrics = analyzerMetrics;
+    }
+
     @Override
-    public Stream<File> crawlSources(@Nonnull final Path rootPath) throws IOException {
-        final List<File> sources = new ArrayList<>();
+    public Stream<Path> crawlSources(@Nonnull final Path rootPath) throws IOException {
+        final BasicFileAttributes rootAttributes =
+                Files.readAttributes(rootPath, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+        if (!rootAttributes.isDirectory()) {
+            return isSource(rootPath) ? Stream.of(rootPath) : Stream.empty();
+        }
+        if (!isSensibleDirectoryToEnter(rootPath)) {
+            return Stream.empty();
+        }
 
-        Files.walkFileTree(rootPath, new SimpleFileVisitor<>() {
+        final DirectoryWalk directoryWalk = new DirectoryWalk(new ForkJoinPool(parallelism), rootPath);
 
-            @Override
-            public FileVisitResult visitFile(final Path file, final BasicFileAttributes attrs) {
-                if (!attrs.isDirectory() && file.toString().endsWith(".java")) {
-                    sources.add(file.toFile());
-                }
-                return CONTINUE;
-            }
+        return StreamSupport
+                .stream(directoryWalk, false)
+                .onClose(directoryWalk::cancel);
+    }
+
+    /**
+     * Checks whether {@link #crawlSources} would return {@code source} when crawling {@code rootPath},
+     * without listing any directories.
+     */
+    public boolean isCrawledSource(@Nonnull final Path rootPath, @Nonnull final Path source) throws IOException {
+        if (!source.startsWith(rootPath)
+                || !isSource(source)
+                || !Files.exists(source, LinkOption.NOFOLLOW_LINKS)
+                || Files.isDirectory(source, LinkOption.NOFOLLOW_LINKS)) {
+            return false;
+        }
+        if (source.equals(rootPath)) {
+            return true;
+        }
 
-            @Override
-            public FileVisitResult preVisitDirectory(final Path dir, final BasicFileAttributes attrs) throws IOException {
-                return isSensibleDirectoryToEnter(dir) ? CONTINUE : SKIP_SUBTREE;
+        return isCrawledDirectory(rootPath, source.getParent());
+    }
+
+    /**
+     * Checks whether {@link #crawlSources} would list {@code directory} when crawling {@code rootPath},
+     * without listing any directories.
+     */
+    public boolean isCrawledDirectory(@Nonnull final Path rootPath, @Nonnull final Path directory) throws IOException {
+        if (!directory.startsWith(rootPath) || !Files.isDirectory(directory, LinkOption.NOFOLLOW_LINKS)) {
+            return false;
+        }
+
+        Path enteredDirectory = directory;
+        while (!enteredDirectory.equals(rootPath)) {
+            if (Files.isSymbolicLink(enteredDirectory) || !isSensibleDirectoryToEnter(enteredDirectory)) {
+                return false;
             }
-        });
+            enteredDirectory = enteredDirectory.getParent();
+        }
+        return Files.isDirectory(rootPath, LinkOption.NOFOLLOW_LINKS) && isSensibleDirectoryToEnter(rootPath);
+    }
 
-        return sources.stream();
+    private boolean isSource(@Nonnull final Path file) {
+        return file.toString().endsWith(".java");
     }
 
-    private boolean isSensibleDirectoryToEnter(final Path directory) throws IOException {
+    private boolean isSensibleDirectoryToEnter(@Nonnull final Path directory) throws IOException {
         final String directoryToEnter = directory.getFileName().toString();
         final boolean directoryIsAValidJavaIdentifier =
                 JAVA_IDENTIFIER.matcher(directoryToEnter).matches();
 
         return !Files.isHidden(directory) && directoryIsAValidJavaIdentifier;
     }
+
+    /**
+     * Hands out sources of a directory by name, then sources of every subdirectory in turn, also by name.
+     * Directories are listed on the pool ahead of the consumer while at most {@link #PREFETCHED_DIRECTORIES_LIMIT}
+     * listings wait to be taken, later ones are listed once the consumer reaches them.
+     */
+    private class DirectoryWalk extends Spliterators.AbstractSpliterator<Path> {
+
+        private final ForkJoinPool pool;
+        private final Semaphore prefetchPermits = new Semaphore(PREFETCHED_DIRECTORIES_LIMIT);
+        private final Deque<DirectoryTask> pendingDirectories = new ArrayDeque<>();
+        private Iterator<Path> pendingSources = Collections.emptyIterator();
+        private volatile boolean closed = false;
+
+        private DirectoryWalk(final ForkJoinPool pool, final Path rootPath) {
+            super(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.DISTINCT | Spliterator.NONNULL);
+            this.pool = pool;
+            this.pendingDirectories.add(new DirectoryTask(rootPath, this));
+        }
+
+        private void prefetch(final DirectoryTask directoryTask) {
+            if (prefetchPermits.tryAcquire()) {
+                directoryTask.isPrefetched = true;
+                directoryTask.fork();
+            }
+        }
+
+        private void cancel() {
+            closed = true;
+            pool.shutdownNow();
+        }
+
+        @Override
+        public boolean tryAdvance(final Consumer<? super Path> action) {
+            while (!pendingSources.hasNext()) {
+                final DirectoryTask directoryTask = pendingDirectories.pollFirst();
+                if (directoryTask == null) {
+                    pool.shutdown();
+                    return false;
+                }
+
+                final DirectoryListing directoryListing = takeListing(directoryTask);
+                pendingSources = directoryListing.sources().iterator();
+                for (int i = directoryListing.subdirectories().size() - 1; i >= 0; i--) {
+                    pendingDirectories.addFirst(directoryListing.subdirectories().get(i));
+                }
+            }
+
+            action.accept(pendingSources.next());
+            return true;
+        }
+
+        private DirectoryListing takeListing(final DirectoryTask directoryTask) {
+            if (!directoryTask.isPrefetched) {
+                pool.execute(directoryTask);
+            }
+
+            try {
+                return directoryTask.join();
+            } finally {
+                if (directoryTask.isPrefetched) {
+                    prefetchPermits.release();
+                }
+            }
+        }
+    }
+
+    private class DirectoryTask extends RecursiveTask<DirectoryListing> {
+
+        @Serial
+        private static final long serialVersionUID = 1L;
+
+        private final transient Path directory;
+        private final transient DirectoryWalk directoryWalk;
+
+        /**
+         * Written before the task is forked by the listing of its parent, read once that listing is joined.
+         */
+        private transient boolean isPrefetched = false;
+
+        private DirectoryTask(final Path directory, final DirectoryWalk directoryWalk) {
+            this.directory = directory;
+            this.directoryWalk = directoryWalk;
+        }
+
+        @Override
+        protected DirectoryListing compute() {
+            final AnalyzerEvents.DirectoryCrawlEvent crawlEvent = new AnalyzerEvents.DirectoryCrawlEvent();
+            crawlEvent.begin();
+            final AnalyzerMetrics.Sample listingStart = analyzerMetrics == null ? null : analyzerMetrics.start();
+            final List<Path> sources = new ArrayList<>();
+            final List<Path> subdirectories = new ArrayList<>();
+            try (final DirectoryStream<Path> entries = Files.newDirectoryStream(directory)) {
+                for (final Path entry : entries) {
+                    if (directoryWalk.closed) {
+                        throw new CancellationException("Crawl was closed");
+                    }
+
+                    final BasicFileAttributes attributes =
+                            Files.readAttributes(entry, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+                    if (attributes.isDirectory()) {
+                        if (isSensibleDirectoryToEnter(entry)) {
+                            subdirectories.add(entry);
+                        }
+                    } else if (isSource(entry)) {
+                        sources.add(entry);
+                    }
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            } catch (DirectoryIteratorException e) {
+                throw new UncheckedIOException(e.getCause());
+            } finally {
+                if (listingStart != null) {
+                    analyzerMetrics.recordPhase(AnalyzerMetrics.Phase.CRAWL, listingStart);
+                }
+                if (crawlEvent.shouldCommit()) {
+                    crawlEvent.path = directory.toString();
+                    crawlEvent.sourcesCount = sources.size();
+                    crawlEvent.commit();
+                }
+            }
+
+            sources.sort(null);
+            subdirectories.sort(null);
+            final List<DirectoryTask> subdirectoryTasks = new ArrayList<>(subdirectories.size());
+            for (final Path subdirectory : subdirectories) {
+                final DirectoryTask subdirectoryTask = new DirectoryTask(subdirectory, directoryWalk);
+                directoryWalk.prefetch(subdirectoryTask);
+                subdirectoryTasks.add(subdirectoryTask);
+            }
+            return new DirectoryListing(sources, subdirectoryTasks);
+        }
+    }
+
+    private record DirectoryListing(
+            @Nonnull List<Path> sources,
+            @Nonnull List<DirectoryTask> subdirectories
+    ) {
+        // no methods
+    }
 }
@@ -0,0 +1,11 @@
+package ru.itmo.kazakov.analyzer.core;
+
+import javax.annotation.Nonnull;
+import java.nio.file.Path;
+
+public record SourceFile(
+        @Nonnull Path path,
+        @Nonnull String content
+) {
+    // no methods
+}
@@ -0,0 +1,256 @@
+package ru.itmo.kazakov.analyzer.core;
+
+import com.github.javaparser.JavaParser;
+import com.github.javaparser.JavaParserAdapter;
+import com.github.javaparser.ParseProblemException;
+import com.github.javaparser.ParserConfiguration;
+import com.github.javaparser.ast.CompilationUnit;
+import ru.itmo.kazakov.analyzer.rule.ParserFeature;
+import ru.itmo.kazakov.analyzer.rule.StaticAnalyzerRule;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HexFormat;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+
+/**
+ * Parses and analyzes a single source file.
+ * Holds a {@link JavaParser} and rule instances, so it must be confined to one thread at a time.
+ * With a cache, rules that already have results for the same content are not run again,
+ * and the file is not parsed at all if every rule has them. Rules that resolve symbols are always run.
+ * Warnings of the file are passed through the filter, if any, before they are returned.
+ * With metrics, parsing and analysis are measured per file, along with the AST size.
+ * With a time budget, files that exceed it are recorded as skipped and have no warnings.
+ */
+public class SourceFileAnalyzer {
+
+    private final StaticAnalyzer staticAnalyzer;
+    private final JavaParserAdapter javaParserAdapter;
+    @Nullable
+    private final AnalysisResultCache analysisResultCache;
+    @Nullable
+    private final MessageDigest contentDigest;
+    @Nullable
+    private final AnalyzerWarningFilter analyzerWarningFilter;
+    @Nullable
+    private final AnalyzerMetrics analyzerMetrics;
+    @Nullable
+    private final FileTimeBudget fileTimeBudget;
+
+    public SourceFileAnalyzer(@Nonnull final StaticAnalyzer staticAnalyzer,
+                              @Nonnull final JavaParser javaParser,
+                              @Nonnull final Options options) {
+        this.staticAnalyzer = staticAnalyzer;
+        this.javaParserAdapter = new JavaParserAdapter(javaParser);
+        this.analysisResultCache = options.analysisResultCache();
+        this.contentDigest = analysisResultCache == null ? null : createContentDigest();
+        this.analyzerWarningFilter = options.analyzerWarningFilter();
+        this.analyzerMetrics = options.analyzerMetrics();
+        this.fileTimeBudget = options.fileTimeBudget();
+    }
+
+    @Nonnull
+    public List<SourceAwareAnalyzerWarning> analyze(@Nonnull final SourceFile sourceFile) {
+        final AnalyzerEvents.FileAnalyzeEvent analyzeEvent = new AnalyzerEvents.FileAnalyzeEvent();
+        analyzeEvent.begin();
+
+        final List<SourceAwareAnalyzerWarning> warnings;
+        if (fileTimeBudget == null) {
+            warnings = analyzeWithRules(sourceFile, null);
+        } else {
+            try (final FileTimeBudget.Deadline deadline = fileTimeBudget.start()) {
+                try {
+                    warnings = analyzeWithRules(sourceFile, deadline);
+                } catch (CancellationException e) {
+                    if (!deadline.isExpired()) {
+                        throw e;
+                    }
+                    fileTimeBudget.skip(sourceFile.path(), deadline);
+                    return List.of();
+                }
+            }
+        }
+
+        final List<SourceAwareAnalyzerWarning> filteredWarnings = analyzerWarningFilter == null
+                ? warnings
+                : analyzerWarningFilter.filter(sourceFile, warnings);
+
+        if (analyzeEvent.shouldCommit()) {
+            analyzeEvent.path = sourceFile.path().toString();
+            analyzeEvent.warningsCount = filteredWarnings.size();
+            analyzeEvent.commit();
+        }
+        return filteredWarnings;
+    }
+
+    private List<SourceAwareAnalyzerWarning> analyzeWithRules(final SourceFile sourceFile,
+                                                              final FileTimeBudget.Deadline deadline) {
+        final Path sourceFilePath = sourceFile.path();
+        if (analysisResultCache == null) {
+            return parseAndAnalyze(sourceFile, staticAnalyzer.getRules(), deadline)
+                    .values()
+                    .stream()
+                    .flatMap(List::stream)
+                    .map(warning -> new SourceAwareAnalyzerWarning(warning, sourceFilePath))
+                    .toList();
+        }
+
+        final String contentHash = hashContent(sourceFile.content());
+        final Map<StaticAnalyzerRule<? extends StaticAnalyzerRuleState>, List<AnalyzerWarning>> warningsByRule =
+                new IdentityHashMap<>();
+        final List<StaticAnalyzerRule<? extends StaticAnalyzerRuleState>> missedRules = new ArrayList<>();
+
+        staticAnalyzer.getRules().forEach(rule -> {
+            if (!isCacheable(rule)) {
+                missedRules.add(rule);
+                return;
+            }
+
+            analysisResultCache
+                    .get(createCacheKey(contentHash, rule))
+                    .ifPresentOrElse(
+                            warnings -> warningsByRule.put(rule, warnings),
+                            () -> missedRules.add(rule)
+                    );
+        });
+
+        if (!missedRules.isEmpty()) {
+            parseAndAnalyze(sourceFile, missedRules, deadline).forEach((rule, warnings) -> {
+                if (isCacheable(rule)) {
+                    analysisResultCache.put(createCacheKey(contentHash, rule), warnings);
+                }
+                warningsByRule.put(rule, warnings);
+            });
+        }
+
+        return staticAnalyzer
+                .getRules()
+                .stream()
+                .flatMap(rule -> warningsByRule.get(rule).stream())
+                .map(warning -> new SourceAwareAnalyzerWarning(warning, sourceFilePath))
+                .toList();
+    }
+
+    private Map<StaticAnalyzerRule<? extends StaticAnalyzerRuleState>, List<AnalyzerWarning>> parseAndAnalyze(
+            final SourceFile sourceFile,
+            final Collection<StaticAnalyzerRule<? extends StaticAnalyzerRuleState>> rules,
+            final FileTimeBudget.Deadline deadline
+    ) {
+        if (analyzerMetrics == null) {
+            return staticAnalyzer.analyze(parse(sourceFile, deadline), rules, deadline);
+        }
+
+        final AnalyzerMetrics.Sample parseStart = analyzerMetrics.start();
+        final CompilationUnit compiledFile = parse(sourceFile, deadline);
+        analyzerMetrics.recordPhase(AnalyzerMetrics.Phase.PARSE, parseStart);
+
+        final AnalyzerMetrics.Sample analyzeStart = analyzerMetrics.start();
+        final Map<StaticAnalyzerRule<? extends StaticAnalyzerRuleState>, List<AnalyzerWarning>> warningsByRule =
+                staticAnalyzer.analyze(compiledFile, rules, deadline);
+        analyzerMetrics.recordPhase(AnalyzerMetrics.Phase.ANALYZE, analyzeStart);
+
+        analyzerMetrics.recordFile(sourceFile.path(), compiledFile, parseStart);
+        return warningsByRule;
+    }
+
+    private CompilationUnit parse(final SourceFile sourceFile, final FileTimeBudget.Deadline deadline) {
+        final AnalyzerEvents.FileParseEvent parseEvent = new AnalyzerEvents.FileParseEvent();
+        parseEvent.begin();
+
+        final CompilationUnit compiledFile = deadline == null
+                ? javaParserAdapter.parse(sourceFile.content())
+                : parseWithCheckpoints(sourceFile, deadline);
+
+        if (parseEvent.shouldCommit()) {
+            parseEvent.path = sourceFile.path().toString();
+            parseEvent.length = sourceFile.content().length();
+            parseEvent.commit();
+        }
+        return compiledFile;
+    }
+
+    /**
+     * The parser turns a cancellation into a parse problem, so it is recognized by the expired deadline.
+     */
+    private CompilationUnit parseWithCheckpoints(final SourceFile sourceFile, final FileTimeBudget.Deadline deadline) {
+        deadline.enterStage("parsing");
+        final CompilationUnit compiledFile;
+        try {
+            compiledFile = javaParserAdapter.parse(deadline.createCheckingReader(sourceFile.content()));
+        } catch (ParseProblemException e) {
+            deadline.checkpoint();
+            throw e;
+        }
+
+        deadline.enterStage("analyzing");
+        return compiledFile;
+    }
+
+    /**
+     * Warnings of rules that resolve symbols depend on other files, not only on the content.
+     */
+    private static boolean isCacheable(final StaticAnalyzerRule<? extends StaticAnalyzerRuleState> rule) {
+        return !rule.getRequiredParserFeatures().contains(ParserFeature.SYMBOL_RESOLUTION);
+    }
+
+    private AnalysisResultCacheKey createCacheKey(final String contentHash,
+                                                  final StaticAnalyzerRule<? extends StaticAnalyzerRuleState> rule) {
+        final ParserConfiguration.LanguageLevel languageLevel = javaParserAdapter.getParserConfiguration().getLanguageLevel();
+        return new AnalysisResultCacheKey(contentHash, rule.getId(), rule.getVersion(), languageLevel);
+    }
+
+    private String hashContent(final String content) {
+        assert contentDigest != null;
+        return HexFormat.of().formatHex(contentDigest.digest(content.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static MessageDigest createContentDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is required to be supported by every JVM", e);
+        }
+    }
+
+    /**
+     * Optional parts of the analysis, {@link #DEFAULT} has none of them.
+     */
+    public record Options(
+            @Nullable AnalysisResultCache analysisResultCache,
+            @Nullable AnalyzerWarningFilter analyzerWarningFilter,
+            @Nullable AnalyzerMetrics analyzerMetrics,
+            @Nullable FileTimeBudget fileTimeBudget
+    ) {
+
+        public static final Options DEFAULT = new Options(null, null, null, null);
+
+        @Nonnull
+        public Options withAnalysisResultCache(@Nullable final AnalysisResultCache analysisResultCache) {
+            return new Options(analysisResultCache, analyzerWarningFilter, analyzerMetrics, fileTimeBudget);
+        }
+
+        @Nonnull
+        public Options withAnalyzerWarningFilter(@Nullable final AnalyzerWarningFilter analyzerWarningFilter) {
+            return new Options(analysisResultCache, analyzerWarningFilter, analyzerMetrics, fileTimeBudget);
+        }
+
+        @Nonnull
+        public Options withAnalyzerMetrics(@Nullable final AnalyzerMetrics analyzerMetrics) {
+            return new Options(analysisResultCache, analyzerWarningFilter, analyzerMetrics, fileTimeBudget);
+        }
+
+        @Nonnull
+        public Options withFileTimeBudget(@Nullable final FileTimeBudget fileTimeBudget) {
+            return new Options(analysisResultCache, analyzerWarningFilter, analyzerMetrics, fileTimeBudget);
+        }
+    }
+}
@@ -0,0 +1,207 @@
+package ru.itmo.kazakov.analyzer.core;
+
+import javax.annotation.Nonnull;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Excludes sources before they are decoded and parsed, checked by {@link SourceFileReader} in order of cost:
+ * by path, by size before reading, and by raw bytes once read.
+ * Generated code is recognized by markers code generators put into the header, such as {@code @Generated}
+ * or {@code DO NOT EDIT}, so a hand-written file that mentions them early on is excluded as well.
+ * Safe to use from several threads at once.
+ */
+public class SourceFileFilter {
+
+    /**
+     * Generators put the markers into the leading comment or onto the class after the imports.
+     */
+    public static final int HEADER_SCAN_BYTES = 16 * 1024;
+
+    private static final List<byte[]> GENERATED_CODE_MARKERS = List.of(
+            "@Generated".getBytes(StandardCharsets.US_ASCII),
+            "@javax.annotation.Generated".getBytes(StandardCharsets.US_ASCII),
+            "@javax.annotation.processing.Generated".getBytes(StandardCharsets.US_ASCII),
+            "DO NOT EDIT".getBytes(StandardCharsets.US_ASCII),
+            "by ANTLR".getBytes(StandardCharsets.US_ASCII)
+    );
+
+    private static final long NEW_LINES = 0x0a0a0a0a0a0a0a0aL;
+    private static final long LOW_BITS = 0x0101010101010101L;
+    private static final long HIGH_BITS = 0x8080808080808080L;
+
+    private final Path absoluteRootPath;
+    private final List<PathMatcher> excludedPathMatchers;
+    private final long maxFileBytes;
+    private final long maxFileLines;
+    private final boolean excludesGeneratedCode;
+    private final Map<ExclusionReason, LongAdder> excludedFilesCounts = new EnumMap<>(ExclusionReason.class);
+
+    /**
+     * @param excludedPathGlobs globs over paths relative to the root, with {@code /} separators
+     * @param maxFileBytes      {@link Long#MAX_VALUE} for no limit, same for {@code maxFileLines}
+     */
+    public SourceFileFilter(@Nonnull final Path rootPath,
+                            @Nonnull final List<String> excludedPathGlobs,
+                            final long maxFileBytes,
+                            final long maxFileLines,
+                            final boolean excludesGeneratedCode) {
+        this.absoluteRootPath = rootPath.toAbsolutePath().normalize();
+        this.excludedPathMatchers = excludedPathGlobs
+                .stream()
+                .map(glob -> FileSystems.getDefault().getPathMatcher("glob:" + glob))
+                .toList();
+        this.maxFileBytes = maxFileBytes;
+        this.maxFileLines = maxFileLines;
+        this.excludesGeneratedCode = excludesGeneratedCode;
+        for (final ExclusionReason reason : ExclusionReason.values()) {
+            excludedFilesCounts.put(reason, new LongAdder());
+        }
+    }
+
+    public boolean acceptsPath(@Nonnull final Path path) {
+        if (excludedPathMatchers.isEmpty()) {
+            return true;
+        }
+
+        final Path absolutePath = path.toAbsolutePath().normalize();
+        final Path relativePath = absolutePath.startsWith(absoluteRootPath)
+                ? absoluteRootPath.relativize(absolutePath)
+                : absolutePath;
+        for (final PathMatcher excludedPathMatcher : excludedPathMatchers) {
+            if (excludedPathMatcher.matches(relativePath)) {
+                return exclude(ExclusionReason.PATH);
+            }
+        }
+        return true;
+    }
+
+    public boolean acceptsSize(final long fileBytes) {
+        return fileBytes <= maxFileBytes || exclude(ExclusionReason.SIZE);
+    }
+
+    /**
+     * Scans the content from its position to its limit, neither of which is changed.
+     * The content is expected in an ASCII-compatible charset.
+     */
+    public boolean acceptsContent(@Nonnull final ByteBuffer content) {
+        if (excludesGeneratedCode && hasGeneratedCodeMarker(content)) {
+            return exclude(ExclusionReason.GENERATED);
+        }
+        if (maxFileLines != Long.MAX_VALUE && countLines(content) > maxFileLines) {
+            return exclude(ExclusionReason.LINES);
+        }
+        return true;
+    }
+
+    /**
+     * @return counts of files excluded so far, only of the reasons that excluded some
+     */
+    @Nonnull
+    public Map<ExclusionReason, Long> getExcludedFilesCounts() {
+        final Map<ExclusionReason, Long> counts = new EnumMap<>(ExclusionReason.class);
+        excludedFilesCounts.forEach((reason, count) -> {
+            if (count.sum() > 0) {
+                counts.put(reason, count.sum());
+            }
+        });
+        return Collections.unmodifiableMap(counts);
+    }
+
+    private boolean exclude(final ExclusionReason reason) {
+        excludedFilesCounts.get(reason).increment();
+        return false;
+    }
+
+    /**
+     * Counts {@code \n} bytes eight at a time, a last line without one counts as well.
+     */
+    private static long countLines(final ByteBuffer content) {
+        final int end = content.limit();
+        int index = content.position();
+        long linesCount = 0;
+        for (; index + Long.BYTES <= end; index += Long.BYTES) {
+            final long newLineBytes = content.getLong(index) ^ NEW_LINES;
+            linesCount += Long.bitCount((newLineBytes - LOW_BITS) & ~newLineBytes & HIGH_BITS);
+        }
+        for (; index < end; index++) {
+            if (content.get(index) == '\n') {
+                linesCount++;
+            }
+        }
+
+        final boolean hasUnterminatedLine = content.hasRemaining() && content.get(end - 1) != '\n';
+        return hasUnterminatedLine ? linesCount + 1 : linesCount;
+    }
+
+    private static boolean hasGeneratedCodeMarker(final ByteBuffer content) {
+        final int start = content.position();
+        final int end = start + Math.min(content.remaining(), HEADER_SCAN_BYTES);
+        for (int index = start; index < end; index++) {
+            final byte contentByte = content.get(index);
+            if (contentByte != '@' && contentByte != 'D' && contentByte != 'b') {
+                continue;
+            }
+
+            for (final byte[] marker : GENERATED_CODE_MARKERS) {
+                if (marker[0] == contentByte
+                        && startsWith(content, index, end, marker)
+                        && (contentByte != '@' || endsAnnotationName(content, index + marker.length))) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static boolean startsWith(final ByteBuffer content, final int index, final int end, final byte[] marker) {
+        if (index + marker.length > end) {
+            return false;
+        }
+
+        for (int i = 1; i < marker.length; i++) {
+            if (content.get(index + i) != marker[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Tells {@code @Generated} from {@code @GeneratedValue}, checked past the scanned header as well.
+     */
+    private static boolean endsAnnotationName(final ByteBuffer content, final int index) {
+        if (index == content.limit()) {
+            return true;
+        }
+
+        final byte nextByte = content.get(index);
+        return nextByte == '(' || nextByte == ' ' || nextByte == '\t' || nextByte == '\n' || nextByte == '\r' || nextByte == '\f';
+    }
+
+    public enum ExclusionReason {
+        PATH("matching excluded paths"),
+        SIZE("over the size limit"),
+        LINES("over the line limit"),
+        GENERATED("generated");
+
+        private final String description;
+
+        ExclusionReason(@Nonnull final String description) {
+            this.description = description;
+        }
+
+        @Nonnull
+        public String getDescription() {
+            return description;
+        }
+    }
+}
@@ -0,0 +1,242 @@
+package ru.itmo.kazakov.analyzer.core;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Reads source files through {@link FileChannel}s: files of at least {@code memoryMappingThreshold} bytes are
+ * memory-mapped, smaller ones are read into pooled direct buffers.
+ * Pure ASCII content of an ASCII-compatible charset is copied into a string without decoding.
+ * Buffers are borrowed for a single read, so every concurrent reader reuses its own ones.
+ * At most {@code maxIdleSourceBuffers} of them are kept between reads, the rest are dropped when returned.
+ * Files the {@link SourceFileFilter} excludes are skipped as early as it can tell: by path before opening them,
+ * by size before reading and by raw bytes before decoding. Content of other charsets is not filtered.
+ */
+public class SourceFileReader {
+
+    public static final int DEFAULT_MEMORY_MAPPING_THRESHOLD = 64 * 1024;
+    public static final int DEFAULT_MAX_IDLE_SOURCE_BUFFERS = Runtime.getRuntime().availableProcessors();
+
+    private static final Set<Charset> ASCII_COMPATIBLE_CHARSETS = Set.of(
+            StandardCharsets.US_ASCII,
+            StandardCharsets.ISO_8859_1,
+            StandardCharsets.UTF_8
+    );
+
+    private final Charset charset;
+    private final int memoryMappingThreshold;
+    private final SourceFileFilter sourceFileFilter;
+    private final int maxIdleSourceBuffers;
+    private final Queue<SourceBuffers> idleSourceBuffers = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger idleSourceBuffersCount = new AtomicInteger();
+
+    public SourceFileReader(@Nonnull final Charset charset) {
+        this(charset, DEFAULT_MEMORY_MAPPING_THRESHOLD);
+    }
+
+    public SourceFileReader(@Nonnull final Charset charset, final int memoryMappingThreshold) {
+        this(charset, memoryMappingThreshold, null);
+    }
+
+    public SourceFileReader(@Nonnull final Charset charset,
+                            final int memoryMappingThreshold,
+                            @Nullable final SourceFileFilter sourceFileFilter) {
+        this(charset, memoryMappingThreshold, sourceFileFilter, DEFAULT_MAX_IDLE_SOURCE_BUFFERS);
+    }
+
+    public SourceFileReader(@Nonnull final Charset charset,
+                            final int memoryMappingThreshold,
+                            @Nullable final SourceFileFilter sourceFileFilter,
+                            final int maxIdleSourceBuffers) {
+        if (memoryMappingThreshold < 1) {
+            throw new IllegalArgumentException("Memory mapping threshold must be positive, got " + memoryMappingThreshold);
+        }
+        if (maxIdleSourceBuffers < 0) {
+            throw new IllegalArgumentException("Max idle source buffers must not be negative, got " + maxIdleSourceBuffers);
+        }
+
+        this.charset = charset;
+        this.memoryMappingThreshold = memoryMappingThreshold;
+        this.sourceFileFilter = sourceFileFilter;
+        this.maxIdleSourceBuffers = maxIdleSourceBuffers;
+    }
+
+    @Nonnull
+    public Optional<SourceFile> read(@Nonnull final Path path) {
+        if (sourceFileFilter != null && !sourceFileFilter.acceptsPath(path)) {
+            return Optional.empty();
+        }
+
+        final SourceBuffers sourceBuffers = borrowSourceBuffers();
+
+        final AnalyzerEvents.FileReadEvent readEvent = new AnalyzerEvents.FileReadEvent();
+        readEvent.begin();
+        try (final FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (sourceFileFilter != null && !sourceFileFilter.acceptsSize(channel.size())) {
+                return Optional.empty();
+            }
+
+            final ByteBuffer content = sourceBuffers.read(channel);
+            if (sourceFileFilter != null && sourceBuffers.isAsciiCompatible && !sourceFileFilter.acceptsContent(content)) {
+                return Optional.empty();
+            }
+
+            final SourceFile sourceFile = new SourceFile(path, sourceBuffers.decode(content));
+            if (readEvent.shouldCommit()) {
+                readEvent.path = path.toString();
+                readEvent.size = channel.size();
+                readEvent.commit();
+            }
+            return Optional.of(sourceFile);
+        } catch (IOException e) {
+            System.err.println("Crawled file " + path.toAbsolutePath() + " but could not read it");
+            e.printStackTrace(System.err);
+            return Optional.empty();
+        } finally {
+            returnSourceBuffers(sourceBuffers);
+        }
+    }
+
+    int getIdleSourceBuffersCount() {
+        return idleSourceBuffersCount.get();
+    }
+
+    private SourceBuffers borrowSourceBuffers() {
+        final SourceBuffers sourceBuffers = idleSourceBuffers.poll();
+        if (sourceBuffers == null) {
+            return new SourceBuffers(charset, memoryMappingThreshold);
+        }
+
+        idleSourceBuffersCount.decrementAndGet();
+        return sourceBuffers;
+    }
+
+    private void returnSourceBuffers(final SourceBuffers sourceBuffers) {
+        if (idleSourceBuffersCount.incrementAndGet() > maxIdleSourceBuffers) {
+            // the direct buffer is freed together with the dropped buffers
+            idleSourceBuffersCount.decrementAndGet();
+            return;
+        }
+
+        idleSourceBuffers.offer(sourceBuffers);
+    }
+
+    /**
+     * Buffers of a single reader. Byte and char arrays grow up to the memory mapping threshold and are kept,
+     * buffers for larger files are allocated per file.
+     */
+    private static class SourceBuffers {
+
+        private static final long NON_ASCII_MASK = 0x8080808080808080L;
+
+        private final boolean isAsciiCompatible;
+        private final CharsetDecoder decoder;
+        private final ByteBuffer directBuffer;
+
+        private byte[] bytes = new byte[0];
+        private char[] chars = new char[0];
+
+        private SourceBuffers(final Charset charset, final int memoryMappingThreshold) {
+            this.isAsciiCompatible = ASCII_COMPATIBLE_CHARSETS.contains(charset);
+            this.decoder = charset
+                    .newDecoder()
+                    .onMalformedInput(CodingErrorAction.REPLACE)
+                    .onUnmappableCharacter(CodingErrorAction.REPLACE);
+            this.directBuffer = ByteBuffer.allocateDirect(memoryMappingThreshold);
+        }
+
+        /**
+         * @return the direct buffer of this reader or a mapping of the file, valid until the next read
+         */
+        private ByteBuffer read(final FileChannel channel) throws IOException {
+            directBuffer.clear();
+            int readBytesCount = 0;
+            while (readBytesCount >= 0 && directBuffer.hasRemaining()) {
+                readBytesCount = channel.read(directBuffer);
+            }
+
+            if (directBuffer.hasRemaining()) {
+                return directBuffer.flip();
+            }
+
+            final long fileSize = channel.size();
+            if (fileSize > Integer.MAX_VALUE) {
+                throw new IOException("File of " + fileSize + " bytes is too large to be a single string");
+            }
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, fileSize);
+        }
+
+        private String decode(final ByteBuffer content) throws IOException {
+            final int bytesCount = content.remaining();
+            if (isAsciiCompatible && isAscii(content)) {
+                final byte[] asciiBytes = bytesCount <= directBuffer.capacity()
+                        ? borrowBytes(bytesCount)
+                        : new byte[bytesCount];
+                content.get(asciiBytes, 0, bytesCount);
+                return new String(asciiBytes, 0, bytesCount, StandardCharsets.ISO_8859_1);
+            }
+
+            final int maxCharsCount = (int) Math.ceil(bytesCount * (double) decoder.maxCharsPerByte());
+            final CharBuffer decodedChars = CharBuffer.wrap(
+                    maxCharsCount <= directBuffer.capacity() ? borrowChars(maxCharsCount) : new char[maxCharsCount]
+            );
+
+            decoder.reset();
+            final CoderResult decodeResult = decoder.decode(content, decodedChars, true);
+            if (!decodeResult.isUnderflow()) {
+                decodeResult.throwException();
+            }
+            final CoderResult flushResult = decoder.flush(decodedChars);
+            if (!flushResult.isUnderflow()) {
+                flushResult.throwException();
+            }
+            return new String(decodedChars.array(), 0, decodedChars.position());
+        }
+
+        private byte[] borrowBytes(final int length) {
+            if (bytes.length < length) {
+                bytes = new byte[Math.min(Math.max(length, bytes.length * 2), directBuffer.capacity())];
+            }
+            return bytes;
+        }
+
+        private char[] borrowChars(final int length) {
+            if (chars.length < length) {
+                chars = new char[Math.min(Math.max(length, chars.length * 2), directBuffer.capacity())];
+            }
+            return chars;
+        }
+
+        private static boolean isAscii(final ByteBuffer content) {
+            final int end = content.limit();
+            int index = content.position();
+            for (; index + Long.BYTES <= end; index += Long.BYTES) {
+                if ((content.getLong(index) & NON_ASCII_MASK) != 0) {
+                    return false;
+                }
+            }
+            for (; index < end; index++) {
+                if (content.get(index) < 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package ru.itmo.kazakov.analyzer.core;
+
+import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Watches the directories {@link SourceCrawlerImpl} would crawl, including ones created later,
+ * and reports changed paths in batches. A batch is reported once no more changes follow within the debounce delay,
+ * so an IDE save or a branch switch is reported at once, unless changes keep coming for longer than a few seconds.
+ */
+public class SourceTreeWatcher implements AutoCloseable {
+
+    public static final long DEFAULT_DEBOUNCE_MILLIS = 100;
+
+    private static final long MAX_BATCH_DELAY_MILLIS = 2000;
+
+    private final Path rootPath;
+    private final SourceCrawlerImpl sourceCrawler;
+    private final long debounceMillis;
+    private final WatchService watchService;
+    private final Map<WatchKey, Path> watchedDirectories = new HashMap<>();
+
+    public SourceTreeWatcher(@Nonnull final Path rootPath,
+                             @Nonnull final SourceCrawlerImpl sourceCrawler,
+                             final long debounceMillis) throws IOException {
+        this.rootPath = rootPath;
+        this.sourceCrawler = sourceCrawler;
+        this.debounceMillis = debounceMillis;
+        this.watchService = rootPath.getFileSystem().newWatchService();
+
+        if (sourceCrawler.isCrawledDirectory(rootPath, rootPath)) {
+            watchTree(rootPath);
+        }
+    }
+
+    /**
+     * Blocks until the next batch of changes.
+     *
+     * @return sources and directories that were created, modified or deleted, in no particular relation to each other.
+     * If some changes were lost, the root path stands for all of them
+     */
+    @Nonnull
+    public Set<Path> awaitChangedPaths() throws IOException, InterruptedException {
+        final Set<Path> changedPaths = new TreeSet<>();
+        final long batchDeadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(MAX_BATCH_DELAY_MILLIS);
+
+        WatchKey watchKey = watchService.take();
+        while (watchKey != null) {
+            collectChangedPaths(watchKey, changedPaths);
+            watchKey = System.nanoTime() < batchDeadline
+                    ? watchService.poll(debounceMillis, TimeUnit.MILLISECONDS)
+                    : null;
+        }
+        return changedPaths;
+    }
+
+    @Override
+    public void close() throws IOException {
+        watchService.close();
+    }
+
+    private void collectChangedPaths(final WatchKey watchKey, final Set<Path> changedPaths) throws IOException {
+        final Path directory = watchedDirectories.get(watchKey);
+        for (final WatchEvent<?> event : watchKey.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                changedPaths.add(rootPath);
+                continue;
+            }
+
+            final Path changedPath = directory.resolve((Path) event.context());
+            if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE
+                    && sourceCrawler.isCrawledDirectory(rootPath, changedPath)) {
+                watchTree(changedPath);
+            }
+            changedPaths.add(changedPath);
+        }
+
+        if (!watchKey.reset()) {
+            watchedDirectories.remove(watchKey);
+        }
+    }
+
+    private void watchTree(final Path treeRoot) throws IOException {
+        Files.walkFileTree(treeRoot, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult preVisitDirectory(final Path directory,
+                                                     final BasicFileAttributes attributes) throws IOException {
+                if (!directory.equals(treeRoot) && !sourceCrawler.isCrawledDirectory(rootPath, directory)) {
+                    return FileVisitResult.SKIP_SUBTREE;
+                }
+
+                final WatchKey watchKey = directory.register(
+                        watchService,
+                        StandardWatchEventKinds.ENTRY_CREATE,
+                        StandardWatchEventKinds.ENTRY_MODIFY,
+                        StandardWatchEventKinds.ENTRY_DELETE
+                );
+                watchedDirectories.put(watchKey, directory);
+                return FileVisitResult.CONTINUE;
+            }
+
+            /**
+             * Directories deleted while they are walked are reported as changed paths anyway.
+             */
+            @Override
+            public FileVisitResult visitFileFailed(final Path file, final IOException e) {
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+}
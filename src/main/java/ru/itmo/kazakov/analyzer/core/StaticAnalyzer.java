@@ -1,12 +1,60 @@
 package ru.itmo.kazakov.analyzer.core;
 
+import com.github.javaparser.ParserConfiguration;
 import com.github.javaparser.ast.CompilationUnit;
+import ru.itmo.kazakov.analyzer.rule.ParserFeature;
+import ru.itmo.kazakov.analyzer.rule.StaticAnalyzerRule;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 public interface StaticAnalyzer {
 
+    @Nonnull
+    List<StaticAnalyzerRule<? extends StaticAnalyzerRuleState>> getRules();
+
+    @Nonnull
+    default Set<ParserFeature> getRequiredParserFeatures() {
+        return getRules()
+                .stream()
+                .flatMap(rule -> rule.getRequiredParserFeatures().stream())
+                .collect(Collectors.toCollection(() -> EnumSet.noneOf(ParserFeature.class)));
+    }
+
+    /**
+     * The cheapest parser configuration that provides every feature the rules need.
+     */
+    @Nonnull
+    default ParserConfiguration createParserConfiguration() {
+        return ParserFeature.createParserConfiguration(getRequiredParserFeatures());
+    }
+
+    @Nonnull
+    default Map<StaticAnalyzerRule<? extends StaticAnalyzerRuleState>, List<AnalyzerWarning>> analyze(
+            @Nonnull final CompilationUnit compiledFile,
+            @Nonnull final Collection<StaticAnalyzerRule<? extends StaticAnalyzerRuleState>> rules
+    ) {
+        return analyze(compiledFile, rules, null);
+    }
+
     @Nonnull
     Stream<AnalyzerWarning> analyze(@Nonnull CompilationUnit compiledFile);
+
+    /**
+     * @param deadline checked as often as the rules allow, if any
+     * @throws java.util.concurrent.CancellationException once the deadline is expired
+     */
+    @Nonnull
+    Map<StaticAnalyzerRule<? extends StaticAnalyzerRuleState>, List<AnalyzerWarning>> analyze(
+            @Nonnull CompilationUnit compiledFile,
+            @Nonnull Collection<StaticAnalyzerRule<? extends StaticAnalyzerRuleState>> rules,
+            @Nullable FileTimeBudget.Deadline deadline
+    );
 }
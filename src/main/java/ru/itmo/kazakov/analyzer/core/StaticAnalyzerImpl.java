@@ -1,28 +1,143 @@
 package ru.itmo.kazakov.analyzer.core;
 
 import com.github.javaparser.ast.CompilationUnit;
+import ru.itmo.kazakov.analyzer.rule.FusedNodeRuleEngine;
+import ru.itmo.kazakov.analyzer.rule.StaticAnalyzerNodeRule;
 import ru.itmo.kazakov.analyzer.rule.StaticAnalyzerRule;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
+/**
+ * Runs all {@link StaticAnalyzerNodeRule}s in a single fused AST walk, other rules are run one by one.
+ * Every other rule is measured on its own and the fused walk is measured as a whole,
+ * both by metrics, if any, and by {@link AnalyzerEvents.RuleAnalyzeEvent}s.
+ */
 public class StaticAnalyzerImpl implements StaticAnalyzer {
 
     @Nonnull
     final List<StaticAnalyzerRule<? extends StaticAnalyzerRuleState>> staticAnalyzerRules;
 
+    @Nonnull
+    private final FusedNodeRuleEngine fusedNodeRuleEngine;
+
+    @Nullable
+    private final AnalyzerMetrics analyzerMetrics;
+
     public StaticAnalyzerImpl(
             @Nonnull final List<StaticAnalyzerRule<? extends StaticAnalyzerRuleState>> staticAnalyzerRules
+    ) {
+        this(staticAnalyzerRules, null);
+    }
+
+    public StaticAnalyzerImpl(
+            @Nonnull final List<StaticAnalyzerRule<? extends StaticAnalyzerRuleState>> staticAnalyzerRules,
+            @Nullable final AnalyzerMetrics analyzerMetrics
     ) {
         this.staticAnalyzerRules = staticAnalyzerRules;
+        this.analyzerMetrics = analyzerMetrics;
+        this.fusedNodeRuleEngine = new FusedNodeRuleEngine(
+                staticAnalyzerRules
+                        .stream()
+                        .<StaticAnalyzerNodeRule<? extends StaticAnalyzerRuleState>>mapMulti((rule, consumer) -> {
+                            if (rule instanceof StaticAnalyzerNodeRule<? extends StaticAnalyzerRuleState> nodeRule) {
+                                consumer.accept(nodeRule);
+                            }
+                        })
+                        .toList()
+        );
+    }
+
+    @Nonnull
+    @Override
+    public List<StaticAnalyzerRule<? extends StaticAnalyzerRuleState>> getRules() {
+        return staticAnalyzerRules;
     }
 
     @Nonnull
     @Override
     public Stream<AnalyzerWarning> analyze(@Nonnull final CompilationUnit compiledFile) {
-        return staticAnalyzerRules
+        return analyze(compiledFile, staticAnalyzerRules)
+                .values()
+                .stream()
+                .flatMap(List::stream);
+    }
+
+    @Nonnull
+    @Override
+    public Map<StaticAnalyzerRule<? extends StaticAnalyzerRuleState>, List<AnalyzerWarning>> analyze(
+            @Nonnull final CompilationUnit compiledFile,
+            @Nonnull final Collection<StaticAnalyzerRule<? extends StaticAnalyzerRuleState>> rules,
+            @Nullable final FileTimeBudget.Deadline deadline
+    ) {
+        final AnalyzerEvents.RuleAnalyzeEvent fusedWalkEvent = new AnalyzerEvents.RuleAnalyzeEvent();
+        fusedWalkEvent.begin();
+        final AnalyzerMetrics.Sample fusedWalkStart = analyzerMetrics == null ? null : analyzerMetrics.start();
+        final Map<StaticAnalyzerNodeRule<? extends StaticAnalyzerRuleState>, StaticAnalyzerRuleState> nodeRuleStates =
+                fusedNodeRuleEngine.analyze(compiledFile, rules, deadline);
+        if (fusedWalkStart != null && !nodeRuleStates.isEmpty()) {
+            analyzerMetrics.recordRule(getFusedRuleIds(nodeRuleStates), fusedWalkStart);
+        }
+        if (!nodeRuleStates.isEmpty() && fusedWalkEvent.shouldCommit()) {
+            fusedWalkEvent.ruleId = getFusedRuleIds(nodeRuleStates);
+            fusedWalkEvent.warningsCount = nodeRuleStates
+                    .values()
+                    .stream()
+                    .mapToInt(ruleState -> ruleState.getWarnings().size())
+                    .sum();
+            fusedWalkEvent.commit();
+        }
+
+        final Map<StaticAnalyzerRule<? extends StaticAnalyzerRuleState>, List<AnalyzerWarning>> warningsByRule =
+                new LinkedHashMap<>();
+        rules.forEach(rule -> {
+            final StaticAnalyzerRuleState ruleState;
+            if (rule instanceof StaticAnalyzerNodeRule<?> nodeRule) {
+                ruleState = nodeRuleStates.get(nodeRule);
+            } else {
+                if (deadline != null) {
+                    deadline.checkpoint();
+                }
+                ruleState = analyzeRule(compiledFile, rule);
+            }
+            warningsByRule.put(rule, ruleState.getWarnings());
+        });
+        return warningsByRule;
+    }
+
+    private StaticAnalyzerRuleState analyzeRule(final CompilationUnit compiledFile,
+                                                final StaticAnalyzerRule<? extends StaticAnalyzerRuleState> rule) {
+        final AnalyzerEvents.RuleAnalyzeEvent ruleEvent = new AnalyzerEvents.RuleAnalyzeEvent();
+        ruleEvent.begin();
+        final AnalyzerMetrics.Sample ruleStart = analyzerMetrics == null ? null : analyzerMetrics.start();
+
+        final StaticAnalyzerRuleState ruleState = rule.analyze(compiledFile);
+
+        if (ruleStart != null) {
+            analyzerMetrics.recordRule(rule.getId(), ruleStart);
+        }
+        if (ruleEvent.shouldCommit()) {
+            ruleEvent.ruleId = rule.getId();
+            ruleEvent.warningsCount = ruleState.getWarnings().size();
+            ruleEvent.commit();
+        }
+        return ruleState;
+    }
+
+    private String getFusedRuleIds(
+            final Map<StaticAnalyzerNodeRule<? extends StaticAnalyzerRuleState>, StaticAnalyzerRuleState> nodeRuleStates
+    ) {
+        return fusedNodeRuleEngine
+                .getRules()
                 .stream()
-                .flatMap(rule -> rule.analyze(compiledFile).getWarnings().stream());
+                .filter(nodeRuleStates::containsKey)
+                .map(StaticAnalyzerRule::getId)
+                .collect(Collectors.joining("+"));
     }
 }
@@ -0,0 +1,167 @@
+package ru.itmo.kazakov.analyzer.core;
+
+import com.github.javaparser.ParserConfiguration;
+import com.github.javaparser.resolution.SymbolResolver;
+import com.github.javaparser.resolution.TypeSolver;
+import com.github.javaparser.resolution.declarations.ResolvedReferenceTypeDeclaration;
+import com.github.javaparser.resolution.model.SymbolReference;
+import com.github.javaparser.symbolsolver.JavaSymbolSolver;
+import com.github.javaparser.symbolsolver.resolution.typesolvers.CombinedTypeSolver;
+import com.github.javaparser.symbolsolver.resolution.typesolvers.JavaParserTypeSolver;
+import com.github.javaparser.symbolsolver.resolution.typesolvers.ReflectionTypeSolver;
+
+import javax.annotation.Nonnull;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Type solving over the source roots and the JDK for all workers of a run.
+ * JDK types are solved by reflection once per run and memoized by their qualified names, whichever file needs them
+ * first. Only {@code java.} and {@code javax.} types are, so classes on the analyzer's own classpath never shadow
+ * source root types of the same names. Their declarations are built from classes alone, so they are safe to share between workers.
+ * Declarations of source root types wrap ASTs of the source roots and cache resolution results in their nodes,
+ * which is not thread-safe, so every worker parses the source roots with its own solvers, once per worker.
+ * The JDK solver does not depend on the sources, so it may be shared by several runs as well.
+ */
+public class SymbolSolverService {
+
+    private final List<Path> sourceRoots;
+    private final ParserConfiguration parserConfiguration;
+    private final MemoizingTypeSolver jdkTypeSolver;
+
+    public SymbolSolverService(@Nonnull final Collection<Path> sourceRoots,
+                               @Nonnull final ParserConfiguration parserConfiguration) {
+        this(sourceRoots, parserConfiguration, createJdkTypeSolver());
+    }
+
+    public SymbolSolverService(@Nonnull final Collection<Path> sourceRoots,
+                               @Nonnull final ParserConfiguration parserConfiguration,
+                               @Nonnull final MemoizingTypeSolver jdkTypeSolver) {
+        this.sourceRoots = List.copyOf(sourceRoots);
+        this.parserConfiguration = parserConfiguration;
+        this.jdkTypeSolver = jdkTypeSolver;
+    }
+
+    @Nonnull
+    public static MemoizingTypeSolver createJdkTypeSolver() {
+        return new MemoizingTypeSolver(new ReflectionTypeSolver());
+    }
+
+    /**
+     * Solves JDK types for all workers at once.
+     */
+    @Nonnull
+    public TypeSolver getJdkTypeSolver() {
+        return jdkTypeSolver;
+    }
+
+    /**
+     * Must be confined to one thread at a time, the same way parsers are.
+     */
+    @Nonnull
+    public SymbolResolver createSymbolResolver() {
+        return new JavaSymbolSolver(new WorkerTypeSolver(jdkTypeSolver, sourceRoots, parserConfiguration));
+    }
+
+    /**
+     * Solves types for all workers at once, each of them once.
+     */
+    public static class MemoizingTypeSolver implements TypeSolver {
+
+        private final TypeSolver typeSolver;
+        private final Map<String, SymbolReference<ResolvedReferenceTypeDeclaration>> solvedTypes =
+                new ConcurrentHashMap<>();
+        private final ReentrantLock solveLock = new ReentrantLock();
+
+        private MemoizingTypeSolver(final TypeSolver typeSolver) {
+            this.typeSolver = typeSolver;
+            typeSolver.setParent(this);
+        }
+
+        @Override
+        public TypeSolver getParent() {
+            return null;
+        }
+
+        /**
+         * Declarations solved here refer to this solver as their root, so it can not get a parent of a single worker.
+         */
+        @Override
+        public void setParent(final TypeSolver parent) {
+            throw new IllegalStateException("JDK type solver is shared by all workers, so it is always a root");
+        }
+
+        /**
+         * Solving a type may solve others on the same thread, so misses are not computed inside the map.
+         */
+        @Override
+        public SymbolReference<ResolvedReferenceTypeDeclaration> tryToSolveType(final String name) {
+            final SymbolReference<ResolvedReferenceTypeDeclaration> solvedType = solvedTypes.get(name);
+            if (solvedType != null) {
+                return solvedType;
+            }
+
+            solveLock.lock();
+            try {
+                final SymbolReference<ResolvedReferenceTypeDeclaration> solvedWhileWaiting = solvedTypes.get(name);
+                if (solvedWhileWaiting != null) {
+                    return solvedWhileWaiting;
+                }
+
+                final SymbolReference<ResolvedReferenceTypeDeclaration> newSolvedType = typeSolver.tryToSolveType(name);
+                final SymbolReference<ResolvedReferenceTypeDeclaration> previouslySolvedType =
+                        solvedTypes.putIfAbsent(name, newSolvedType);
+                return previouslySolvedType == null ? newSolvedType : previouslySolvedType;
+            } finally {
+                solveLock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Solves JDK types through the shared solver and source root types through its own ones, which build
+     * declarations with this solver as their root, so the facades of those declarations are worker-local as well.
+     */
+    private static class WorkerTypeSolver implements TypeSolver {
+
+        private final MemoizingTypeSolver jdkTypeSolver;
+        private final CombinedTypeSolver sourceRootsTypeSolver = new CombinedTypeSolver();
+        private TypeSolver parent = null;
+
+        private WorkerTypeSolver(final MemoizingTypeSolver jdkTypeSolver,
+                                 final List<Path> sourceRoots,
+                                 final ParserConfiguration parserConfiguration) {
+            this.jdkTypeSolver = jdkTypeSolver;
+            sourceRoots.forEach(sourceRoot -> sourceRootsTypeSolver.add(new JavaParserTypeSolver(sourceRoot, parserConfiguration)));
+            sourceRootsTypeSolver.setParent(this);
+        }
+
+        @Override
+        public TypeSolver getParent() {
+            return parent;
+        }
+
+        @Override
+        public void setParent(final TypeSolver parent) {
+            Objects.requireNonNull(parent);
+            if (this.parent != null) {
+                throw new IllegalStateException("Worker type solver already has a parent");
+            }
+            if (parent == this) {
+                throw new IllegalStateException("Worker type solver can not be its own parent");
+            }
+            this.parent = parent;
+        }
+
+        @Override
+        public SymbolReference<ResolvedReferenceTypeDeclaration> tryToSolveType(final String name) {
+            final SymbolReference<ResolvedReferenceTypeDeclaration> jdkType = jdkTypeSolver.tryToSolveType(name);
+            return jdkType.isSolved() ? jdkType : sourceRootsTypeSolver.tryToSolveType(name);
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package ru.itmo.kazakov.analyzer.core;
+
+import javax.annotation.Nonnull;
+import java.io.File;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Identifies warnings across runs by a 64-bit hash of the rule id, the file path relative to the root,
+ * the message template with its arguments, and the text of the line the warning starts at, without whitespace.
+ * Line numbers are not hashed, so warnings keep their fingerprints when code above them is added or removed.
+ * Warnings that are equal in all of that are told apart by their order in the file.
+ */
+public class WarningFingerprinter {
+
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private final Path absoluteRootPath;
+
+    public WarningFingerprinter(@Nonnull final Path rootPath) {
+        this.absoluteRootPath = rootPath.toAbsolutePath().normalize();
+    }
+
+    /**
+     * @return fingerprints in the order of the warnings, which must all be found in the file
+     */
+    @Nonnull
+    public long[] fingerprint(@Nonnull final SourceFile sourceFile, @Nonnull final List<SourceAwareAnalyzerWarning> warnings) {
+        final long[] fingerprints = new long[warnings.size()];
+        if (warnings.isEmpty()) {
+            return fingerprints;
+        }
+
+        final String content = sourceFile.content();
+        final int[] lineStarts = findLineStarts(content);
+        final String relativePath = absoluteRootPath
+                .relativize(sourceFile.path().toAbsolutePath().normalize())
+                .toString()
+                .replace(File.separatorChar, '/');
+        final long fileHash = hash(FNV_OFFSET_BASIS, relativePath);
+        final Map<Long, Integer> occurrences = new HashMap<>();
+
+        for (int i = 0; i < fingerprints.length; i++) {
+            final AnalyzerWarning warning = warnings.get(i).warning();
+
+            long warningHash = hash(fileHash, warning.ruleId());
+            warningHash = hash(warningHash, warning.messageTemplate());
+            for (final String messageArgument : warning.messageArguments()) {
+                warningHash = hash(warningHash, messageArgument);
+            }
+            warningHash = hashLine(warningHash, content, lineStarts, warning.packedBeginPosition());
+
+            final int occurrence = occurrences.merge(warningHash, 1, Integer::sum);
+            fingerprints[i] = mix(hash(warningHash, occurrence));
+        }
+        return fingerprints;
+    }
+
+    private static int[] findLineStarts(final String content) {
+        int linesCount = 1;
+        for (int i = 0; i < content.length(); i++) {
+            if (isLineEnd(content, i)) {
+                linesCount++;
+            }
+        }
+
+        final int[] lineStarts = new int[linesCount];
+        int line = 1;
+        for (int i = 0; i < content.length(); i++) {
+            if (isLineEnd(content, i)) {
+                lineStarts[line++] = i + 1;
+            }
+        }
+        return lineStarts;
+    }
+
+    /**
+     * Line separators are the same as JavaParser counts lines by, a {@code \r\n} pair ends a line at {@code \n}.
+     */
+    private static boolean isLineEnd(final String content, final int index) {
+        final char character = content.charAt(index);
+        return character == '\n'
+                || character == '\r' && (index + 1 == content.length() || content.charAt(index + 1) != '\n');
+    }
+
+    private static long hashLine(final long hash,
+                                 final String content,
+                                 final int[] lineStarts,
+                                 final long packedPosition) {
+        if (packedPosition == AnalyzerWarning.UNKNOWN_POSITION) {
+            return hash(hash, -1);
+        }
+
+        final int line = AnalyzerWarning.unpackPosition(packedPosition).orElseThrow().line;
+        if (line < 1 || line > lineStarts.length) {
+            return hash(hash, -1);
+        }
+
+        long lineHash = hash;
+        for (int i = lineStarts[line - 1]; i < content.length() && content.charAt(i) != '\n' && content.charAt(i) != '\r'; i++) {
+            final char character = content.charAt(i);
+            if (!Character.isWhitespace(character)) {
+                lineHash = (lineHash ^ character) * FNV_PRIME;
+            }
+        }
+        return hash(lineHash, 0);
+    }
+
+    private static long hash(final long hash, final String value) {
+        long stringHash = hash(hash, value.length());
+        for (int i = 0; i < value.length(); i++) {
+            stringHash = (stringHash ^ value.charAt(i)) * FNV_PRIME;
+        }
+        return stringHash;
+    }
+
+    private static long hash(final long hash, final int value) {
+        return (hash ^ value) * FNV_PRIME;
+    }
+
+    /**
+     * Spreads FNV bits, so the low bits can be used to index {@link BaselineIndex}.
+     */
+    private static long mix(final long hash) {
+        long mixedHash = hash;
+        mixedHash = (mixedHash ^ (mixedHash >>> 33)) * 0xff51afd7ed558ccdL;
+        mixedHash = (mixedHash ^ (mixedHash >>> 33)) * 0xc4ceb9fe1a85ec53L;
+        return mixedHash ^ (mixedHash >>> 33);
+    }
+}
@@ -0,0 +1,297 @@
+package ru.itmo.kazakov.analyzer.rule;
+
+import com.github.javaparser.ast.Node;
+import com.github.javaparser.ast.NodeList;
+import com.github.javaparser.ast.stmt.ForEachStmt;
+import com.github.javaparser.ast.stmt.ForStmt;
+import com.github.javaparser.ast.stmt.IfStmt;
+import com.github.javaparser.metamodel.BaseNodeMetaModel;
+import com.github.javaparser.metamodel.JavaParserMetaModel;
+import com.github.javaparser.metamodel.PropertyMetaModel;
+import ru.itmo.kazakov.analyzer.core.FileTimeBudget;
+import ru.itmo.kazakov.analyzer.core.StaticAnalyzerRuleState;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+
+/**
+ * Walks an AST once for several {@link StaticAnalyzerNodeRule}s, dispatching every node only to the rules
+ * subscribed to its type and descending into a subtree only while some rule still needs it.
+ * Every rule gets its own state. The engine holds no per-walk state, so it may be shared between threads
+ * as long as the rules themselves are not used concurrently.
+ * <p>
+ * Children are walked the way the generated JavaParser visitor adapters visit them, so that a rule ported from
+ * {@link StaticAnalyzerVisitorRule} sees nodes in the same order: properties declared by the node class first,
+ * then those of its superclasses from the nearest one up, each class in its meta model order, so the comment
+ * of a node comes last, e.g. the body of a method before its name and annotations, the finally block
+ * before the try block. Only the parts of if, for and for-each statements are walked in source order,
+ * as visitor rules tracking branches and cycles visit them.
+ */
+public class FusedNodeRuleEngine {
+
+    private static final int NOT_SKIPPED = -1;
+    private static final int NOT_REQUESTED = 0;
+
+    private static final Map<Class<? extends Node>, List<String>> SOURCE_ORDERED_PROPERTIES = Map.of(
+            IfStmt.class, List.of("condition", "thenStmt", "elseStmt", "comment"),
+            ForStmt.class, List.of("initialization", "compare", "update", "comment", "body"),
+            ForEachStmt.class, List.of("variable", "iterable", "comment", "body")
+    );
+
+    private static final ClassValue<Method[]> CHILD_GETTERS_BY_NODE_TYPE = new ClassValue<>() {
+
+        @Override
+        protected Method[] computeValue(@Nonnull final Class<?> nodeType) {
+            return findChildGetters(nodeType);
+        }
+    };
+
+    private final List<StaticAnalyzerNodeRule<? extends StaticAnalyzerRuleState>> rules;
+    private final ClassValue<int[]> subscribedRulesByNodeType = new ClassValue<>() {
+
+        @Override
+        protected int[] computeValue(@Nonnull final Class<?> nodeType) {
+            return findRules(nodeType, StaticAnalyzerNodeRule::getSubscribedNodeTypes);
+        }
+    };
+    private final ClassValue<int[]> skippingRulesByNodeType = new ClassValue<>() {
+
+        @Override
+        protected int[] computeValue(@Nonnull final Class<?> nodeType) {
+            return findRules(nodeType, StaticAnalyzerNodeRule::getSkippedSubtreeTypes);
+        }
+    };
+
+    public FusedNodeRuleEngine(@Nonnull final List<StaticAnalyzerNodeRule<? extends StaticAnalyzerRuleState>> rules) {
+        this.rules = List.copyOf(rules);
+    }
+
+    @Nonnull
+    public List<StaticAnalyzerNodeRule<? extends StaticAnalyzerRuleState>> getRules() {
+        return rules;
+    }
+
+    /**
+     * Runs the given subset of the engine rules over the tree rooted at {@code root}.
+     *
+     * @return final state of every requested rule
+     */
+    @Nonnull
+    public Map<StaticAnalyzerNodeRule<? extends StaticAnalyzerRuleState>, StaticAnalyzerRuleState> analyze(
+            @Nonnull final Node root,
+            @Nonnull final Collection<? extends StaticAnalyzerRule<? extends StaticAnalyzerRuleState>> requestedRules
+    ) {
+        return analyze(root, requestedRules, null);
+    }
+
+    /**
+     * Same as {@link #analyze(Node, Collection)}, passing a checkpoint of the deadline, if any, at every node.
+     */
+    @Nonnull
+    public Map<StaticAnalyzerNodeRule<? extends StaticAnalyzerRuleState>, StaticAnalyzerRuleState> analyze(
+            @Nonnull final Node root,
+            @Nonnull final Collection<? extends StaticAnalyzerRule<? extends StaticAnalyzerRuleState>> requestedRules,
+            @Nullable final FileTimeBudget.Deadline deadline
+    ) {
+        final RuleInvocation<?>[] invocations = new RuleInvocation<?>[rules.size()];
+        for (int i = 0; i < rules.size(); i++) {
+            if (containsInstance(requestedRules, rules.get(i))) {
+                invocations[i] = RuleInvocation.start(rules.get(i));
+            }
+        }
+
+        new Walk(invocations, deadline).walk(root);
+
+        final Map<StaticAnalyzerNodeRule<? extends StaticAnalyzerRuleState>, StaticAnalyzerRuleState> states =
+                new IdentityHashMap<>();
+        for (final RuleInvocation<?> invocation : invocations) {
+            if (invocation != null) {
+                states.put(invocation.rule, invocation.state);
+            }
+        }
+        return states;
+    }
+
+    private int[] findRules(
+            final Class<?> nodeType,
+            final Function<StaticAnalyzerNodeRule<?>, Set<Class<? extends Node>>> declaredTypes
+    ) {
+        return IntStream
+                .range(0, rules.size())
+                .filter(ruleIndex -> declaredTypes
+                        .apply(rules.get(ruleIndex))
+                        .stream()
+                        .anyMatch(declaredType -> declaredType.isAssignableFrom(nodeType))
+                )
+                .toArray();
+    }
+
+    /**
+     * @return public getters of the child nodes and node lists of the node type, in the visiting order
+     */
+    private static Method[] findChildGetters(final Class<?> nodeType) {
+        final BaseNodeMetaModel nodeMetaModel = JavaParserMetaModel.getNodeMetaModel(nodeType).orElseThrow(
+                () -> new IllegalArgumentException("No meta model for node type " + nodeType.getName())
+        );
+
+        final List<PropertyMetaModel> properties = new ArrayList<>();
+        BaseNodeMetaModel metaModel = nodeMetaModel;
+        while (metaModel != null) {
+            metaModel
+                    .getDeclaredPropertyMetaModels()
+                    .stream()
+                    .filter(property -> property.isNode() || property.isNodeList())
+                    .forEach(properties::add);
+            metaModel = metaModel.getSuperNodeMetaModel().orElse(null);
+        }
+        final List<String> sourceOrder = SOURCE_ORDERED_PROPERTIES.get(nodeType);
+        if (sourceOrder != null) {
+            properties.sort(Comparator.comparingInt(property -> sourceOrder.indexOf(property.getName())));
+        }
+
+        return properties
+                .stream()
+                .map(property -> findGetter(nodeType, property))
+                .toArray(Method[]::new);
+    }
+
+    private static Method findGetter(final Class<?> nodeType, final PropertyMetaModel property) {
+        try {
+            return nodeType.getMethod(property.getGetterMethodName());
+        } catch (final NoSuchMethodException e) {
+            throw new IllegalArgumentException(
+                    "No getter " + property.getGetterMethodName() + " in node type " + nodeType.getName(),
+                    e
+            );
+        }
+    }
+
+    private static boolean containsInstance(final Collection<?> collection, final Object instance) {
+        return collection.stream().anyMatch(element -> element == instance);
+    }
+
+    private final class Walk {
+
+        private final RuleInvocation<?>[] invocations;
+        @Nullable
+        private final FileTimeBudget.Deadline deadline;
+        private final int[] skippedSinceDepth;
+        private int activeRulesCount;
+        private int depth = 0;
+
+        private Walk(final RuleInvocation<?>[] invocations, @Nullable final FileTimeBudget.Deadline deadline) {
+            this.invocations = invocations;
+            this.deadline = deadline;
+            this.skippedSinceDepth = new int[invocations.length];
+
+            for (int i = 0; i < invocations.length; i++) {
+                if (invocations[i] == null) {
+                    skippedSinceDepth[i] = NOT_REQUESTED;
+                } else {
+                    skippedSinceDepth[i] = NOT_SKIPPED;
+                    activeRulesCount++;
+                }
+            }
+        }
+
+        private boolean isActive(final int ruleIndex) {
+            return skippedSinceDepth[ruleIndex] == NOT_SKIPPED;
+        }
+
+        private void walk(final Node node) {
+            if (deadline != null) {
+                deadline.checkpoint();
+            }
+
+            final int[] subscribedRules = subscribedRulesByNodeType.get(node.getClass());
+            final int[] skippingRules = skippingRulesByNodeType.get(node.getClass());
+
+            for (final int ruleIndex : subscribedRules) {
+                if (isActive(ruleIndex)) {
+                    invocations[ruleIndex].enter(node);
+                }
+            }
+
+            depth++;
+            for (final int ruleIndex : skippingRules) {
+                if (isActive(ruleIndex)) {
+                    skippedSinceDepth[ruleIndex] = depth;
+                    activeRulesCount--;
+                }
+            }
+
+            if (activeRulesCount > 0) {
+                walkChildren(node);
+            }
+
+            for (final int ruleIndex : skippingRules) {
+                if (skippedSinceDepth[ruleIndex] == depth) {
+                    skippedSinceDepth[ruleIndex] = NOT_SKIPPED;
+                    activeRulesCount++;
+                }
+            }
+            depth--;
+
+            for (final int ruleIndex : subscribedRules) {
+                if (isActive(ruleIndex)) {
+                    invocations[ruleIndex].leave(node);
+                }
+            }
+        }
+
+        private void walkChildren(final Node node) {
+            for (final Method childGetter : CHILD_GETTERS_BY_NODE_TYPE.get(node.getClass())) {
+                final Object property;
+                try {
+                    property = childGetter.invoke(node);
+                } catch (final ReflectiveOperationException e) {
+                    throw new IllegalStateException("Cannot read " + childGetter, e);
+                }
+
+                final Object child = property instanceof Optional<?> optionalChild ? optionalChild.orElse(null) : property;
+
+                if (child instanceof Node childNode) {
+                    walk(childNode);
+                } else if (child instanceof NodeList<?> childNodes) {
+                    for (int i = 0; i < childNodes.size(); i++) {
+                        walk(childNodes.get(i));
+                    }
+                }
+            }
+        }
+    }
+
+    private static final class RuleInvocation<S extends StaticAnalyzerRuleState> {
+
+        private final StaticAnalyzerNodeRule<S> rule;
+        private final S state;
+
+        private RuleInvocation(final StaticAnalyzerNodeRule<S> rule, final S state) {
+            this.rule = rule;
+            this.state = state;
+        }
+
+        private static <S extends StaticAnalyzerRuleState> RuleInvocation<S> start(final StaticAnalyzerNodeRule<S> rule) {
+            return new RuleInvocation<>(rule, rule.createInitialState());
+        }
+
+        private void enter(final Node node) {
+            rule.enter(node, state);
+        }
+
+        private void leave(final Node node) {
+            rule.leave(node, state);
+        }
+    }
+}
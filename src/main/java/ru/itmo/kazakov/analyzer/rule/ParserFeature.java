@@ -0,0 +1,85 @@
+package ru.itmo.kazakov.analyzer.rule;
+
+import com.github.javaparser.ParseResult;
+import com.github.javaparser.ParserConfiguration;
+import com.github.javaparser.Processor;
+import com.github.javaparser.Range;
+import com.github.javaparser.ast.Node;
+
+import javax.annotation.Nonnull;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Parts of a parsed file that rules may rely on. Files are parsed with only the features enabled rules need.
+ */
+public enum ParserFeature {
+
+    /**
+     * Node ranges, which warnings are positioned by. JavaParser computes them from tokens,
+     * so tokens are still stored while parsing, but are dropped from the tree afterwards.
+     */
+    POSITIONS,
+
+    /**
+     * Token ranges of nodes, implies {@link #POSITIONS}.
+     */
+    TOKENS,
+
+    /**
+     * Comments attributed to nodes.
+     */
+    COMMENTS,
+
+    /**
+     * Tree prepared for {@code LexicalPreservingPrinter}, implies {@link #TOKENS}.
+     */
+    LEXICAL_PRESERVATION,
+
+    /**
+     * Symbol resolver set on parsed files. It is shared between files of a run,
+     * so it is not set by {@link #createParserConfiguration(Set)} and results of such rules are not cached by content.
+     */
+    SYMBOL_RESOLUTION;
+
+    /**
+     * Features of a {@link ParserConfiguration} that is not configured at all.
+     */
+    public static final Set<ParserFeature> JAVA_PARSER_DEFAULTS = Collections.unmodifiableSet(EnumSet.of(TOKENS, COMMENTS));
+
+    /**
+     * The cheapest configuration that provides all the features. Language level and other settings are left at defaults.
+     */
+    @Nonnull
+    public static ParserConfiguration createParserConfiguration(@Nonnull final Set<ParserFeature> features) {
+        final boolean isLexicalPreservationNeeded = features.contains(LEXICAL_PRESERVATION);
+        final boolean areTokensNeeded = isLexicalPreservationNeeded || features.contains(TOKENS);
+        final boolean arePositionsNeeded = areTokensNeeded || features.contains(POSITIONS);
+
+        final ParserConfiguration parserConfiguration = new ParserConfiguration()
+                .setStoreTokens(arePositionsNeeded)
+                .setAttributeComments(features.contains(COMMENTS))
+                .setLexicalPreservationEnabled(isLexicalPreservationNeeded)
+                .setDetectOriginalLineSeparator(isLexicalPreservationNeeded);
+        if (arePositionsNeeded && !areTokensNeeded) {
+            parserConfiguration.getProcessors().add(TokenDroppingProcessor::new);
+        }
+        return parserConfiguration;
+    }
+
+    /**
+     * Tokens of a file are linked to each other, so a single node holding its token range retains all of them.
+     */
+    private static class TokenDroppingProcessor extends Processor {
+
+        @Override
+        public void postProcess(final ParseResult<? extends Node> result, final ParserConfiguration configuration) {
+            result.ifSuccessful(resultNode -> resultNode.walk(node -> {
+                final Range range = node.getRange().orElse(null);
+                node.setTokenRange(null);
+                node.setRange(range);
+            }));
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package ru.itmo.kazakov.analyzer.rule;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Inherited;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Id of a {@link StaticAnalyzerRule} class, which is known without creating the rule.
+ * Subclasses of a rule keep its id unless they declare their own.
+ */
+@Documented
+@Inherited
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface RuleId {
+
+    String value();
+}
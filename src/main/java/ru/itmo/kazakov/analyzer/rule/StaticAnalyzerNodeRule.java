@@ -0,0 +1,58 @@
+package ru.itmo.kazakov.analyzer.rule;
+
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.Node;
+import ru.itmo.kazakov.analyzer.core.StaticAnalyzerRuleState;
+
+import javax.annotation.Nonnull;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * A rule that does not walk the AST itself: {@link FusedNodeRuleEngine} walks it once for all such rules
+ * and calls {@link #enter} and {@link #leave} only for nodes of the subscribed types.
+ */
+public abstract class StaticAnalyzerNodeRule<S extends StaticAnalyzerRuleState> implements StaticAnalyzerRule<S> {
+
+    /**
+     * Created on the first standalone analysis rather than in the constructor,
+     * so that the engine never sees a rule whose subclass is not initialized yet.
+     */
+    private FusedNodeRuleEngine singleRuleEngine = null;
+
+    @Nonnull
+    public abstract S createInitialState();
+
+    /**
+     * Node types passed to {@link #enter} and {@link #leave}, subtypes included.
+     */
+    @Nonnull
+    public abstract Set<Class<? extends Node>> getSubscribedNodeTypes();
+
+    /**
+     * Node types whose descendants this rule never needs, subtypes included.
+     * Such nodes are still entered and left, but the walk does not descend into them for this rule.
+     */
+    @Nonnull
+    public Set<Class<? extends Node>> getSkippedSubtreeTypes() {
+        return Set.of();
+    }
+
+    public void enter(@Nonnull final Node node, @Nonnull final S state) {
+        // no actions by default
+    }
+
+    public void leave(@Nonnull final Node node, @Nonnull final S state) {
+        // no actions by default
+    }
+
+    @Nonnull
+    @Override
+    @SuppressWarnings("unchecked")
+    public S analyze(@Nonnull final CompilationUnit compiledFile) {
+        if (singleRuleEngine == null) {
+            singleRuleEngine = new FusedNodeRuleEngine(List.of(this));
+        }
+        return (S) singleRuleEngine.analyze(compiledFile, singleRuleEngine.getRules()).get(this);
+    }
+}
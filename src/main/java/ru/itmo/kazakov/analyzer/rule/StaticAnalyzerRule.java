@@ -4,9 +4,61 @@ import com.github.javaparser.ast.CompilationUnit;
 import ru.itmo.kazakov.analyzer.core.StaticAnalyzerRuleState;
 
 import javax.annotation.Nonnull;
+import java.util.Set;
 
 public interface StaticAnalyzerRule<S extends StaticAnalyzerRuleState> {
 
+    /**
+     * Same as {@link #getRuleId(Class)} for the class of this rule. Rules declare their ids with {@link RuleId}
+     * rather than by overriding this method, so that rules can be looked up without being created.
+     */
+    @Nonnull
+    default String getId() {
+        return getRuleId(getClass());
+    }
+
+    /**
+     * Must be increased whenever the rule starts producing different warnings for the same source,
+     * so that cached results of the previous version are not reused.
+     */
+    default int getVersion() {
+        return 1;
+    }
+
+    /**
+     * Files are parsed with the union of features of all enabled rules.
+     * Unless overridden, a rule gets everything JavaParser provides without configuration.
+     */
+    @Nonnull
+    default Set<ParserFeature> getRequiredParserFeatures() {
+        return ParserFeature.JAVA_PARSER_DEFAULTS;
+    }
+
     @Nonnull
     S analyze(@Nonnull CompilationUnit compiledFile);
+
+    /**
+     * Ids key cached results, so they must be non-empty and the same in every run:
+     * a hidden class, such as a lambda, has no such name and must be a class declaring its {@link RuleId}.
+     *
+     * @return id declared by {@link RuleId} on the rule class or on its superclasses, binary class name otherwise
+     * @throws IllegalArgumentException if the declared id is empty or if an undeclared id would not be stable
+     */
+    @Nonnull
+    static String getRuleId(@Nonnull final Class<?> ruleType) {
+        final RuleId ruleId = ruleType.getAnnotation(RuleId.class);
+        if (ruleId != null) {
+            if (ruleId.value().isEmpty()) {
+                throw new IllegalArgumentException("Rule " + ruleType.getName() + " declares an empty id");
+            }
+            return ruleId.value();
+        }
+
+        if (ruleType.isHidden()) {
+            throw new IllegalArgumentException(
+                    "Rule " + ruleType.getName() + " has no stable class name, declare its id with @RuleId"
+            );
+        }
+        return ruleType.getName();
+    }
 }
@@ -0,0 +1,146 @@
+package ru.itmo.kazakov.analyzer.rule;
+
+import ru.itmo.kazakov.analyzer.core.StaticAnalyzerRuleState;
+
+import javax.annotation.Nonnull;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.ServiceLoader;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Rules registered as {@link StaticAnalyzerRule} services in {@code META-INF/services}.
+ * Rules are looked up by the {@link StaticAnalyzerRule#getRuleId(Class) ids of their classes},
+ * so only the enabled rules are ever instantiated.
+ * Once created, a registry is safe to use from several threads at once.
+ */
+public class StaticAnalyzerRuleRegistry {
+
+    private final List<ServiceLoader.Provider<StaticAnalyzerRule<? extends StaticAnalyzerRuleState>>> enabledRuleProviders;
+    private final AtomicReference<List<StaticAnalyzerRule<? extends StaticAnalyzerRuleState>>> unusedRules =
+            new AtomicReference<>();
+    private volatile Set<ParserFeature> requiredParserFeatures = null;
+
+    /**
+     * Enables all registered rules.
+     *
+     * @throws IllegalArgumentException if several rules are registered with the same id
+     */
+    public StaticAnalyzerRuleRegistry() {
+        this.enabledRuleProviders = List.copyOf(loadRuleProvidersById().values());
+    }
+
+    /**
+     * @throws IllegalArgumentException if some of the rules are not registered
+     *                                  or if several rules are registered with the same id
+     */
+    public StaticAnalyzerRuleRegistry(@Nonnull final Set<String> enabledRuleIds) {
+        final Map<String, ServiceLoader.Provider<StaticAnalyzerRule<? extends StaticAnalyzerRuleState>>> ruleProvidersById =
+                loadRuleProvidersById();
+        if (!ruleProvidersById.keySet().containsAll(enabledRuleIds)) {
+            final Set<String> unknownRuleIds = new TreeSet<>(enabledRuleIds);
+            unknownRuleIds.removeAll(ruleProvidersById.keySet());
+            throw new IllegalArgumentException(
+                    "Unknown rules " + unknownRuleIds + ", registered rules are " + new TreeSet<>(ruleProvidersById.keySet())
+            );
+        }
+
+        this.enabledRuleProviders = ruleProvidersById
+                .entrySet()
+                .stream()
+                .filter(ruleProviderById -> enabledRuleIds.contains(ruleProviderById.getKey()))
+                .map(Map.Entry::getValue)
+                .toList();
+    }
+
+    /**
+     * Every call returns new rule instances, in the order of registration, never returned before.
+     *
+     * @throws IllegalStateException if a rule reports an id other than the id of its class
+     */
+    @Nonnull
+    public List<StaticAnalyzerRule<? extends StaticAnalyzerRuleState>> createRules() {
+        final List<StaticAnalyzerRule<? extends StaticAnalyzerRuleState>> rules = Objects.requireNonNullElseGet(
+                unusedRules.getAndSet(null),
+                this::instantiateRules
+        );
+        if (requiredParserFeatures == null) {
+            requiredParserFeatures = collectRequiredParserFeatures(rules);
+        }
+        return rules;
+    }
+
+    /**
+     * Features of the rules created first. If no rules were created yet, the rules created to find them out
+     * are returned by the next {@link #createRules()}, so enabled rules are not instantiated just for this.
+     */
+    @Nonnull
+    public Set<ParserFeature> getRequiredParserFeatures() {
+        if (requiredParserFeatures == null) {
+            final List<StaticAnalyzerRule<? extends StaticAnalyzerRuleState>> rules = instantiateRules();
+            requiredParserFeatures = collectRequiredParserFeatures(rules);
+            unusedRules.compareAndSet(null, rules);
+        }
+        return requiredParserFeatures;
+    }
+
+    private List<StaticAnalyzerRule<? extends StaticAnalyzerRuleState>> instantiateRules() {
+        return enabledRuleProviders
+                .stream()
+                .<StaticAnalyzerRule<? extends StaticAnalyzerRuleState>>map(ruleProvider -> {
+                    final StaticAnalyzerRule<? extends StaticAnalyzerRuleState> rule = ruleProvider.get();
+                    final String ruleId = getRuleId(ruleProvider);
+                    if (!rule.getId().equals(ruleId)) {
+                        throw new IllegalStateException(
+                                "Rule " + ruleProvider.type().getName() + " is registered with id " + ruleId
+                                        + " but reports id " + rule.getId() + ", declare it with @RuleId instead"
+                        );
+                    }
+                    return rule;
+                })
+                .toList();
+    }
+
+    private static Set<ParserFeature> collectRequiredParserFeatures(
+            final List<StaticAnalyzerRule<? extends StaticAnalyzerRuleState>> rules
+    ) {
+        return Collections.unmodifiableSet(rules
+                .stream()
+                .flatMap(rule -> rule.getRequiredParserFeatures().stream())
+                .collect(Collectors.toCollection(() -> EnumSet.noneOf(ParserFeature.class))));
+    }
+
+    private static Map<String, ServiceLoader.Provider<StaticAnalyzerRule<? extends StaticAnalyzerRuleState>>> loadRuleProvidersById() {
+        return loadRuleProviders().collect(Collectors.toMap(
+                StaticAnalyzerRuleRegistry::getRuleId,
+                Function.identity(),
+                (ruleProvider, otherRuleProvider) -> {
+                    throw new IllegalArgumentException(
+                            "Rules " + ruleProvider.type().getName() + " and " + otherRuleProvider.type().getName()
+                                    + " are registered with the same id " + getRuleId(ruleProvider)
+                    );
+                },
+                LinkedHashMap::new
+        ));
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Stream<ServiceLoader.Provider<StaticAnalyzerRule<? extends StaticAnalyzerRuleState>>> loadRuleProviders() {
+        return (Stream) ServiceLoader
+                .load(StaticAnalyzerRule.class, StaticAnalyzerRuleRegistry.class.getClassLoader())
+                .stream();
+    }
+
+    private static String getRuleId(final ServiceLoader.Provider<? extends StaticAnalyzerRule<?>> ruleProvider) {
+        return StaticAnalyzerRule.getRuleId(ruleProvider.type());
+    }
+}
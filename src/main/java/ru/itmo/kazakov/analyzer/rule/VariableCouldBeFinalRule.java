@@ -1,22 +1,62 @@
 package ru.itmo.kazakov.analyzer.rule;
 
-import com.github.javaparser.Position;
+import com.github.javaparser.ast.ImportDeclaration;
+import com.github.javaparser.ast.Node;
+import com.github.javaparser.ast.NodeList;
+import com.github.javaparser.ast.PackageDeclaration;
 import com.github.javaparser.ast.body.*;
-import com.github.javaparser.ast.expr.AssignExpr;
-import com.github.javaparser.ast.expr.UnaryExpr;
-import com.github.javaparser.ast.expr.VariableDeclarationExpr;
+import com.github.javaparser.ast.expr.*;
 import com.github.javaparser.ast.nodeTypes.NodeWithParameters;
-import com.github.javaparser.ast.nodeTypes.NodeWithSimpleName;
 import com.github.javaparser.ast.stmt.*;
+import com.github.javaparser.ast.type.Type;
 import ru.itmo.kazakov.analyzer.core.AnalyzerWarning;
 import ru.itmo.kazakov.analyzer.core.StaticAnalyzerRuleState;
+import ru.itmo.kazakov.analyzer.rule.primitive.IntIntArrayMap;
+import ru.itmo.kazakov.analyzer.rule.primitive.IntLongArrayMap;
+import ru.itmo.kazakov.analyzer.rule.primitive.SymbolInterner;
 
 import javax.annotation.Nonnull;
-import java.util.*;
-import java.util.function.Consumer;
-import java.util.function.Predicate;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.Set;
+
+@RuleId("VariableCouldBeFinalRule")
+public class VariableCouldBeFinalRule extends StaticAnalyzerNodeRule<VariableCouldBeFinalRule.State> {
+
+    private static final String UNKNOWN_VARIABLE_MESSAGE_TEMPLATE = "Unknown variable could be final";
+    private static final String VARIABLE_MESSAGE_TEMPLATE = "Variable {} could be final";
+    private static final String VARIABLES_MESSAGE_TEMPLATE = "Variables [{...}] could be final";
+
+    private static final Set<Class<? extends Node>> SUBSCRIBED_NODE_TYPES = Set.of(
+            Statement.class,
+            MethodDeclaration.class,
+            ConstructorDeclaration.class,
+            VariableDeclarationExpr.class,
+            AssignExpr.class,
+            UnaryExpr.class,
+            LambdaExpr.class,
+            CatchClause.class,
+            ObjectCreationExpr.class,
+            TypeDeclaration.class
+    );
+
+    private static final Set<Class<? extends Node>> SKIPPED_SUBTREE_TYPES = Set.of(
+            PackageDeclaration.class,
+            ImportDeclaration.class,
+            AnnotationExpr.class,
+            Type.class
+    );
+
+    private static final Set<ParserFeature> REQUIRED_PARSER_FEATURES = Set.of(ParserFeature.POSITIONS);
 
-public class VariableCouldBeFinalRule extends StaticAnalyzerVisitorRule<VariableCouldBeFinalRule.State> {
+    @Nonnull
+    @Override
+    public Set<ParserFeature> getRequiredParserFeatures() {
+        return REQUIRED_PARSER_FEATURES;
+    }
 
     @Nonnull
     @Override
@@ -24,207 +64,642 @@ public class VariableCouldBeFinalRule extends StaticAnalyzerVisitorRule<Variable
         return new State();
     }
 
-    private String constructWarningMessage(@Nonnull final List<String> variableNames) {
-        if (variableNames.isEmpty()) {
-            return "Unknown variable could be final";
-        } else if (variableNames.size() == 1) {
-            return "Variable " + variableNames.getFirst() + " could be final";
-        } else {
-            return "Variables " + variableNames + " could be final";
+    @Nonnull
+    @Override
+    public Set<Class<? extends Node>> getSubscribedNodeTypes() {
+        return SUBSCRIBED_NODE_TYPES;
+    }
+
+    @Nonnull
+    @Override
+    public Set<Class<? extends Node>> getSkippedSubtreeTypes() {
+        return SKIPPED_SUBTREE_TYPES;
+    }
+
+    @Override
+    public void enter(@Nonnull final Node node, @Nonnull final State state) {
+        if (node == state.thenStatements.peek()) {
+            enterBranch(state);
+        }
+
+        switch (node) {
+            case BlockStmt n -> enterBlock(state);
+            case IfStmt n -> state.thenStatements.push(n.getThenStmt());
+            case MethodDeclaration n -> processMethodParameters(n, state);
+            case ConstructorDeclaration n -> processMethodParameters(n, state);
+            case VariableDeclarationExpr n -> processVariableDeclaration(n, state);
+            case AssignExpr n -> countAssignment(n.getTarget(), state);
+            case UnaryExpr n -> {
+                if (isAssignmentOperator(n.getOperator())) {
+                    countAssignment(n.getExpression(), state);
+                }
+            }
+            case LambdaExpr n -> {
+                state.bindings.enterShadowScope();
+                shadowParameters(n.getParameters(), state);
+            }
+            case CatchClause n -> {
+                state.bindings.enterShadowScope();
+                shadow(n.getParameter().getName(), state);
+            }
+            case ObjectCreationExpr n -> {
+                state.bindings.enterShadowScope();
+                n.getAnonymousClassBody().ifPresent(members -> shadowFields(members, state));
+            }
+            case TypeDeclaration<?> n -> {
+                state.bindings.enterShadowScope();
+                shadowFields(n.getMembers(), state);
+                if (n instanceof RecordDeclaration recordDeclaration) {
+                    shadowParameters(recordDeclaration.getParameters(), state);
+                }
+            }
+            case DoStmt n -> enterCycle(state);
+            case WhileStmt n -> enterCycle(state);
+            case ForStmt n -> enterCycle(state);
+            case ForEachStmt n -> enterCycle(state);
+            default -> {
+                // not interesting
+            }
         }
     }
 
     @Override
-    public void visit(final BlockStmt n, final State state) {
-        final Set<VariableDeclarationDescription> parentBlockVariables = Set.copyOf(state.currentBlockVariables);
-        state.currentBlockVariables.clear();
+    public void leave(@Nonnull final Node node, @Nonnull final State state) {
+        switch (node) {
+            case BlockStmt n -> leaveBlock(state);
+            case DoStmt n -> leaveCycle(state);
+            case WhileStmt n -> leaveCycle(state);
+            case ForStmt n -> leaveCycle(state);
+            case ForEachStmt n -> leaveCycle(state);
+            case IfStmt n -> leaveIf(state);
+            case LambdaExpr n -> state.bindings.leaveShadowScope();
+            case CatchClause n -> state.bindings.leaveShadowScope();
+            case ObjectCreationExpr n -> state.bindings.leaveShadowScope();
+            case TypeDeclaration<?> n -> state.bindings.leaveShadowScope();
+            default -> {
+                // not interesting
+            }
+        }
 
-        state.currentBlockVariables.addAll(state.nextBlockVariables);
-        state.nextBlockVariables.clear();
+        if (node == state.thenStatements.peek()) {
+            leaveThenBranch(state);
+        }
+    }
+
+    private static String getWarningMessageTemplate(final int variablesCount) {
+        return switch (variablesCount) {
+            case 0 -> UNKNOWN_VARIABLE_MESSAGE_TEMPLATE;
+            case 1 -> VARIABLE_MESSAGE_TEMPLATE;
+            default -> VARIABLES_MESSAGE_TEMPLATE;
+        };
+    }
 
-        super.visit(n, state);
+    private static boolean isAssignmentOperator(final UnaryExpr.Operator operator) {
+        return switch (operator) {
+            case PREFIX_INCREMENT, PREFIX_DECREMENT, POSTFIX_INCREMENT, POSTFIX_DECREMENT -> true;
+            default -> false;
+        };
+    }
 
-        state.currentBlockVariables.forEach(variableDeclarationDescription -> {
-            final long maxAssignmentCount = variableDeclarationDescription.names
-                    .stream()
-                    .map(state.assignmentsForVariable::remove)
-                    .map(Optional::ofNullable)
-                    .flatMap(Optional::stream)
-                    .mapToLong(it -> it)
-                    .max()
-                    .orElse(0);
+    private void enterBlock(final State state) {
+        state.blockDeclarations.enterScope();
+        state.blockDeclarations.addAll(state.nextBlockDeclarations);
+        state.nextBlockDeclarations.clear();
+    }
+
+    private void leaveBlock(final State state) {
+        final Declarations declarations = state.blockDeclarations;
+        final int blockDeclarationsStart = declarations.getScopeStart();
+
+        for (int i = blockDeclarationsStart; i < declarations.size(); i++) {
+            long maxAssignmentCount = 0;
+            for (int j = declarations.getVariablesStart(i); j < declarations.getVariablesEnd(i); j++) {
+                maxAssignmentCount = Math.max(
+                        maxAssignmentCount,
+                        state.assignmentCounts.remove(declarations.getVariable(j))
+                );
+            }
 
             if (maxAssignmentCount > 1) {
-                return;
+                continue;
             }
 
+            final Node declarationNode = declarations.getNode(i);
+            final List<String> variableNames = getVariableNames(declarations, i, state);
             state.addWarning(new AnalyzerWarning(
-                    constructWarningMessage(variableDeclarationDescription.names()),
-                    variableDeclarationDescription.beginPosition(),
-                    variableDeclarationDescription.endPosition()
+                    getId(),
+                    getWarningMessageTemplate(variableNames.size()),
+                    variableNames,
+                    declarationNode.getRange().orElse(null)
             ));
-        });
+        }
 
-        state.currentBlockVariables.clear();
-        state.currentBlockVariables.addAll(parentBlockVariables);
+        for (int i = declarations.size() - 1; i >= blockDeclarationsStart; i--) {
+            for (int j = declarations.getVariablesEnd(i) - 1; j >= declarations.getVariablesStart(i); j--) {
+                state.bindings.release(declarations.getVariable(j));
+            }
+        }
+        declarations.leaveScope();
     }
 
     private void processMethodParameters(final NodeWithParameters<?> nodeWithParameters, final State state) {
-        nodeWithParameters.getParameters()
-                .stream()
-                .filter(Predicate.not(Parameter::isFinal))
-                .peek(parameter -> state.assignmentsForVariable.put(parameter.getNameAsString(), 1L))
-                .map(parameter ->
-                        new VariableDeclarationDescription(
-                                List.of(parameter.getNameAsString()),
-                                parameter.getBegin(),
-                                parameter.getEnd()
-                        )
-                )
-                .forEach(state.nextBlockVariables::add);
-    }
-
-    @Override
-    public void visit(final MethodDeclaration n, final State state) {
-        processMethodParameters(n, state);
-        super.visit(n, state);
-    }
+        final NodeList<Parameter> parameters = nodeWithParameters.getParameters();
+        for (int i = 0; i < parameters.size(); i++) {
+            final Parameter parameter = parameters.get(i);
+            if (parameter.isFinal()) {
+                continue;
+            }
 
-    @Override
-    public void visit(final ConstructorDeclaration n, final State state) {
-        processMethodParameters(n, state);
-        super.visit(n, state);
+            final int variable = state.bindings.declare(state.symbols.intern(parameter.getNameAsString()));
+            state.assignmentCounts.put(variable, 1);
+            state.nextBlockDeclarations.add(parameter);
+            state.nextBlockDeclarations.addVariable(variable);
+        }
     }
 
-    @Override
-    public void visit(final VariableDeclarationExpr n, final State state) {
-        if (!n.isFinal()) {
-            final List<String> variableNames = n.getVariables().stream().map(NodeWithSimpleName::getNameAsString).toList();
-            if (n.getParentNode().stream().anyMatch(parent -> parent instanceof ForStmt || parent instanceof ForEachStmt)) {
-                state.nextBlockVariables.add(
-                        new VariableDeclarationDescription(variableNames, n.getBegin(), n.getEnd())
-                );
-            } else {
-                state.currentBlockVariables.add(
-                        new VariableDeclarationDescription(variableNames, n.getBegin(), n.getEnd())
-                );
-            }
+    private void processVariableDeclaration(final VariableDeclarationExpr n, final State state) {
+        if (n.isFinal()) {
+            return;
+        }
 
-            n.getVariables().forEach(variable -> {
-                final String variableName = variable.getNameAsString();
-                assert state.assignmentsForVariable.get(variableName) == null;
+        final Node parentNode = n.getParentNode().orElseThrow();
+        final Declarations declarations = parentNode instanceof ForStmt || parentNode instanceof ForEachStmt
+                ? state.nextBlockDeclarations
+                : state.blockDeclarations;
+        declarations.add(n);
+
+        final NodeList<VariableDeclarator> variables = n.getVariables();
+        for (int i = 0; i < variables.size(); i++) {
+            final VariableDeclarator variableDeclarator = variables.get(i);
+            final int variable = state.bindings.declare(state.symbols.intern(variableDeclarator.getNameAsString()));
+            declarations.addVariable(variable);
+            state.assignmentCounts.put(
+                    variable,
+                    variableDeclarator.getInitializer().isPresent() || parentNode instanceof ForEachStmt ? 1 : 0
+            );
+        }
+    }
 
-                state.assignmentsForVariable.put(
-                        variableName,
-                        variable.getInitializer().isPresent() ||
-                                n.getParentNode().stream().anyMatch(parent -> parent instanceof ForEachStmt)
-                                ? 1L : 0L);
-            });
+    private void countAssignment(final Expression target, final State state) {
+        Expression unwrappedTarget = target;
+        while (unwrappedTarget instanceof EnclosedExpr enclosedExpr) {
+            unwrappedTarget = enclosedExpr.getInner();
         }
 
-        super.visit(n, state);
+        if (unwrappedTarget instanceof NameExpr nameExpr) {
+            final int variable = state.bindings.resolve(state.symbols.find(nameExpr.getName().getIdentifier()));
+            if (variable != Bindings.UNBOUND) {
+                state.assignmentCounts.increment(variable);
+            }
+        }
     }
 
-    @Override
-    public void visit(final AssignExpr n, final State state) {
-        state.assignmentsForVariable.compute(
-                n.getTarget().toString(),
-                (name, count) -> count == null ? null : count + 1
-        );
-        super.visit(n, state);
+    private void shadow(final SimpleName name, final State state) {
+        state.bindings.shadow(state.symbols.find(name.getIdentifier()));
     }
 
-    @Override
-    public void visit(final UnaryExpr n, final State state) {
-        final Set<UnaryExpr.Operator> assignmentOperators = Set.of(UnaryExpr.Operator.PREFIX_INCREMENT,
-                UnaryExpr.Operator.PREFIX_DECREMENT,
-                UnaryExpr.Operator.POSTFIX_INCREMENT,
-                UnaryExpr.Operator.POSTFIX_DECREMENT);
-
-        if (assignmentOperators.contains(n.getOperator())) {
-            state.assignmentsForVariable.compute(
-                    n.getExpression().toString(),
-                    (name, count) -> count == null ? null : count + 1
-            );
+    private void shadowParameters(final NodeList<Parameter> parameters, final State state) {
+        for (int i = 0; i < parameters.size(); i++) {
+            shadow(parameters.get(i).getName(), state);
         }
+    }
 
-        super.visit(n, state);
+    private void shadowFields(final NodeList<BodyDeclaration<?>> members, final State state) {
+        for (int i = 0; i < members.size(); i++) {
+            if (members.get(i) instanceof FieldDeclaration fieldDeclaration) {
+                final NodeList<VariableDeclarator> variables = fieldDeclaration.getVariables();
+                for (int j = 0; j < variables.size(); j++) {
+                    shadow(variables.get(j).getName(), state);
+                }
+            }
+        }
     }
 
-    public void visitCycleNode(final State state, final Consumer<State> visitInnerNodes) {
-        final Map<String, Long> parentVariableCounts = Map.copyOf(state.assignmentsForVariable);
-        state.assignmentsForVariable.replaceAll((__, count) -> 0L);
+    private List<String> getVariableNames(final Declarations declarations, final int index, final State state) {
+        final int variablesStart = declarations.getVariablesStart(index);
+        final String[] variableNames = new String[declarations.getVariablesEnd(index) - variablesStart];
+        for (int i = 0; i < variableNames.length; i++) {
+            variableNames[i] = state.symbols.getSymbol(state.bindings.getName(declarations.getVariable(variablesStart + i)));
+        }
+        return List.of(variableNames);
+    }
 
-        visitInnerNodes.accept(state);
+    private void enterCycle(final State state) {
+        state.assignmentCounts.enterFrame();
+    }
 
-        state.assignmentsForVariable.replaceAll((__, count) -> count * 2);
-        parentVariableCounts.forEach((name, count) -> state.assignmentsForVariable.merge(name, count, Long::sum));
+    private void leaveCycle(final State state) {
+        state.assignmentCounts.leaveCycleFrame();
     }
 
-    @Override
-    public void visit(final DoStmt n, final State state) {
-        visitCycleNode(state, (innerState) -> super.visit(n, innerState));
+    private void enterBranch(final State state) {
+        state.assignmentCounts.enterFrame();
     }
 
-    @Override
-    public void visit(final WhileStmt n, final State state) {
-        visitCycleNode(state, (innerState) -> super.visit(n, innerState));
+    private void leaveThenBranch(final State state) {
+        state.assignmentCounts.leaveThenBranch();
     }
 
-    @Override
-    public void visit(final ForStmt n, final State state) {
-        visitCycleNode(state, (innerState) -> {
-            n.getInitialization().forEach(p -> p.accept(this, innerState));
-            n.getCompare().ifPresent(l -> l.accept(this, innerState));
-            n.getUpdate().forEach(p -> p.accept(this, innerState));
-            n.getComment().ifPresent(l -> l.accept(this, innerState));
-            n.getBody().accept(this, innerState);
-        });
+    private void leaveIf(final State state) {
+        state.thenStatements.pop();
+        state.assignmentCounts.leaveIfFrame();
     }
 
-    @Override
-    public void visit(final ForEachStmt n, final State state) {
-        visitCycleNode(state, (innerState) -> {
-            n.getVariable().accept(this, innerState);
-            n.getIterable().accept(this, innerState);
-            n.getComment().ifPresent(l -> l.accept(this, innerState));
-            n.getBody().accept(this, innerState);
-        });
+    /**
+     * Assignment counts of the declared variables. Entering a cycle or a branch opens a frame in which every
+     * count starts from zero: instead of copying and resetting all counts, a count written with an older frame id
+     * reads as zero, and the frame appends the previous state of every variable it touches to an undo log,
+     * so that leaving the frame merges only those variables back into the enclosing one.
+     */
+    private static final class AssignmentCounts {
+
+        private static final int ROOT_FRAME_ID = 0;
+        private static final int NO_THEN_BRANCH_END = -1;
+        private static final long NO_COUNT = -1;
+        private static final int INITIAL_CAPACITY = 16;
+
+        private final IntLongArrayMap counts = new IntLongArrayMap();
+        private final IntIntArrayMap countFrameIds = new IntIntArrayMap();
+        private int currentFrameId = ROOT_FRAME_ID;
+        private int lastFrameId = ROOT_FRAME_ID;
+
+        private int[] frameParentIds = new int[INITIAL_CAPACITY];
+        private int[] frameUndoLogStarts = new int[INITIAL_CAPACITY];
+        private int[] frameThenBranchUndoLogEnds = new int[INITIAL_CAPACITY];
+        private int framesCount = 0;
+
+        private int[] undoLogVariables = new int[INITIAL_CAPACITY];
+        private long[] undoLogPreviousCounts = new long[INITIAL_CAPACITY];
+        private int[] undoLogPreviousFrameIds = new int[INITIAL_CAPACITY];
+        private long[] undoLogThenBranchCounts = new long[INITIAL_CAPACITY];
+        private int undoLogSize = 0;
+
+        private void put(final int variable, final long count) {
+            touch(variable);
+            counts.put(variable, count);
+        }
+
+        private void increment(final int variable) {
+            if (!counts.containsKey(variable)) {
+                return;
+            }
+
+            final long count = currentCount(variable);
+            touch(variable);
+            counts.put(variable, count + 1);
+        }
+
+        /**
+         * @return count of the removed variable or zero if it is unknown
+         */
+        private long remove(final int variable) {
+            if (!counts.containsKey(variable)) {
+                return 0;
+            }
+
+            final long count = currentCount(variable);
+            touch(variable);
+            counts.remove(variable);
+            return count;
+        }
+
+        private void enterFrame() {
+            if (framesCount == frameParentIds.length) {
+                frameParentIds = Arrays.copyOf(frameParentIds, framesCount * 2);
+                frameUndoLogStarts = Arrays.copyOf(frameUndoLogStarts, framesCount * 2);
+                frameThenBranchUndoLogEnds = Arrays.copyOf(frameThenBranchUndoLogEnds, framesCount * 2);
+            }
+
+            frameParentIds[framesCount] = currentFrameId;
+            frameUndoLogStarts[framesCount] = undoLogSize;
+            frameThenBranchUndoLogEnds[framesCount] = NO_THEN_BRANCH_END;
+            framesCount++;
+            currentFrameId = ++lastFrameId;
+        }
+
+        private void leaveCycleFrame() {
+            final int undoLogStart = frameUndoLogStarts[framesCount - 1];
+            final int parentFrameId = leaveFrame();
+
+            int parentUndoLogSize = undoLogStart;
+            for (int i = undoLogStart; i < undoLogSize; i++) {
+                final int variable = undoLogVariables[i];
+                final long baseCount = countInFrame(i, parentFrameId);
+
+                if (counts.containsKey(variable)) {
+                    counts.put(variable, counts.get(variable, 0) * 2 + Math.max(baseCount, 0));
+                } else if (baseCount != NO_COUNT) {
+                    counts.put(variable, baseCount);
+                }
+                parentUndoLogSize = moveToParentFrame(i, parentFrameId, parentUndoLogSize);
+            }
+            undoLogSize = parentUndoLogSize;
+        }
+
+        private void leaveThenBranch() {
+            for (int i = frameUndoLogStarts[framesCount - 1]; i < undoLogSize; i++) {
+                final int variable = undoLogVariables[i];
+                undoLogThenBranchCounts[i] = counts.get(variable, NO_COUNT);
+                if (counts.containsKey(variable)) {
+                    counts.put(variable, 0);
+                }
+            }
+            frameThenBranchUndoLogEnds[framesCount - 1] = undoLogSize;
+        }
+
+        private void leaveIfFrame() {
+            final int undoLogStart = frameUndoLogStarts[framesCount - 1];
+            final int thenBranchUndoLogEnd = frameThenBranchUndoLogEnds[framesCount - 1];
+            final int parentFrameId = leaveFrame();
+
+            int parentUndoLogSize = undoLogStart;
+            for (int i = undoLogStart; i < undoLogSize; i++) {
+                final int variable = undoLogVariables[i];
+                final long thenBranchCount;
+                if (i < thenBranchUndoLogEnd) {
+                    thenBranchCount = undoLogThenBranchCounts[i];
+                } else {
+                    thenBranchCount = undoLogPreviousCounts[i] == NO_COUNT ? NO_COUNT : 0;
+                }
+
+                final long branchesCount = Math.max(counts.get(variable, NO_COUNT), thenBranchCount);
+                final long count = sumCounts(branchesCount, countInFrame(i, parentFrameId));
+
+                if (count != NO_COUNT) {
+                    counts.put(variable, count);
+                }
+                parentUndoLogSize = moveToParentFrame(i, parentFrameId, parentUndoLogSize);
+            }
+            undoLogSize = parentUndoLogSize;
+        }
+
+        private int leaveFrame() {
+            framesCount--;
+            currentFrameId = frameParentIds[framesCount];
+            return currentFrameId;
+        }
+
+        private long currentCount(final int variable) {
+            return countFrameIds.get(variable, ROOT_FRAME_ID) == currentFrameId ? counts.get(variable, 0) : 0;
+        }
+
+        private long countInFrame(final int undoLogIndex, final int frameId) {
+            if (undoLogPreviousCounts[undoLogIndex] == NO_COUNT) {
+                return NO_COUNT;
+            }
+            return undoLogPreviousFrameIds[undoLogIndex] == frameId ? undoLogPreviousCounts[undoLogIndex] : 0;
+        }
+
+        private void touch(final int variable) {
+            final int frameId = countFrameIds.get(variable, ROOT_FRAME_ID);
+            if (framesCount == 0 || frameId == currentFrameId) {
+                return;
+            }
+
+            appendToUndoLog(variable, counts.get(variable, NO_COUNT), frameId);
+            countFrameIds.put(variable, currentFrameId);
+        }
+
+        /**
+         * Marks a variable of the left frame as touched by the parent frame and, if the parent frame
+         * has not logged the variable yet, moves its undo log entry to the end of the parent frame log.
+         *
+         * @return new size of the parent frame log
+         */
+        private int moveToParentFrame(final int undoLogIndex, final int parentFrameId, final int parentUndoLogSize) {
+            countFrameIds.put(undoLogVariables[undoLogIndex], parentFrameId);
+            if (framesCount == 0 || undoLogPreviousFrameIds[undoLogIndex] == parentFrameId) {
+                return parentUndoLogSize;
+            }
+
+            undoLogVariables[parentUndoLogSize] = undoLogVariables[undoLogIndex];
+            undoLogPreviousCounts[parentUndoLogSize] = undoLogPreviousCounts[undoLogIndex];
+            undoLogPreviousFrameIds[parentUndoLogSize] = undoLogPreviousFrameIds[undoLogIndex];
+            return parentUndoLogSize + 1;
+        }
+
+        private void appendToUndoLog(final int variable, final long previousCount, final int previousFrameId) {
+            if (undoLogSize == undoLogVariables.length) {
+                undoLogVariables = Arrays.copyOf(undoLogVariables, undoLogSize * 2);
+                undoLogPreviousCounts = Arrays.copyOf(undoLogPreviousCounts, undoLogSize * 2);
+                undoLogPreviousFrameIds = Arrays.copyOf(undoLogPreviousFrameIds, undoLogSize * 2);
+                undoLogThenBranchCounts = Arrays.copyOf(undoLogThenBranchCounts, undoLogSize * 2);
+            }
+
+            undoLogVariables[undoLogSize] = variable;
+            undoLogPreviousCounts[undoLogSize] = previousCount;
+            undoLogPreviousFrameIds[undoLogSize] = previousFrameId;
+            undoLogSize++;
+        }
+
+        private static long sumCounts(final long first, final long second) {
+            if (first == NO_COUNT) {
+                return second;
+            } else if (second == NO_COUNT) {
+                return first;
+            } else {
+                return first + second;
+            }
+        }
     }
 
-    @Override
-    public void visit(final IfStmt n, final State state) {
-        n.getCondition().accept(this, state);
+    /**
+     * Binds every name to its innermost declaration. Every declaration of a tracked variable gets a new variable id,
+     * which is bound to the name until the variable is released. Parameters of lambdas and catch clauses and fields
+     * of nested classes are not tracked, but they shadow tracked variables with the same name until the end
+     * of the shadow scope they are declared in.
+     */
+    private static final class Bindings {
+
+        private static final int UNBOUND = -1;
+        private static final int INITIAL_CAPACITY = 16;
+
+        private final IntIntArrayMap variablesByName = new IntIntArrayMap();
+        private int[] variableNames = new int[INITIAL_CAPACITY];
+        private int[] variableShadowedBindings = new int[INITIAL_CAPACITY];
+        private int variablesCount = 0;
+
+        private int[] shadowedNames = new int[INITIAL_CAPACITY];
+        private int[] shadowedBindings = new int[INITIAL_CAPACITY];
+        private int shadowedCount = 0;
+        private int[] shadowScopeStarts = new int[INITIAL_CAPACITY];
+        private int shadowScopesCount = 0;
+
+        /**
+         * @return id of the new variable
+         */
+        private int declare(final int name) {
+            if (variablesCount == variableNames.length) {
+                variableNames = Arrays.copyOf(variableNames, variablesCount * 2);
+                variableShadowedBindings = Arrays.copyOf(variableShadowedBindings, variablesCount * 2);
+            }
+
+            final int variable = variablesCount++;
+            variableNames[variable] = name;
+            variableShadowedBindings[variable] = variablesByName.get(name, UNBOUND);
+            variablesByName.put(name, variable);
+            return variable;
+        }
+
+        private void release(final int variable) {
+            bind(variableNames[variable], variableShadowedBindings[variable]);
+        }
 
-        final Map<String, Long> parentVariableCounts = Map.copyOf(state.assignmentsForVariable);
-        state.assignmentsForVariable.replaceAll((__, count) -> 0L);
+        private int getName(final int variable) {
+            return variableNames[variable];
+        }
+
+        /**
+         * @return id of the tracked variable the name refers to or {@link #UNBOUND}
+         */
+        private int resolve(final int name) {
+            return name == SymbolInterner.UNKNOWN_SYMBOL ? UNBOUND : variablesByName.get(name, UNBOUND);
+        }
+
+        private void enterShadowScope() {
+            if (shadowScopesCount == shadowScopeStarts.length) {
+                shadowScopeStarts = Arrays.copyOf(shadowScopeStarts, shadowScopesCount * 2);
+            }
+
+            shadowScopeStarts[shadowScopesCount++] = shadowedCount;
+        }
+
+        private void shadow(final int name) {
+            final int binding = resolve(name);
+            if (binding == UNBOUND) {
+                return;
+            }
 
-        n.getThenStmt().accept(this, state);
+            if (shadowedCount == shadowedNames.length) {
+                shadowedNames = Arrays.copyOf(shadowedNames, shadowedCount * 2);
+                shadowedBindings = Arrays.copyOf(shadowedBindings, shadowedCount * 2);
+            }
 
-        final Map<String, Long> thenVariableCounts = Map.copyOf(state.assignmentsForVariable);
-        state.assignmentsForVariable.replaceAll((__, count) -> 0L);
+            shadowedNames[shadowedCount] = name;
+            shadowedBindings[shadowedCount] = binding;
+            shadowedCount++;
+            variablesByName.remove(name);
+        }
 
-        n.getElseStmt().ifPresent(l -> l.accept(this, state));
-        n.getComment().ifPresent(l -> l.accept(this, state));
+        private void leaveShadowScope() {
+            final int shadowScopeStart = shadowScopeStarts[--shadowScopesCount];
+            while (shadowedCount > shadowScopeStart) {
+                shadowedCount--;
+                bind(shadowedNames[shadowedCount], shadowedBindings[shadowedCount]);
+            }
+        }
 
-        thenVariableCounts.forEach((name, count) -> state.assignmentsForVariable.merge(name, count, Long::max));
-        parentVariableCounts.forEach((name, count) -> state.assignmentsForVariable.merge(name, count, Long::sum));
+        private void bind(final int name, final int binding) {
+            if (binding == UNBOUND) {
+                variablesByName.remove(name);
+            } else {
+                variablesByName.put(name, binding);
+            }
+        }
     }
 
-    private record VariableDeclarationDescription(
-            List<String> names,
-            Optional<Position> beginPosition,
-            Optional<Position> endPosition
-    ) {
-        // no methods
+    /**
+     * Declarations of variables stored in flat arrays: declaring node and variables of every declaration.
+     * Declarations of nested scopes follow each other, leaving a scope drops its declarations.
+     */
+    private static final class Declarations {
+
+        private static final int INITIAL_CAPACITY = 16;
+
+        private Node[] nodes = new Node[INITIAL_CAPACITY];
+        private int[] variablesStarts = new int[INITIAL_CAPACITY];
+        private int[] variables = new int[INITIAL_CAPACITY];
+        private int[] scopeStarts = new int[INITIAL_CAPACITY];
+        private int size = 0;
+        private int variablesSize = 0;
+        private int scopesCount = 0;
+
+        private int size() {
+            return size;
+        }
+
+        private Node getNode(final int index) {
+            return nodes[index];
+        }
+
+        private int getVariablesStart(final int index) {
+            return variablesStarts[index];
+        }
+
+        private int getVariablesEnd(final int index) {
+            return index + 1 < size ? variablesStarts[index + 1] : variablesSize;
+        }
+
+        private int getVariable(final int variableIndex) {
+            return variables[variableIndex];
+        }
+
+        private void add(final Node node) {
+            if (size == nodes.length) {
+                nodes = Arrays.copyOf(nodes, size * 2);
+                variablesStarts = Arrays.copyOf(variablesStarts, size * 2);
+            }
+
+            nodes[size] = node;
+            variablesStarts[size] = variablesSize;
+            size++;
+        }
+
+        private void addVariable(final int variable) {
+            if (variablesSize == variables.length) {
+                variables = Arrays.copyOf(variables, variablesSize * 2);
+            }
+
+            variables[variablesSize++] = variable;
+        }
+
+        private void addAll(final Declarations declarations) {
+            for (int i = 0; i < declarations.size; i++) {
+                add(declarations.nodes[i]);
+                for (int j = declarations.getVariablesStart(i); j < declarations.getVariablesEnd(i); j++) {
+                    addVariable(declarations.variables[j]);
+                }
+            }
+        }
+
+        private void enterScope() {
+            if (scopesCount == scopeStarts.length) {
+                scopeStarts = Arrays.copyOf(scopeStarts, scopesCount * 2);
+            }
+
+            scopeStarts[scopesCount++] = size;
+        }
+
+        private int getScopeStart() {
+            return scopeStarts[scopesCount - 1];
+        }
+
+        private void leaveScope() {
+            truncate(scopeStarts[--scopesCount]);
+        }
+
+        private void truncate(final int newSize) {
+            if (newSize < size) {
+                variablesSize = variablesStarts[newSize];
+                Arrays.fill(nodes, newSize, size, null);
+                size = newSize;
+            }
+        }
+
+        private void clear() {
+            truncate(0);
+        }
     }
 
     public static class State implements StaticAnalyzerRuleState {
 
         private final List<AnalyzerWarning> warnings = new ArrayList<>();
-        private final Map<String, Long> assignmentsForVariable = new HashMap<>();
-        private final Set<VariableDeclarationDescription> nextBlockVariables = new HashSet<>();
-        private final Set<VariableDeclarationDescription> currentBlockVariables = new HashSet<>();
+        private final SymbolInterner symbols = new SymbolInterner();
+        private final Bindings bindings = new Bindings();
+        private final AssignmentCounts assignmentCounts = new AssignmentCounts();
+        private final Declarations nextBlockDeclarations = new Declarations();
+        private final Declarations blockDeclarations = new Declarations();
+        private final Deque<Statement> thenStatements = new ArrayDeque<>();
 
         @Nonnull
         @Override
@@ -0,0 +1,25 @@
+package ru.itmo.kazakov.analyzer.rule.primitive;
+
+import java.util.Arrays;
+
+/**
+ * Map from small non-negative int keys to int values.
+ */
+public class IntIntArrayMap extends IntKeyArrayMap {
+
+    private int[] values = new int[INITIAL_CAPACITY];
+
+    public int get(final int key, final int defaultValue) {
+        return containsKey(key) ? values[key] : defaultValue;
+    }
+
+    public void put(final int key, final int value) {
+        addKey(key);
+        values[key] = value;
+    }
+
+    @Override
+    protected void growValues(final int newCapacity) {
+        values = Arrays.copyOf(values, newCapacity);
+    }
+}
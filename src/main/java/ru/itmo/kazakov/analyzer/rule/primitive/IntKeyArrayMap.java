@@ -0,0 +1,41 @@
+package ru.itmo.kazakov.analyzer.rule.primitive;
+
+import java.util.BitSet;
+
+/**
+ * Keys of a map from small non-negative int keys, such as {@link SymbolInterner} ids, to primitive values.
+ * Subclasses store values in an array indexed by key, which grows together with the key capacity,
+ * so operations allocate only when the array grows.
+ */
+public abstract class IntKeyArrayMap {
+
+    protected static final int INITIAL_CAPACITY = 32;
+
+    private final BitSet keys = new BitSet();
+    private int capacity = INITIAL_CAPACITY;
+
+    public boolean containsKey(final int key) {
+        return keys.get(key);
+    }
+
+    public void remove(final int key) {
+        keys.clear(key);
+    }
+
+    public void clear() {
+        keys.clear();
+    }
+
+    /**
+     * Makes the key present, growing the values first if the key does not fit into them.
+     */
+    protected final void addKey(final int key) {
+        if (key >= capacity) {
+            capacity = Math.max(capacity * 2, key + 1);
+            growValues(capacity);
+        }
+        keys.set(key);
+    }
+
+    protected abstract void growValues(int newCapacity);
+}
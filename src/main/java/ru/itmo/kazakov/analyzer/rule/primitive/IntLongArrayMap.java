@@ -0,0 +1,25 @@
+package ru.itmo.kazakov.analyzer.rule.primitive;
+
+import java.util.Arrays;
+
+/**
+ * Map from small non-negative int keys to long values.
+ */
+public class IntLongArrayMap extends IntKeyArrayMap {
+
+    private long[] values = new long[INITIAL_CAPACITY];
+
+    public long get(final int key, final long defaultValue) {
+        return containsKey(key) ? values[key] : defaultValue;
+    }
+
+    public void put(final int key, final long value) {
+        addKey(key);
+        values[key] = value;
+    }
+
+    @Override
+    protected void growValues(final int newCapacity) {
+        values = Arrays.copyOf(values, newCapacity);
+    }
+}
@@ -0,0 +1,88 @@
+package ru.itmo.kazakov.analyzer.rule.primitive;
+
+import javax.annotation.Nonnull;
+import java.util.Arrays;
+
+/**
+ * Maps symbols, such as variable names, of a single compilation unit to dense int ids starting from zero,
+ * so that rule state can be kept in {@link IntIntArrayMap}s, {@link IntLongArrayMap}s and bit sets.
+ * Looking up an already interned symbol allocates nothing.
+ */
+public class SymbolInterner {
+
+    public static final int UNKNOWN_SYMBOL = -1;
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    private String[] slotSymbols = new String[INITIAL_CAPACITY];
+    private int[] slotIds = new int[INITIAL_CAPACITY];
+    private String[] symbols = new String[INITIAL_CAPACITY / 2];
+    private int size = 0;
+
+    /**
+     * @return id of the symbol, a new one if the symbol was not interned before
+     */
+    public int intern(@Nonnull final String symbol) {
+        final int slot = findSlot(symbol);
+        if (slotSymbols[slot] != null) {
+            return slotIds[slot];
+        }
+
+        final int id = size++;
+        if (id == symbols.length) {
+            symbols = Arrays.copyOf(symbols, symbols.length * 2);
+        }
+        symbols[id] = symbol;
+        slotSymbols[slot] = symbol;
+        slotIds[slot] = id;
+
+        if (size * 2 > slotSymbols.length) {
+            rehash();
+        }
+        return id;
+    }
+
+    /**
+     * @return id of the symbol or {@link #UNKNOWN_SYMBOL} if it was never interned
+     */
+    public int find(@Nonnull final String symbol) {
+        final int slot = findSlot(symbol);
+        return slotSymbols[slot] == null ? UNKNOWN_SYMBOL : slotIds[slot];
+    }
+
+    @Nonnull
+    public String getSymbol(final int id) {
+        if (id < 0 || id >= size) {
+            throw new IndexOutOfBoundsException("Unknown symbol id " + id);
+        }
+        return symbols[id];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private int findSlot(final String symbol) {
+        final int mask = slotSymbols.length - 1;
+        int slot = mix(symbol.hashCode()) & mask;
+        while (slotSymbols[slot] != null && !slotSymbols[slot].equals(symbol)) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void rehash() {
+        slotSymbols = new String[slotSymbols.length * 2];
+        slotIds = new int[slotSymbols.length];
+        for (int id = 0; id < size; id++) {
+            final int slot = findSlot(symbols[id]);
+            slotSymbols[slot] = symbols[id];
+            slotIds[slot] = id;
+        }
+    }
+
+    private static int mix(final int hash) {
+        final int spread = hash * 0x9E3779B9;
+        return spread ^ (spread >>> 16);
+    }
+}
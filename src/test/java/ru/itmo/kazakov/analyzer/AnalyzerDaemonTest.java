@@ -0,0 +1,79 @@
+package ru.itmo.kazakov.analyzer;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class AnalyzerDaemonTest {
+
+    @Test
+    public void testClientExitsWithStatusOfAnalysis(@TempDir final Path directory) throws Exception {
+        final Path sources = Files.createDirectories(directory.resolve("sources"));
+        final Path source = sources.resolve("Main.java");
+        Files.writeString(source, "class Main { void main() { int x = 0; } }");
+        final Path socketPath = directory.resolve("daemon.sock");
+
+        final Thread daemonThread;
+        try (final AnalyzerDaemon analyzerDaemon = new AnalyzerDaemon(socketPath)) {
+            daemonThread = Thread.ofPlatform().start(() -> {
+                try {
+                    analyzerDaemon.serve();
+                } catch (IOException e) {
+                    throw new RuntimeException(e);
+                }
+            });
+
+            final ClientRun warningsRun = runClient(socketPath.toString(), sources.toString());
+            assertEquals(DaemonProtocol.WARNINGS_EXIT_STATUS, warningsRun.exitStatus());
+            assertTrue(warningsRun.output().contains("Variable x could be final"), warningsRun.output());
+            assertTrue(warningsRun.output().contains("Found 1 total warnings"), warningsRun.output());
+
+            Files.writeString(source, "class Main { void main() { final int x = 0; } }");
+
+            final ClientRun cleanRun = runClient(socketPath.toString(), sources.toString(), "--workers=2");
+            assertEquals(0, cleanRun.exitStatus());
+            assertTrue(cleanRun.output().contains("Found 0 total warnings"), cleanRun.output());
+
+            final ClientRun unknownRuleRun = runClient(socketPath.toString(), sources.toString(), "--rules=UnknownRule");
+            assertEquals(0, unknownRuleRun.exitStatus());
+            assertTrue(unknownRuleRun.output().contains("Unknown rules [UnknownRule]"), unknownRuleRun.output());
+
+            final Path cacheDirectory = directory.resolve("cache");
+            for (int i = 0; i < 2; i++) {
+                final ClientRun cachedRun = runClient(
+                        socketPath.toString(),
+                        sources.toString(),
+                        "--rules=VariableCouldBeFinalRule",
+                        "--cache=" + cacheDirectory
+                );
+                assertEquals(0, cachedRun.exitStatus(), cachedRun.output());
+                assertTrue(cachedRun.output().contains("Found 0 total warnings"), cachedRun.output());
+            }
+        }
+        daemonThread.join();
+
+        assertEquals(
+                AnalyzerClient.DAEMON_UNAVAILABLE_EXIT_STATUS,
+                runClient(socketPath.toString(), sources.toString()).exitStatus()
+        );
+    }
+
+    private static ClientRun runClient(final String... args) {
+        final ByteArrayOutputStream standardError = new ByteArrayOutputStream();
+        final int exitStatus = AnalyzerClient.run(args, new PrintStream(standardError, true, StandardCharsets.UTF_8));
+        return new ClientRun(exitStatus, standardError.toString(StandardCharsets.UTF_8));
+    }
+
+    private record ClientRun(int exitStatus, String output) {
+        // no methods
+    }
+}
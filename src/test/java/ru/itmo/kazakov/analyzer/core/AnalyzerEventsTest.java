@@ -0,0 +1,61 @@
+package ru.itmo.kazakov.analyzer.core;
+
+import com.github.javaparser.JavaParser;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import ru.itmo.kazakov.analyzer.rule.VariableCouldBeFinalRule;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class AnalyzerEventsTest {
+
+    @Test
+    public void testPhasesAreRecorded(@TempDir final Path rootPath) throws IOException {
+        final Path sourcePath = rootPath.resolve("Main.java");
+        Files.writeString(sourcePath, "class Main { void main() { int x = 0; } }");
+        final Path recordingPath = rootPath.resolve("recording.jfr");
+
+        try (final Recording recording = new Recording()) {
+            recording.enable("ru.itmo.kazakov.analyzer.*");
+            recording.start();
+
+            final AnalyzerWarningCrawler analyzerWarningCrawler = new AnalyzerWarningCrawlerImpl(
+                    new SourceCrawlerImpl(),
+                    new SourceFileReader(StandardCharsets.UTF_8),
+                    new SourceFileAnalyzer(
+                            new StaticAnalyzerImpl(List.of(new VariableCouldBeFinalRule())),
+                            new JavaParser(),
+                            SourceFileAnalyzer.Options.DEFAULT
+                    )
+            );
+            assertEquals(1, analyzerWarningCrawler.crawl(rootPath).count());
+
+            recording.stop();
+            recording.dump(recordingPath);
+        }
+
+        final Map<String, RecordedEvent> eventsByName = RecordingFile
+                .readAllEvents(recordingPath)
+                .stream()
+                .collect(Collectors.toMap(event -> event.getEventType().getName(), event -> event));
+
+        assertEquals(rootPath.toString(), eventsByName.get("ru.itmo.kazakov.analyzer.DirectoryCrawl").getString("path"));
+        assertEquals(1, eventsByName.get("ru.itmo.kazakov.analyzer.DirectoryCrawl").getInt("sourcesCount"));
+        assertEquals(Files.size(sourcePath), eventsByName.get("ru.itmo.kazakov.analyzer.FileRead").getLong("size"));
+        assertEquals(sourcePath.toString(), eventsByName.get("ru.itmo.kazakov.analyzer.FileParse").getString("path"));
+        assertEquals(1, eventsByName.get("ru.itmo.kazakov.analyzer.FileAnalyze").getInt("warningsCount"));
+        assertEquals("VariableCouldBeFinalRule", eventsByName.get("ru.itmo.kazakov.analyzer.RuleAnalyze").getString("ruleId"));
+        assertEquals(1, eventsByName.get("ru.itmo.kazakov.analyzer.RuleAnalyze").getInt("warningsCount"));
+    }
+}
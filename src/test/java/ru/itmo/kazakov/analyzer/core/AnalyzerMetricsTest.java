@@ -0,0 +1,48 @@
+package ru.itmo.kazakov.analyzer.core;
+
+import com.github.javaparser.JavaParser;
+import org.junit.jupiter.api.Test;
+import ru.itmo.kazakov.analyzer.rule.VariableCouldBeFinalRule;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class AnalyzerMetricsTest {
+
+    private static final String SOURCE = """
+            public class Main {
+                public static void main(final String[] args) {
+                    int x = 0;
+                }
+            }
+            """;
+
+    @Test
+    public void testFilesAndRulesAreMeasured() throws IOException {
+        final AnalyzerMetrics analyzerMetrics = new AnalyzerMetrics(1);
+        final SourceFileAnalyzer sourceFileAnalyzer = new SourceFileAnalyzer(
+                new StaticAnalyzerImpl(List.of(new VariableCouldBeFinalRule()), analyzerMetrics),
+                new JavaParser(),
+                SourceFileAnalyzer.Options.DEFAULT.withAnalyzerMetrics(analyzerMetrics)
+        );
+
+        assertEquals(1, sourceFileAnalyzer.analyze(new SourceFile(Path.of("First.java"), SOURCE)).size());
+        assertEquals(1, sourceFileAnalyzer.analyze(new SourceFile(Path.of("Second.java"), SOURCE)).size());
+
+        final StringWriter writer = new StringWriter();
+        analyzerMetrics.write(writer);
+        final String metrics = writer.toString();
+
+        assertTrue(metrics.contains("\"parse\":{\"count\":2,"), metrics);
+        assertTrue(metrics.contains("\"analyze\":{\"count\":2,"), metrics);
+        assertTrue(metrics.contains("{\"ruleId\":\"VariableCouldBeFinalRule\",\"metrics\":{\"count\":2,"), metrics);
+        assertTrue(metrics.contains("\"p99Nanos\":"), metrics);
+        assertEquals(1, metrics.split("\"path\":", -1).length - 1, metrics);
+        assertTrue(metrics.contains("\"allocatedBytesByThread\":{\"" + Thread.currentThread().getName() + "\":"), metrics);
+    }
+}
@@ -0,0 +1,40 @@
+package ru.itmo.kazakov.analyzer.core;
+
+import com.github.javaparser.Position;
+import com.github.javaparser.Range;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class AnalyzerWarningTest {
+
+    private static String render(final String messageTemplate, final String... messageArguments) {
+        return new AnalyzerWarning("SomeRule", messageTemplate, List.of(messageArguments), null).message();
+    }
+
+    @Test
+    public void testMessageIsRenderedFromTemplate() {
+        assertEquals("Unknown variable could be final", render("Unknown variable could be final"));
+        assertEquals("Variable x could be final", render("Variable {} could be final", "x"));
+        assertEquals("Variables [x, y, z] could be final", render("Variables [{...}] could be final", "x", "y", "z"));
+        assertEquals("x then y, z", render("{} then {...}", "x", "y", "z"));
+        assertEquals("{x} {} {", render("{{}} {} {", "x"));
+    }
+
+    @Test
+    public void testPositionsArePackedLosslessly() {
+        final Range range = new Range(new Position(1, 1), new Position(Integer.MAX_VALUE, Integer.MAX_VALUE));
+        final AnalyzerWarning warning = new AnalyzerWarning("SomeRule", "message", List.of(), range);
+
+        assertEquals(Optional.of(range.begin), warning.beginPosition());
+        assertEquals(Optional.of(range.end), warning.endPosition());
+
+        final AnalyzerWarning unpositionedWarning = new AnalyzerWarning("SomeRule", "message", List.of(), null);
+
+        assertEquals(Optional.empty(), unpositionedWarning.beginPosition());
+        assertEquals(Optional.empty(), unpositionedWarning.endPosition());
+    }
+}
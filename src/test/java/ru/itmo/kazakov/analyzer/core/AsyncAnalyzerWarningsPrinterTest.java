@@ -0,0 +1,166 @@
+package ru.itmo.kazakov.analyzer.core;
+
+import com.github.javaparser.Position;
+import com.github.javaparser.Range;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class AsyncAnalyzerWarningsPrinterTest {
+
+    private static final List<SourceAwareAnalyzerWarning> WARNINGS = List.of(
+            new SourceAwareAnalyzerWarning(
+                    new AnalyzerWarning("SomeRule", "Variable {} could be final", List.of("a"), new Range(new Position(3, 9), new Position(3, 18))),
+                    Path.of("src", "A.java")
+            ),
+            new SourceAwareAnalyzerWarning(
+                    new AnalyzerWarning("OtherRule", "Quote \" and\ttab", List.of(), null),
+                    Path.of("dir with space", "B.java")
+            )
+    );
+
+    @Test
+    public void testTextFormat() {
+        assertEquals(
+                "Warning in A.java starting at (line 3,col 9) and ending at (line 3,col 18) with message Variable a could be final"
+                        + System.lineSeparator()
+                        + "Warning in B.java starting at unknown position with message Quote \" and\ttab"
+                        + System.lineSeparator()
+                        + "Found 2 total warnings"
+                        + System.lineSeparator(),
+                print(AnalyzerWarningsFormat.TEXT)
+        );
+    }
+
+    @Test
+    public void testJsonLinesFormat() {
+        assertEquals(
+                "{\"file\":\"src/A.java\",\"ruleId\":\"SomeRule\",\"message\":\"Variable a could be final\","
+                        + "\"beginLine\":3,\"beginColumn\":9,\"endLine\":3,\"endColumn\":18}\n"
+                        + "{\"file\":\"dir with space/B.java\",\"ruleId\":\"OtherRule\",\"message\":\"Quote \\\" and\\ttab\"}\n"
+                        + "{\"warningsCount\":2}\n",
+                print(AnalyzerWarningsFormat.JSON_LINES)
+        );
+    }
+
+    @Test
+    public void testSkippedFilesAreSummarized() {
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try (final AsyncAnalyzerWarningsPrinter printer = AsyncAnalyzerWarningsPrinter.start(output, AnalyzerWarningsFormat.JSON_LINES)) {
+            printer.prettyPrint(new AnalyzerWarningStatistics(
+                    0,
+                    List.of(new SkippedSourceFile(Path.of("Large.java"), "Exceeded the time budget", 1_500_000_000L))
+            ));
+        }
+
+        assertEquals(
+                "{\"warningsCount\":0,\"skippedFiles\":"
+                        + "[{\"file\":\"Large.java\",\"reason\":\"Exceeded the time budget\",\"elapsedMillis\":1500}]}\n",
+                output.toString(StandardCharsets.UTF_8)
+        );
+    }
+
+    @Test
+    public void testSarifFormat() {
+        assertEquals(
+                "{\"$schema\":\"https://json.schemastore.org/sarif-2.1.0.json\",\"version\":\"2.1.0\","
+                        + "\"runs\":[{\"tool\":{\"driver\":{\"name\":\"StaticAnalysis\"}},\"results\":[\n"
+                        + "{\"ruleId\":\"SomeRule\",\"level\":\"warning\",\"message\":{\"text\":\"Variable a could be final\"},"
+                        + "\"locations\":[{\"physicalLocation\":{\"artifactLocation\":{\"uri\":\"src/A.java\"},"
+                        + "\"region\":{\"startLine\":3,\"startColumn\":9,\"endLine\":3,\"endColumn\":19}}}]},\n"
+                        + "{\"ruleId\":\"OtherRule\",\"level\":\"warning\",\"message\":{\"text\":\"Quote \\\" and\\ttab\"},"
+                        + "\"locations\":[{\"physicalLocation\":{\"artifactLocation\":{\"uri\":\"dir%20with%20space/B.java\"}}}]}\n"
+                        + "],\"properties\":{\"warningsCount\":2}}]}\n",
+                print(AnalyzerWarningsFormat.SARIF)
+        );
+    }
+
+    @Test
+    public void testWarningsFromSeveralThreadsAreAllWritten() throws Exception {
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+
+        try (final AsyncAnalyzerWarningsPrinter printer = AsyncAnalyzerWarningsPrinter.start(output, AnalyzerWarningsFormat.JSON_LINES)) {
+            final List<Future<?>> producers = IntStream
+                    .range(0, 4)
+                    .<Future<?>>mapToObj(i -> executor.submit(() -> {
+                        for (int j = 0; j < 5000; j++) {
+                            printer.prettyPrint(WARNINGS.get(j % WARNINGS.size()));
+                        }
+                    }))
+                    .toList();
+            for (final Future<?> producer : producers) {
+                producer.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(20000, output.toString(StandardCharsets.UTF_8).lines().count());
+    }
+
+    @Test
+    public void testPrintingWaitsWhileQueueIsFull() throws Exception {
+        final CountDownLatch outputBlocked = new CountDownLatch(1);
+        final CountDownLatch outputUnblocked = new CountDownLatch(1);
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        final OutputStream blockedOutput = new FilterOutputStream(output) {
+
+            @Override
+            public void flush() throws IOException {
+                outputBlocked.countDown();
+                try {
+                    outputUnblocked.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException();
+                }
+                super.flush();
+            }
+        };
+
+        try (final AsyncAnalyzerWarningsPrinter printer = AsyncAnalyzerWarningsPrinter.start(blockedOutput, AnalyzerWarningsFormat.JSON_LINES, 2)) {
+            printer.prettyPrint(WARNINGS.get(0));
+            outputBlocked.await();
+
+            final Thread producer = Thread.ofPlatform().start(() -> {
+                for (int i = 0; i < 100; i++) {
+                    printer.prettyPrint(WARNINGS.get(i % WARNINGS.size()));
+                }
+            });
+
+            while (producer.getState() != Thread.State.WAITING) {
+                assertTrue(producer.isAlive(), "Producer finished without waiting for the writer");
+                Thread.onSpinWait();
+            }
+            outputUnblocked.countDown();
+            producer.join();
+        }
+
+        assertEquals(101, output.toString(StandardCharsets.UTF_8).lines().count());
+    }
+
+    private static String print(final AnalyzerWarningsFormat format) {
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try (final AsyncAnalyzerWarningsPrinter printer = AsyncAnalyzerWarningsPrinter.start(output, format)) {
+            WARNINGS.forEach(printer::prettyPrint);
+            printer.prettyPrint(new AnalyzerWarningStatistics(WARNINGS.size()));
+        }
+        return output.toString(StandardCharsets.UTF_8);
+    }
+}
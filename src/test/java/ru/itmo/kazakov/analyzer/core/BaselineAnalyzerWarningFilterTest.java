@@ -0,0 +1,65 @@
+package ru.itmo.kazakov.analyzer.core;
+
+import com.github.javaparser.JavaParser;
+import org.junit.jupiter.api.Test;
+import ru.itmo.kazakov.analyzer.rule.VariableCouldBeFinalRule;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class BaselineAnalyzerWarningFilterTest {
+
+    private static final Path ROOT_PATH = Path.of("project");
+    private static final Path SOURCE_PATH = ROOT_PATH.resolve("src").resolve("Main.java");
+
+    private static final String SOURCE = """
+            public class Main {
+                public static void main(final String[] args) {
+                    int x = 0;
+                    int y = 1;
+                    int y2 = 1;
+                }
+            }
+            """;
+
+    private static List<SourceAwareAnalyzerWarning> analyze(final String content, final AnalyzerWarningFilter filter) {
+        return new SourceFileAnalyzer(
+                new StaticAnalyzerImpl(List.of(new VariableCouldBeFinalRule())),
+                new JavaParser(),
+                SourceFileAnalyzer.Options.DEFAULT.withAnalyzerWarningFilter(filter)
+        ).analyze(new SourceFile(SOURCE_PATH, content));
+    }
+
+    private static BaselineAnalyzerWarningFilter recordBaseline() {
+        final BaselineRecorder baselineRecorder = new BaselineRecorder(new WarningFingerprinter(ROOT_PATH));
+
+        assertEquals(3, analyze(SOURCE, baselineRecorder).size());
+
+        return new BaselineAnalyzerWarningFilter(baselineRecorder.createIndex(), new WarningFingerprinter(ROOT_PATH));
+    }
+
+    @Test
+    public void testBaselineWarningsSurviveLineShifts() {
+        final BaselineAnalyzerWarningFilter filter = recordBaseline();
+
+        assertEquals(List.of(), analyze(SOURCE, filter));
+        assertEquals(List.of(), analyze("import java.util.List;\n\n" + SOURCE.replace("    ", "\t"), filter));
+    }
+
+    @Test
+    public void testNewWarningsAreKept() {
+        final BaselineAnalyzerWarningFilter filter = recordBaseline();
+
+        final List<SourceAwareAnalyzerWarning> warnings = analyze(
+                SOURCE.replace("int x = 0;", "int x = 0;\n        int z = 2;\n        int x2 = 0;"),
+                filter
+        );
+
+        assertEquals(
+                List.of("Variable z could be final", "Variable x2 could be final"),
+                warnings.stream().map(warning -> warning.warning().message()).toList()
+        );
+    }
+}
@@ -0,0 +1,45 @@
+package ru.itmo.kazakov.analyzer.core;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class BaselineIndexTest {
+
+    @Test
+    public void testWrittenIndexIsReadBack(@TempDir final Path directory) throws IOException {
+        final long[] fingerprints = new Random(42).longs(100_000).toArray();
+        fingerprints[0] = 0;
+        fingerprints[1] = fingerprints[2];
+        final Path baselinePath = directory.resolve("baseline");
+
+        BaselineIndex.of(fingerprints).write(baselinePath);
+        final BaselineIndex baselineIndex = BaselineIndex.read(baselinePath);
+
+        assertEquals(fingerprints.length - 1, baselineIndex.size());
+        for (final long fingerprint : fingerprints) {
+            assertTrue(baselineIndex.contains(fingerprint));
+        }
+        final Random otherRandom = new Random(43);
+        for (int i = 0; i < 1000; i++) {
+            assertFalse(baselineIndex.contains(otherRandom.nextLong()));
+        }
+    }
+
+    @Test
+    public void testOtherFilesAreRejected(@TempDir final Path directory) throws IOException {
+        final Path otherPath = directory.resolve("other");
+        Files.writeString(otherPath, "not a baseline at all");
+
+        assertThrows(IOException.class, () -> BaselineIndex.read(otherPath));
+    }
+}
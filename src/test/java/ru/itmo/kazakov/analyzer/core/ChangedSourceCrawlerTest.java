@@ -0,0 +1,39 @@
+package ru.itmo.kazakov.analyzer.core;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class ChangedSourceCrawlerTest {
+
+    @Test
+    public void testOnlyCrawlableChangedSourcesAreReturned() throws IOException {
+        final Path crawlerDirectory = Path.of("src/test/resources/crawlerTest");
+        final List<Path> changedPaths = List.of(
+                Path.of("src/test/resources/crawlerTest/actualPackage/java.java"),
+                Path.of("src/test/resources/crawlerTest/very/deep/package/java.java").toAbsolutePath(),
+                Path.of("src/test/resources/crawlerTest/notAPackage.withDot/java.java"),
+                Path.of("src/test/resources/crawlerTest/someRandomFile"),
+                Path.of("src/test/resources/crawlerTest/deleted/java.java"),
+                Path.of("src/test/java/ru/itmo/kazakov/analyzer/core/ChangedSourceCrawlerTest.java")
+        );
+
+        final Set<Path> sourceFiles = new ChangedSourceCrawler(new SourceCrawlerImpl(), changedPaths)
+                .crawlSources(crawlerDirectory)
+                .collect(Collectors.toSet());
+
+        assertEquals(
+                Set.of(
+                        Path.of("src/test/resources/crawlerTest/very/deep/package/java.java"),
+                        Path.of("src/test/resources/crawlerTest/actualPackage/java.java")
+                ),
+                sourceFiles
+        );
+    }
+}
@@ -0,0 +1,93 @@
+package ru.itmo.kazakov.analyzer.core;
+
+import com.github.javaparser.JavaParser;
+import com.github.javaparser.ParserConfiguration;
+import com.github.javaparser.Position;
+import com.github.javaparser.Range;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import ru.itmo.kazakov.analyzer.rule.VariableCouldBeFinalRule;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class FileSystemAnalysisResultCacheTest {
+
+    private static final AnalysisResultCacheKey KEY = new AnalysisResultCacheKey(
+            "0123456789abcdef",
+            "SomeRule",
+            1,
+            ParserConfiguration.LanguageLevel.JAVA_21
+    );
+
+    @Test
+    public void testStoredWarningsAreReadBack(@TempDir final Path cacheDirectory) {
+        final FileSystemAnalysisResultCache cache = new FileSystemAnalysisResultCache(cacheDirectory);
+        final List<AnalyzerWarning> warnings = List.of(
+                new AnalyzerWarning(KEY.ruleId(), "first {}", List.of("argument"), new Range(new Position(1, 2), new Position(3, 4))),
+                new AnalyzerWarning(KEY.ruleId(), "second", List.of(), null)
+        );
+
+        assertEquals(Optional.empty(), cache.get(KEY));
+
+        cache.put(KEY, warnings);
+
+        assertEquals(Optional.of(warnings), cache.get(KEY));
+        assertEquals(Optional.of(warnings), new FileSystemAnalysisResultCache(cacheDirectory).get(KEY));
+    }
+
+    @Test
+    public void testEntriesAreSeparatedByRuleVersion(@TempDir final Path cacheDirectory) {
+        final FileSystemAnalysisResultCache cache = new FileSystemAnalysisResultCache(cacheDirectory);
+
+        cache.put(KEY, List.of());
+
+        assertEquals(
+                Optional.empty(),
+                cache.get(new AnalysisResultCacheKey(KEY.contentHash(), KEY.ruleId(), 2, KEY.languageLevel()))
+        );
+        assertEquals(
+                Optional.empty(),
+                cache.get(new AnalysisResultCacheKey(KEY.contentHash(), "OtherRule", 1, KEY.languageLevel()))
+        );
+    }
+
+    @Test
+    public void testCachedFileIsNotParsedAgain(@TempDir final Path cacheDirectory) {
+        final FileSystemAnalysisResultCache cache = new FileSystemAnalysisResultCache(cacheDirectory);
+        final StaticAnalyzerImpl staticAnalyzer = new StaticAnalyzerImpl(List.of(new VariableCouldBeFinalRule()));
+        final SourceFileAnalyzer sourceFileAnalyzer = new SourceFileAnalyzer(
+                staticAnalyzer,
+                new JavaParser(),
+                SourceFileAnalyzer.Options.DEFAULT.withAnalysisResultCache(cache)
+        );
+        final SourceFile sourceFile = new SourceFile(
+                Path.of("Main.java"),
+                """
+                        class Main {
+                            void main(int x) {
+                            }
+                        }
+                        """
+        );
+
+        final List<SourceAwareAnalyzerWarning> warnings = sourceFileAnalyzer.analyze(sourceFile);
+        final List<SourceAwareAnalyzerWarning> cachedWarnings = new SourceFileAnalyzer(
+                new StaticAnalyzerImpl(List.of(new VariableCouldBeFinalRule() {
+
+                    @Override
+                    public State analyze(final com.github.javaparser.ast.CompilationUnit compiledFile) {
+                        throw new AssertionError("Cached rule must not be run again");
+                    }
+                })),
+                new JavaParser(),
+                SourceFileAnalyzer.Options.DEFAULT.withAnalysisResultCache(cache)
+        ).analyze(sourceFile);
+
+        assertEquals(1, warnings.size());
+        assertEquals(warnings, cachedWarnings);
+    }
+}
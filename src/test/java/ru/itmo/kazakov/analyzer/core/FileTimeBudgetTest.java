@@ -0,0 +1,80 @@
+package ru.itmo.kazakov.analyzer.core;
+
+import com.github.javaparser.JavaParser;
+import org.junit.jupiter.api.Test;
+import ru.itmo.kazakov.analyzer.rule.StaticAnalyzerRule;
+import ru.itmo.kazakov.analyzer.rule.VariableCouldBeFinalRule;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class FileTimeBudgetTest {
+
+    private static final String SOURCE = "class Main { void main() { int x = 0; } }";
+
+    private static SourceFileAnalyzer createSourceFileAnalyzer(final List<StaticAnalyzerRule<? extends StaticAnalyzerRuleState>> rules,
+                                                               final FileTimeBudget fileTimeBudget) {
+        return new SourceFileAnalyzer(
+                new StaticAnalyzerImpl(rules),
+                new JavaParser(),
+                SourceFileAnalyzer.Options.DEFAULT.withFileTimeBudget(fileTimeBudget)
+        );
+    }
+
+    private static StaticAnalyzerRule<StaticAnalyzerRuleState> createSlowRule(final AtomicInteger startedSlowRulesCount) {
+        return compiledFile -> {
+            startedSlowRulesCount.incrementAndGet();
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(200));
+            return List::of;
+        };
+    }
+
+    @Test
+    public void testFilesWithinBudgetAreAnalyzed() {
+        final FileTimeBudget fileTimeBudget = new FileTimeBudget(10_000);
+
+        final List<SourceAwareAnalyzerWarning> warnings = createSourceFileAnalyzer(List.of(new VariableCouldBeFinalRule()), fileTimeBudget)
+                .analyze(new SourceFile(Path.of("Main.java"), SOURCE));
+
+        assertEquals(1, warnings.size());
+        assertEquals(List.of(), fileTimeBudget.getSkippedFiles());
+    }
+
+    @Test
+    public void testAnalysisOverBudgetIsSkipped() {
+        final FileTimeBudget fileTimeBudget = new FileTimeBudget(50);
+        final AtomicInteger startedSlowRulesCount = new AtomicInteger();
+        final SourceFileAnalyzer sourceFileAnalyzer = createSourceFileAnalyzer(
+                List.of(createSlowRule(startedSlowRulesCount), createSlowRule(startedSlowRulesCount), new VariableCouldBeFinalRule()),
+                fileTimeBudget
+        );
+
+        assertEquals(List.of(), sourceFileAnalyzer.analyze(new SourceFile(Path.of("Slow.java"), SOURCE)));
+
+        final List<SkippedSourceFile> skippedFiles = fileTimeBudget.getSkippedFiles();
+        assertEquals(1, skippedFiles.size());
+        assertEquals(Path.of("Slow.java"), skippedFiles.getFirst().path());
+        assertEquals("Exceeded the time budget of 50 ms while analyzing", skippedFiles.getFirst().reason());
+        assertEquals(1, startedSlowRulesCount.get());
+    }
+
+    @Test
+    public void testParsingOverBudgetIsInterrupted() {
+        final FileTimeBudget fileTimeBudget = new FileTimeBudget(1);
+        final String largeSource = "class Large {\n" + "    int[] table = {1, 2, 3, 4, 5, 6, 7, 8};\n".repeat(200_000) + "}\n";
+
+        final List<SourceAwareAnalyzerWarning> warnings = createSourceFileAnalyzer(List.of(new VariableCouldBeFinalRule()), fileTimeBudget)
+                .analyze(new SourceFile(Path.of("Large.java"), largeSource));
+
+        assertEquals(List.of(), warnings);
+        final SkippedSourceFile skippedFile = fileTimeBudget.getSkippedFiles().getFirst();
+        assertEquals("Exceeded the time budget of 1 ms while parsing", skippedFile.reason());
+        assertTrue(skippedFile.elapsedNanos() < TimeUnit.SECONDS.toNanos(30), skippedFile.elapsedNanos() + " ns");
+    }
+}
@@ -0,0 +1,130 @@
+package ru.itmo.kazakov.analyzer.core;
+
+import org.junit.jupiter.api.Test;
+import ru.itmo.kazakov.analyzer.rule.ParserFeature;
+
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.MemoryUsage;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class HeapBudgetTest {
+
+    private static final long HEAP_MAX_BYTES = 1000;
+    private static final long WAIT_MILLIS = 200;
+
+    @Test
+    public void testFilesWaitForBudget() throws Exception {
+        final HeapBudget heapBudget = new HeapBudget(100, 1, new FakeMemoryMXBean(new AtomicLong()));
+
+        heapBudget.acquire(60);
+        final CompletableFuture<Void> secondFile = acquireAsync(heapBudget, 60);
+
+        assertThrows(TimeoutException.class, () -> secondFile.get(WAIT_MILLIS, TimeUnit.MILLISECONDS));
+
+        heapBudget.release(60);
+        secondFile.get(WAIT_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    @Test
+    public void testFileLargerThanBudgetIsAdmittedAlone() throws Exception {
+        final HeapBudget heapBudget = new HeapBudget(100, 1, new FakeMemoryMXBean(new AtomicLong(HEAP_MAX_BYTES)));
+
+        heapBudget.acquire(500);
+        final CompletableFuture<Void> secondFile = acquireAsync(heapBudget, 1);
+
+        assertThrows(TimeoutException.class, () -> secondFile.get(WAIT_MILLIS, TimeUnit.MILLISECONDS));
+
+        heapBudget.release(500);
+        secondFile.get(WAIT_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    @Test
+    public void testFilesWaitForHeap() throws Exception {
+        final AtomicLong usedHeapBytes = new AtomicLong(HEAP_MAX_BYTES - 50);
+        final HeapBudget heapBudget = new HeapBudget(100, 1, new FakeMemoryMXBean(usedHeapBytes));
+
+        heapBudget.acquire(10);
+        final CompletableFuture<Void> secondFile = acquireAsync(heapBudget, 60);
+
+        assertThrows(TimeoutException.class, () -> secondFile.get(WAIT_MILLIS, TimeUnit.MILLISECONDS));
+        assertFalse(secondFile.isDone());
+
+        usedHeapBytes.set(HEAP_MAX_BYTES / 2);
+        secondFile.get(WAIT_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    @Test
+    public void testEstimateDependsOnKeptTokens() {
+        assertEquals(
+                HeapBudget.TOKENLESS_AST_BYTES_PER_SOURCE_CHAR,
+                HeapBudget.estimateAstBytesPerSourceChar(Set.of(ParserFeature.POSITIONS))
+        );
+        assertEquals(
+                HeapBudget.TOKENS_AST_BYTES_PER_SOURCE_CHAR,
+                HeapBudget.estimateAstBytesPerSourceChar(ParserFeature.JAVA_PARSER_DEFAULTS)
+        );
+        assertEquals(
+                HeapBudget.TOKENS_AST_BYTES_PER_SOURCE_CHAR,
+                HeapBudget.estimateAstBytesPerSourceChar(Set.of(ParserFeature.LEXICAL_PRESERVATION))
+        );
+    }
+
+    private static CompletableFuture<Void> acquireAsync(final HeapBudget heapBudget, final long estimatedBytes) {
+        return CompletableFuture.runAsync(() -> {
+            try {
+                heapBudget.acquire(estimatedBytes);
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+    }
+
+    private record FakeMemoryMXBean(AtomicLong usedHeapBytes) implements MemoryMXBean {
+
+        @Override
+        public MemoryUsage getHeapMemoryUsage() {
+            return new MemoryUsage(0, usedHeapBytes.get(), HEAP_MAX_BYTES, HEAP_MAX_BYTES);
+        }
+
+        @Override
+        public MemoryUsage getNonHeapMemoryUsage() {
+            return ManagementFactory.getMemoryMXBean().getNonHeapMemoryUsage();
+        }
+
+        @Override
+        @SuppressWarnings("deprecation")
+        public int getObjectPendingFinalizationCount() {
+            return 0;
+        }
+
+        @Override
+        public boolean isVerbose() {
+            return false;
+        }
+
+        @Override
+        public void setVerbose(final boolean value) {
+            // nothing to configure
+        }
+
+        @Override
+        public void gc() {
+            // nothing to collect
+        }
+
+        @Override
+        public ObjectName getObjectName() {
+            return ManagementFactory.getMemoryMXBean().getObjectName();
+        }
+    }
+}
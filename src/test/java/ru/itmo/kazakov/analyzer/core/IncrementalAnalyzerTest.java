@@ -0,0 +1,105 @@
+package ru.itmo.kazakov.analyzer.core;
+
+import com.github.javaparser.JavaParser;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import ru.itmo.kazakov.analyzer.rule.VariableCouldBeFinalRule;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class IncrementalAnalyzerTest {
+
+    private static final String ONE_WARNING_SOURCE = "class A { void f() { int x = 0; } }";
+    private static final String TWO_WARNINGS_SOURCE = "class A { void f() { int x = 0; int y = 0; } }";
+    private static final String NO_WARNINGS_SOURCE = "class A { }";
+
+    private static IncrementalAnalyzer createIncrementalAnalyzer(final Path rootPath) throws IOException {
+        final SourceCrawlerImpl sourceCrawler = new SourceCrawlerImpl();
+        final SourceFileReader sourceFileReader = new SourceFileReader(StandardCharsets.UTF_8);
+        final SourceFileAnalyzer sourceFileAnalyzer = new SourceFileAnalyzer(
+                new StaticAnalyzerImpl(List.of(new VariableCouldBeFinalRule())),
+                new JavaParser(),
+                SourceFileAnalyzer.Options.DEFAULT
+        );
+        final IncrementalAnalyzer incrementalAnalyzer =
+                new IncrementalAnalyzer(rootPath, sourceCrawler, sourceFileReader, sourceFileAnalyzer);
+
+        try (final Stream<SourceAwareAnalyzerWarning> warnings = new AnalyzerWarningCrawlerImpl(
+                sourceCrawler,
+                sourceFileReader,
+                sourceFileAnalyzer
+        ).crawl(rootPath)) {
+            warnings.forEach(incrementalAnalyzer::addWarning);
+        }
+        return incrementalAnalyzer;
+    }
+
+    private static Map<Path, Integer> countWarnings(final Map<Path, List<SourceAwareAnalyzerWarning>> warningsBySource) {
+        return warningsBySource
+                .entrySet()
+                .stream()
+                .collect(Collectors.toMap(Map.Entry::getKey, entry -> entry.getValue().size()));
+    }
+
+    @Test
+    public void testOnlyChangedSourcesAreUpdated(@TempDir final Path rootPath) throws IOException {
+        final Path first = Files.writeString(rootPath.resolve("First.java"), ONE_WARNING_SOURCE);
+        final Path second = Files.writeString(rootPath.resolve("Second.java"), ONE_WARNING_SOURCE);
+        final Path third = Files.writeString(rootPath.resolve("Third.java"), NO_WARNINGS_SOURCE);
+        final IncrementalAnalyzer incrementalAnalyzer = createIncrementalAnalyzer(rootPath);
+
+        assertEquals(2, incrementalAnalyzer.getWarningsCount());
+
+        Files.writeString(first, TWO_WARNINGS_SOURCE);
+        Files.delete(second);
+        final Path packageDirectory = Files.createDirectory(rootPath.resolve("pkg"));
+        final Path fourth = Files.writeString(packageDirectory.resolve("Fourth.java"), ONE_WARNING_SOURCE);
+
+        assertEquals(
+                Map.of(first, 2, second, 0, fourth, 1),
+                countWarnings(incrementalAnalyzer.update(List.of(first, second, packageDirectory)))
+        );
+        assertEquals(3, incrementalAnalyzer.getWarningsCount());
+
+        Files.writeString(third, ONE_WARNING_SOURCE);
+        Files.writeString(fourth, NO_WARNINGS_SOURCE);
+        Files.delete(fourth);
+        Files.delete(packageDirectory);
+
+        assertEquals(
+                Map.of(third, 1, fourth, 0),
+                countWarnings(incrementalAnalyzer.update(List.of(third, packageDirectory)))
+        );
+        assertEquals(3, incrementalAnalyzer.getWarningsCount());
+    }
+
+    @Test
+    public void testUnparsableSourceKeepsPreviousWarnings(@TempDir final Path rootPath) throws IOException {
+        final Path first = Files.writeString(rootPath.resolve("First.java"), ONE_WARNING_SOURCE);
+        final Path second = Files.writeString(rootPath.resolve("Second.java"), NO_WARNINGS_SOURCE);
+        final IncrementalAnalyzer incrementalAnalyzer = createIncrementalAnalyzer(rootPath);
+
+        Files.writeString(first, "class A { void f() { int x = 1 } }");
+        Files.writeString(second, ONE_WARNING_SOURCE);
+
+        assertEquals(Map.of(second, 1), countWarnings(incrementalAnalyzer.update(List.of(first, second))));
+        assertEquals(Set.of(first), incrementalAnalyzer.getParseProblems().keySet());
+        assertEquals(2, incrementalAnalyzer.getWarningsCount());
+
+        Files.writeString(first, TWO_WARNINGS_SOURCE);
+
+        assertEquals(Map.of(first, 2), countWarnings(incrementalAnalyzer.update(List.of(first))));
+        assertEquals(Map.of(), incrementalAnalyzer.getParseProblems());
+        assertEquals(3, incrementalAnalyzer.getWarningsCount());
+    }
+}
@@ -0,0 +1,79 @@
+package ru.itmo.kazakov.analyzer.core;
+
+import com.github.javaparser.JavaParser;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import ru.itmo.kazakov.analyzer.corpus.CorpusGenerator;
+import ru.itmo.kazakov.analyzer.corpus.CorpusParameters;
+import ru.itmo.kazakov.analyzer.rule.VariableCouldBeFinalRule;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+public class ParallelAnalyzerWarningCrawlerImplTest {
+
+    private static final Path FIXTURE_DIRECTORY = Path.of("src/test/resources/analyzer-fixtures/warnings");
+
+    private static StaticAnalyzer createStaticAnalyzer() {
+        return new StaticAnalyzerImpl(List.of(new VariableCouldBeFinalRule()));
+    }
+
+    private static List<SourceAwareAnalyzerWarning> crawl(
+            final AnalyzerWarningCrawler crawler,
+            final Path rootPath
+    ) throws IOException {
+        try (final Stream<SourceAwareAnalyzerWarning> warnings = crawler.crawl(rootPath)) {
+            return warnings.toList();
+        }
+    }
+
+    @Test
+    public void testSameWarningsAsSequentialCrawl() throws IOException {
+        assertSameWarningsAsSequentialCrawl(FIXTURE_DIRECTORY);
+    }
+
+    @Test
+    public void testSameWarningsAsSequentialCrawlOnGeneratedCorpus(@TempDir final Path rootPath) throws IOException {
+        new CorpusGenerator(CorpusParameters.DEFAULT.withFilesCount(300)).generate(rootPath);
+
+        assertSameWarningsAsSequentialCrawl(rootPath);
+    }
+
+    private static void assertSameWarningsAsSequentialCrawl(final Path rootPath) throws IOException {
+        final List<SourceAwareAnalyzerWarning> sequentialWarnings = crawl(new AnalyzerWarningCrawlerImpl(
+                createStaticAnalyzer(),
+                new SourceCrawlerImpl(),
+                new JavaParser()
+        ), rootPath);
+
+        for (final int workersCount : List.of(1, 2, 8)) {
+            final List<SourceAwareAnalyzerWarning> parallelWarnings = crawl(new ParallelAnalyzerWarningCrawlerImpl(
+                    new SourceCrawlerImpl(),
+                    new SourceFileReader(StandardCharsets.UTF_8),
+                    () -> new SourceFileAnalyzer(createStaticAnalyzer(), new JavaParser(), SourceFileAnalyzer.Options.DEFAULT),
+                    workersCount,
+                    workersCount * 2
+            ), rootPath);
+
+            assertEquals(sequentialWarnings, parallelWarnings);
+
+            final List<SourceAwareAnalyzerWarning> heapBudgetWarnings = crawl(new ParallelAnalyzerWarningCrawlerImpl(
+                    new SourceCrawlerImpl(),
+                    new SourceFileReader(StandardCharsets.UTF_8),
+                    () -> new SourceFileAnalyzer(createStaticAnalyzer(), new JavaParser(), SourceFileAnalyzer.Options.DEFAULT),
+                    workersCount,
+                    workersCount * 2,
+                    new HeapBudget(1, HeapBudget.TOKENS_AST_BYTES_PER_SOURCE_CHAR)
+            ), rootPath);
+
+            assertEquals(parallelWarnings, heapBudgetWarnings);
+        }
+        assertFalse(sequentialWarnings.isEmpty());
+    }
+}
@@ -1,12 +1,14 @@
 package ru.itmo.kazakov.analyzer.core;
 
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import ru.itmo.kazakov.analyzer.corpus.CorpusGenerator;
+import ru.itmo.kazakov.analyzer.corpus.CorpusParameters;
 
-import java.io.File;
 import java.io.IOException;
 import java.nio.file.Path;
-import java.util.Set;
-import java.util.stream.Collectors;
+import java.util.List;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 
@@ -16,17 +18,34 @@ public class SourceCrawlerImplTest {
     public void testCrawl() throws IOException {
         final Path crawlerDirectory = Path.of("src/test/resources/crawlerTest");
 
-        final Set<File> sourceFiles = new SourceCrawlerImpl()
+        final List<Path> sourceFiles = new SourceCrawlerImpl()
                 .crawlSources(crawlerDirectory)
-                .collect(Collectors.toSet());
+                .toList();
 
         assertEquals(
-                Set.of(
-                        Path.of("src/test/resources/crawlerTest/java.java").toFile(),
-                        Path.of("src/test/resources/crawlerTest/very/deep/package/java.java").toFile(),
-                        Path.of("src/test/resources/crawlerTest/actualPackage/java.java").toFile()
+                List.of(
+                        Path.of("src/test/resources/crawlerTest/java.java"),
+                        Path.of("src/test/resources/crawlerTest/actualPackage/java.java"),
+                        Path.of("src/test/resources/crawlerTest/very/deep/package/java.java")
                 ),
                 sourceFiles
         );
     }
+
+    @Test
+    public void testParallelCrawlOrderIsDeterministic(@TempDir final Path rootPath) throws IOException {
+        new CorpusGenerator(CorpusParameters.DEFAULT.withFilesCount(300)).generate(rootPath);
+
+        final List<Path> sequentialSources = crawl(new SourceCrawlerImpl(1), rootPath);
+        for (int i = 0; i < 5; i++) {
+            assertEquals(sequentialSources, crawl(new SourceCrawlerImpl(8), rootPath));
+        }
+        assertEquals(300, sequentialSources.size());
+    }
+
+    private static List<Path> crawl(final SourceCrawler sourceCrawler, final Path rootPath) throws IOException {
+        try (final Stream<Path> sources = sourceCrawler.crawlSources(rootPath)) {
+            return sources.toList();
+        }
+    }
 }
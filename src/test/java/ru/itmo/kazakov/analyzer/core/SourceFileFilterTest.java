@@ -0,0 +1,91 @@
+package ru.itmo.kazakov.analyzer.core;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class SourceFileFilterTest {
+
+    private static final String SOURCE = "class A {\n    int a = 1;\n}\n";
+
+    @Test
+    public void testGeneratedCodeIsExcludedByHeaderMarkers() {
+        final SourceFileFilter sourceFileFilter = new SourceFileFilter(Path.of(""), List.of(), Long.MAX_VALUE, Long.MAX_VALUE, true);
+
+        assertFalse(sourceFileFilter.acceptsContent(toBytes(
+                "// Generated by the protocol buffer compiler.  DO NOT EDIT!\n" + SOURCE
+        )));
+        assertFalse(sourceFileFilter.acceptsContent(toBytes(
+                "import javax.annotation.processing.Generated;\n@Generated(\"Processor\")\n" + SOURCE
+        )));
+        assertFalse(sourceFileFilter.acceptsContent(toBytes("// Generated from Java.g4 by ANTLR 4.13\n" + SOURCE)));
+        assertFalse(sourceFileFilter.acceptsContent(toBytes(SOURCE + "@Generated")));
+        assertTrue(sourceFileFilter.acceptsContent(toBytes(SOURCE)));
+        assertTrue(sourceFileFilter.acceptsContent(toBytes(
+                "import jakarta.persistence.GeneratedValue;\nclass A {\n    @Id @GeneratedValue\n    long id;\n}\n"
+        )));
+        assertTrue(sourceFileFilter.acceptsContent(toBytes("@GeneratedBy(Factory.class)\n" + SOURCE)));
+        assertTrue(sourceFileFilter.acceptsContent(toBytes(
+                " ".repeat(SourceFileFilter.HEADER_SCAN_BYTES) + "// DO NOT EDIT\n" + SOURCE
+        )));
+        assertEquals(Map.of(SourceFileFilter.ExclusionReason.GENERATED, 4L), sourceFileFilter.getExcludedFilesCounts());
+    }
+
+    @Test
+    public void testLinesAreCountedOverRawBytes() {
+        final SourceFileFilter sourceFileFilter = new SourceFileFilter(Path.of(""), List.of(), Long.MAX_VALUE, 3, false);
+
+        assertTrue(sourceFileFilter.acceptsContent(toBytes("")));
+        assertTrue(sourceFileFilter.acceptsContent(toBytes(SOURCE)));
+        assertTrue(sourceFileFilter.acceptsContent(toBytes(SOURCE.strip())));
+        assertTrue(sourceFileFilter.acceptsContent(toBytes("\n\n\n")));
+        assertFalse(sourceFileFilter.acceptsContent(toBytes(SOURCE + "\n")));
+        assertFalse(sourceFileFilter.acceptsContent(toBytes("\n\n\nclass B {}")));
+        assertFalse(sourceFileFilter.acceptsContent(toBytes("class B {\n\n\n\n\n\n\n\n\n}")));
+        assertEquals(Map.of(SourceFileFilter.ExclusionReason.LINES, 3L), sourceFileFilter.getExcludedFilesCounts());
+    }
+
+    @Test
+    public void testExcludedFilesAreNotRead(@TempDir final Path directory) throws IOException {
+        final SourceFileFilter sourceFileFilter = new SourceFileFilter(directory, List.of("**/generated/**"), 64, Long.MAX_VALUE, true);
+        final SourceFileReader sourceFileReader = new SourceFileReader(
+                StandardCharsets.UTF_8,
+                SourceFileReader.DEFAULT_MEMORY_MAPPING_THRESHOLD,
+                sourceFileFilter
+        );
+        Files.createDirectories(directory.resolve("main/generated"));
+        final Path acceptedPath = Files.writeString(directory.resolve("main/A.java"), SOURCE);
+        final Path excludedPath = Files.writeString(directory.resolve("main/generated/A.java"), SOURCE);
+        final Path largePath = Files.writeString(directory.resolve("main/B.java"), SOURCE.repeat(3));
+        final Path generatedPath = Files.writeString(directory.resolve("main/C.java"), "// DO NOT EDIT\n" + SOURCE);
+
+        assertEquals(Optional.of(new SourceFile(acceptedPath, SOURCE)), sourceFileReader.read(acceptedPath));
+        assertEquals(Optional.empty(), sourceFileReader.read(excludedPath));
+        assertEquals(Optional.empty(), sourceFileReader.read(largePath));
+        assertEquals(Optional.empty(), sourceFileReader.read(generatedPath));
+        assertEquals(
+                Map.of(
+                        SourceFileFilter.ExclusionReason.PATH, 1L,
+                        SourceFileFilter.ExclusionReason.SIZE, 1L,
+                        SourceFileFilter.ExclusionReason.GENERATED, 1L
+                ),
+                sourceFileFilter.getExcludedFilesCounts()
+        );
+    }
+
+    private static ByteBuffer toBytes(final String content) {
+        return ByteBuffer.wrap(content.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,86 @@
+package ru.itmo.kazakov.analyzer.core;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class SourceFileReaderTest {
+
+    private static final int MEMORY_MAPPING_THRESHOLD = 64;
+
+    private static final String ASCII_SOURCE = "class A {\n    int a = 1;\n}\n";
+    private static final String NON_ASCII_SOURCE = "class Б {\n    String s = \"привет, 世界\";\n}\n";
+
+    @Test
+    public void testContentIsDecodedAsWithString(@TempDir final Path directory) throws IOException {
+        final List<byte[]> contents = List.of(
+                new byte[0],
+                ASCII_SOURCE.getBytes(StandardCharsets.UTF_8),
+                NON_ASCII_SOURCE.getBytes(StandardCharsets.UTF_8),
+                ASCII_SOURCE.repeat(10).getBytes(StandardCharsets.UTF_8),
+                NON_ASCII_SOURCE.repeat(10).getBytes(StandardCharsets.UTF_8),
+                new byte[]{'a', (byte) 0xC3, 'b', (byte) 0xFF, (byte) 0xE2, (byte) 0x82},
+                "a".repeat(MEMORY_MAPPING_THRESHOLD).getBytes(StandardCharsets.UTF_8)
+        );
+
+        for (final Charset charset : List.of(StandardCharsets.UTF_8, StandardCharsets.UTF_16LE, Charset.forName("windows-1251"))) {
+            final SourceFileReader sourceFileReader = new SourceFileReader(charset, MEMORY_MAPPING_THRESHOLD);
+
+            for (int i = 0; i < contents.size(); i++) {
+                final Path path = Files.write(directory.resolve(charset.name() + i + ".java"), contents.get(i));
+
+                assertEquals(
+                        Optional.of(new SourceFile(path, new String(contents.get(i), charset))),
+                        sourceFileReader.read(path),
+                        charset + " content " + i
+                );
+            }
+        }
+    }
+
+    @Test
+    public void testMissingFileIsSkipped(@TempDir final Path directory) {
+        final SourceFileReader sourceFileReader = new SourceFileReader(StandardCharsets.UTF_8);
+
+        assertEquals(Optional.empty(), sourceFileReader.read(directory.resolve("Missing.java")));
+    }
+
+    @Test
+    public void testIdleBuffersAreCapped(@TempDir final Path directory) throws Exception {
+        final int maxIdleSourceBuffers = 2;
+        final SourceFileReader sourceFileReader = new SourceFileReader(
+                StandardCharsets.UTF_8,
+                MEMORY_MAPPING_THRESHOLD,
+                null,
+                maxIdleSourceBuffers
+        );
+        final Path path = Files.writeString(directory.resolve("A.java"), ASCII_SOURCE);
+
+        try (final ExecutorService readers = Executors.newFixedThreadPool(16)) {
+            final List<Future<Optional<SourceFile>>> reads = IntStream
+                    .range(0, 1000)
+                    .mapToObj(i -> readers.submit(() -> sourceFileReader.read(path)))
+                    .toList();
+            for (final Future<Optional<SourceFile>> read : reads) {
+                assertEquals(Optional.of(new SourceFile(path, ASCII_SOURCE)), read.get());
+            }
+        }
+
+        final int idleSourceBuffersCount = sourceFileReader.getIdleSourceBuffersCount();
+        assertTrue(idleSourceBuffersCount >= 1 && idleSourceBuffersCount <= maxIdleSourceBuffers);
+    }
+}
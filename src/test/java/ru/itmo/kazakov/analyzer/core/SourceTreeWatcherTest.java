@@ -0,0 +1,36 @@
+package ru.itmo.kazakov.analyzer.core;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class SourceTreeWatcherTest {
+
+    @Test
+    public void testWatcherReportsSourcesInNewDirectories(@TempDir final Path rootPath) throws Exception {
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        try (final SourceTreeWatcher sourceTreeWatcher = new SourceTreeWatcher(rootPath, new SourceCrawlerImpl(), 100)) {
+            final Path packageDirectory = Files.createDirectory(rootPath.resolve("pkg"));
+            final Future<Set<Path>> firstBatch = executor.submit(sourceTreeWatcher::awaitChangedPaths);
+
+            assertEquals(Set.of(packageDirectory), firstBatch.get(10, TimeUnit.SECONDS));
+
+            final Path source = Files.writeString(packageDirectory.resolve("A.java"), "class A { }");
+            final Future<Set<Path>> secondBatch = executor.submit(sourceTreeWatcher::awaitChangedPaths);
+
+            assertTrue(secondBatch.get(10, TimeUnit.SECONDS).contains(source));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,215 @@
+package ru.itmo.kazakov.analyzer.core;
+
+import com.github.javaparser.JavaParser;
+import com.github.javaparser.ParserConfiguration;
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.body.ClassOrInterfaceDeclaration;
+import com.github.javaparser.resolution.declarations.ResolvedFieldDeclaration;
+import com.github.javaparser.resolution.declarations.ResolvedReferenceTypeDeclaration;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+public class SymbolSolverServiceTest {
+
+    private static final String SOURCE = """
+            package sample;
+
+            class Child extends Parent {
+                private final String name = "child";
+                private final java.util.List<Parent> parents = null;
+            }
+            """;
+
+    private static final List<String> EXPECTED_TYPES = List.of(
+            "sample.Parent",
+            "java.lang.String",
+            "java.util.List<sample.Parent>"
+    );
+
+    @Test
+    public void testTypesOfSourceRootsAndJdkAreResolved(@TempDir final Path sourceRoot) throws IOException {
+        final SymbolSolverService symbolSolverService = createSymbolSolverService(sourceRoot);
+
+        assertEquals(
+                EXPECTED_TYPES,
+                resolveTypes(symbolSolverService)
+        );
+        assertSame(
+                symbolSolverService.getJdkTypeSolver().tryToSolveType("java.lang.String"),
+                symbolSolverService.getJdkTypeSolver().tryToSolveType("java.lang.String")
+        );
+    }
+
+    @Test
+    public void testSourceRootTypesAreNotShadowedByAnalyzerClasspath(@TempDir final Path sourceRoot) throws IOException {
+        final SymbolSolverService symbolSolverService = createSymbolSolverService(sourceRoot);
+        Files.createDirectories(sourceRoot.resolve("com/github/javaparser"));
+        Files.writeString(sourceRoot.resolve("com/github/javaparser/JavaParser.java"), """
+                package com.github.javaparser;
+
+                public class JavaParser {
+                    public String shadowed;
+                }
+                """);
+
+        final CompilationUnit compiledSource = new JavaParser(
+                new ParserConfiguration().setSymbolResolver(symbolSolverService.createSymbolResolver())
+        ).parse("""
+                package sample;
+
+                class Child {
+                    private com.github.javaparser.JavaParser parser;
+                }
+                """).getResult().orElseThrow();
+
+        final ResolvedReferenceTypeDeclaration parser = compiledSource
+                .getClassByName("Child")
+                .orElseThrow()
+                .getFields()
+                .get(0)
+                .getVariable(0)
+                .getType()
+                .resolve()
+                .asReferenceType()
+                .getTypeDeclaration()
+                .orElseThrow();
+        assertEquals(
+                List.of("shadowed"),
+                parser.getDeclaredFields().stream().map(ResolvedFieldDeclaration::getName).toList()
+        );
+    }
+
+    @Test
+    public void testResolversAreUsedConcurrently(@TempDir final Path sourceRoot) throws Exception {
+        final SymbolSolverService symbolSolverService = createSymbolSolverService(sourceRoot);
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+
+        try {
+            final List<Future<List<String>>> resolvedTypes = IntStream
+                    .range(0, 16)
+                    .mapToObj(i -> executor.submit(() -> resolveTypes(symbolSolverService)))
+                    .toList();
+
+            for (final Future<List<String>> types : resolvedTypes) {
+                assertEquals(EXPECTED_TYPES, types.get());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testDeclarationsOfSourceRootsAreResolvedConcurrently(@TempDir final Path sourceRoot) throws Exception {
+        final SymbolSolverService symbolSolverService = createSymbolSolverService(sourceRoot);
+        final List<String> expectedMembers = resolveMembers(createSymbolSolverService(sourceRoot));
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+
+        try {
+            final List<Future<List<String>>> resolvedMembers = IntStream
+                    .range(0, 64)
+                    .mapToObj(i -> executor.submit(() -> resolveMembers(symbolSolverService)))
+                    .toList();
+
+            for (final Future<List<String>> members : resolvedMembers) {
+                assertEquals(expectedMembers, members.get());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(
+                List.of(
+                        "ancestor sample.GrandParent",
+                        "ancestor sample.Parent",
+                        "field ages java.util.Map<java.lang.String, java.lang.Integer>",
+                        "field name java.lang.String",
+                        "field name java.lang.String",
+                        "field parents java.util.List<sample.Parent>",
+                        "method sample.GrandParent.age() int",
+                        "method sample.Parent.greet(java.lang.String) java.lang.String"
+                ),
+                expectedMembers.stream().filter(member -> !member.contains("java.lang.Object")).toList()
+        );
+    }
+
+    private static SymbolSolverService createSymbolSolverService(final Path sourceRoot) throws IOException {
+        Files.createDirectories(sourceRoot.resolve("sample"));
+        Files.writeString(sourceRoot.resolve("sample/Parent.java"), """
+                package sample;
+
+                class Parent extends GrandParent {
+                    protected String name;
+
+                    String greet(final String greeting) {
+                        return greeting + name;
+                    }
+                }
+                """);
+        Files.writeString(sourceRoot.resolve("sample/GrandParent.java"), """
+                package sample;
+
+                import java.util.Map;
+
+                class GrandParent {
+                    protected Map<String, Integer> ages;
+
+                    int age() {
+                        return 0;
+                    }
+                }
+                """);
+
+        return new SymbolSolverService(List.of(sourceRoot), new ParserConfiguration());
+    }
+
+    /**
+     * Resolves everything the resolved declarations of the source roots compute and cache in their nodes.
+     */
+    private static List<String> resolveMembers(final SymbolSolverService symbolSolverService) {
+        final CompilationUnit compiledSource = new JavaParser(
+                new ParserConfiguration().setSymbolResolver(symbolSolverService.createSymbolResolver())
+        ).parse(SOURCE).getResult().orElseThrow();
+
+        final ResolvedReferenceTypeDeclaration child = compiledSource
+                .getClassByName("Child")
+                .orElseThrow()
+                .resolve();
+        return Stream
+                .<Stream<String>>of(
+                        child.getAllAncestors().stream().map(ancestor -> "ancestor " + ancestor.describe()),
+                        child.getAllFields().stream().map(field -> "field " + field.getName() + " " + field.getType().describe()),
+                        child.getAllMethods().stream().map(method -> "method " + method.getQualifiedSignature()
+                                + " " + method.returnType().describe())
+                )
+                .flatMap(members -> members)
+                .sorted()
+                .toList();
+    }
+
+    private static List<String> resolveTypes(final SymbolSolverService symbolSolverService) {
+        final CompilationUnit compiledSource = new JavaParser(
+                new ParserConfiguration().setSymbolResolver(symbolSolverService.createSymbolResolver())
+        ).parse(SOURCE).getResult().orElseThrow();
+
+        final ClassOrInterfaceDeclaration child = compiledSource.getClassByName("Child").orElseThrow();
+        return Stream
+                .concat(
+                        child.getExtendedTypes().stream(),
+                        child.getFields().stream().map(field -> field.getVariable(0).getType())
+                )
+                .map(type -> type.resolve().describe())
+                .toList();
+    }
+}
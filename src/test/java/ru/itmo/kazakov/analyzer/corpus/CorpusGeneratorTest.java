@@ -0,0 +1,65 @@
+package ru.itmo.kazakov.analyzer.corpus;
+
+import com.github.javaparser.JavaParser;
+import com.github.javaparser.ParseResult;
+import com.github.javaparser.ParserConfiguration;
+import com.github.javaparser.ast.CompilationUnit;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CorpusGeneratorTest {
+
+    private static final CorpusParameters PARAMETERS = CorpusParameters.DEFAULT.withFilesCount(50);
+
+    @Test
+    public void sameSeedSameCorpus() {
+        final CorpusGenerator generator = new CorpusGenerator(PARAMETERS);
+        final CorpusGenerator sameGenerator = new CorpusGenerator(PARAMETERS);
+        final CorpusGenerator otherSeedGenerator = new CorpusGenerator(PARAMETERS.withSeed(PARAMETERS.seed() + 1));
+
+        IntStream.range(0, PARAMETERS.filesCount()).forEach(fileIndex -> {
+            assertEquals(generator.generateSource(fileIndex), sameGenerator.generateSource(fileIndex));
+            assertNotEquals(
+                    generator.generateSource(fileIndex).content(),
+                    otherSeedGenerator.generateSource(fileIndex).content()
+            );
+        });
+    }
+
+    @Test
+    public void generatedSourcesAreValidJava(@TempDir final Path rootPath) throws IOException {
+        final CorpusStatistics statistics = new CorpusGenerator(PARAMETERS).generate(rootPath);
+        final JavaParser javaParser = new JavaParser(
+                new ParserConfiguration().setLanguageLevel(ParserConfiguration.LanguageLevel.JAVA_21)
+        );
+
+        try (final Stream<Path> paths = Files.walk(rootPath)) {
+            final long parsedFilesCount = paths
+                    .filter(Files::isRegularFile)
+                    .peek(path -> {
+                        final ParseResult<CompilationUnit> parseResult;
+                        try {
+                            parseResult = javaParser.parse(path);
+                        } catch (IOException e) {
+                            throw new RuntimeException(e);
+                        }
+                        assertTrue(parseResult.isSuccessful(), () -> path + ": " + parseResult.getProblems());
+                    })
+                    .count();
+
+            assertEquals(PARAMETERS.filesCount(), parsedFilesCount);
+            assertEquals(PARAMETERS.filesCount(), statistics.filesCount());
+        }
+        assertTrue(statistics.linesCount() > PARAMETERS.filesCount() * PARAMETERS.methodsPerClass());
+    }
+}
@@ -0,0 +1,258 @@
+package ru.itmo.kazakov.analyzer.rule;
+
+import com.github.javaparser.StaticJavaParser;
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.Modifier;
+import com.github.javaparser.ast.Node;
+import com.github.javaparser.ast.body.ClassOrInterfaceDeclaration;
+import com.github.javaparser.ast.body.MethodDeclaration;
+import com.github.javaparser.ast.body.Parameter;
+import com.github.javaparser.ast.comments.JavadocComment;
+import com.github.javaparser.ast.comments.LineComment;
+import com.github.javaparser.ast.expr.IntegerLiteralExpr;
+import com.github.javaparser.ast.expr.MarkerAnnotationExpr;
+import com.github.javaparser.ast.expr.MethodCallExpr;
+import com.github.javaparser.ast.expr.Name;
+import com.github.javaparser.ast.expr.NameExpr;
+import com.github.javaparser.ast.expr.SimpleName;
+import com.github.javaparser.ast.expr.SingleMemberAnnotationExpr;
+import com.github.javaparser.ast.expr.StringLiteralExpr;
+import com.github.javaparser.ast.expr.UnaryExpr;
+import com.github.javaparser.ast.stmt.BlockStmt;
+import com.github.javaparser.ast.stmt.CatchClause;
+import com.github.javaparser.ast.stmt.ExpressionStmt;
+import com.github.javaparser.ast.stmt.ReturnStmt;
+import com.github.javaparser.ast.stmt.TryStmt;
+import com.github.javaparser.ast.type.ClassOrInterfaceType;
+import com.github.javaparser.ast.type.PrimitiveType;
+import com.github.javaparser.ast.type.UnionType;
+import com.github.javaparser.ast.visitor.VoidVisitorAdapter;
+import org.junit.jupiter.api.Test;
+import ru.itmo.kazakov.analyzer.core.AnalyzerWarning;
+import ru.itmo.kazakov.analyzer.core.StaticAnalyzerRuleState;
+
+import javax.annotation.Nonnull;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class FusedNodeRuleEngineTest {
+
+    private static final String SOURCE = """
+            class A {
+                /** Calls g. */
+                @Deprecated
+                @SuppressWarnings("unused")
+                public static int f(final int a) throws Exception {
+                    try {
+                        g(a);
+                    } catch (final IllegalStateException | IllegalArgumentException e) {
+                        // ignored
+                        g(-1);
+                    } finally {
+                        g(0);
+                    }
+                    return a;
+                }
+            }
+            """;
+
+    @Test
+    public void nodesAreWalkedInVisitorAdapterOrder() {
+        final CompilationUnit compiledSource = StaticJavaParser.parse(SOURCE);
+        final RecordingVisitor visitor = new RecordingVisitor();
+        compiledSource.accept(visitor, null);
+
+        final RecordingRule.State ruleState = new RecordingRule().analyze(compiledSource);
+
+        assertEquals(describe(visitor.visitedNodes), describe(ruleState.enteredNodes));
+    }
+
+    private static List<String> describe(final List<Node> nodes) {
+        return nodes
+                .stream()
+                .map(node -> node.getClass().getSimpleName() + " " + node.getBegin().orElseThrow())
+                .toList();
+    }
+
+    private static class RecordingRule extends StaticAnalyzerNodeRule<RecordingRule.State> {
+
+        @Nonnull
+        @Override
+        public State createInitialState() {
+            return new State();
+        }
+
+        @Nonnull
+        @Override
+        public Set<Class<? extends Node>> getSubscribedNodeTypes() {
+            return Set.of(Node.class);
+        }
+
+        @Override
+        public void enter(@Nonnull final Node node, @Nonnull final State state) {
+            if (!(node instanceof CompilationUnit)) {
+                state.enteredNodes.add(node);
+            }
+        }
+
+        private static class State implements StaticAnalyzerRuleState {
+
+            private final List<Node> enteredNodes = new ArrayList<>();
+
+            @Nonnull
+            @Override
+            public List<AnalyzerWarning> getWarnings() {
+                return List.of();
+            }
+        }
+    }
+
+    /**
+     * Records every node type occurring in {@link #SOURCE}.
+     */
+    private static class RecordingVisitor extends VoidVisitorAdapter<Void> {
+
+        private final List<Node> visitedNodes = new ArrayList<>();
+
+        @Override
+        public void visit(final ClassOrInterfaceDeclaration n, final Void arg) {
+            visitedNodes.add(n);
+            super.visit(n, arg);
+        }
+
+        @Override
+        public void visit(final MethodDeclaration n, final Void arg) {
+            visitedNodes.add(n);
+            super.visit(n, arg);
+        }
+
+        @Override
+        public void visit(final Parameter n, final Void arg) {
+            visitedNodes.add(n);
+            super.visit(n, arg);
+        }
+
+        @Override
+        public void visit(final Modifier n, final Void arg) {
+            visitedNodes.add(n);
+            super.visit(n, arg);
+        }
+
+        @Override
+        public void visit(final JavadocComment n, final Void arg) {
+            visitedNodes.add(n);
+            super.visit(n, arg);
+        }
+
+        @Override
+        public void visit(final LineComment n, final Void arg) {
+            visitedNodes.add(n);
+            super.visit(n, arg);
+        }
+
+        @Override
+        public void visit(final MarkerAnnotationExpr n, final Void arg) {
+            visitedNodes.add(n);
+            super.visit(n, arg);
+        }
+
+        @Override
+        public void visit(final SingleMemberAnnotationExpr n, final Void arg) {
+            visitedNodes.add(n);
+            super.visit(n, arg);
+        }
+
+        @Override
+        public void visit(final StringLiteralExpr n, final Void arg) {
+            visitedNodes.add(n);
+            super.visit(n, arg);
+        }
+
+        @Override
+        public void visit(final IntegerLiteralExpr n, final Void arg) {
+            visitedNodes.add(n);
+            super.visit(n, arg);
+        }
+
+        @Override
+        public void visit(final UnaryExpr n, final Void arg) {
+            visitedNodes.add(n);
+            super.visit(n, arg);
+        }
+
+        @Override
+        public void visit(final MethodCallExpr n, final Void arg) {
+            visitedNodes.add(n);
+            super.visit(n, arg);
+        }
+
+        @Override
+        public void visit(final NameExpr n, final Void arg) {
+            visitedNodes.add(n);
+            super.visit(n, arg);
+        }
+
+        @Override
+        public void visit(final Name n, final Void arg) {
+            visitedNodes.add(n);
+            super.visit(n, arg);
+        }
+
+        @Override
+        public void visit(final SimpleName n, final Void arg) {
+            visitedNodes.add(n);
+            super.visit(n, arg);
+        }
+
+        @Override
+        public void visit(final PrimitiveType n, final Void arg) {
+            visitedNodes.add(n);
+            super.visit(n, arg);
+        }
+
+        @Override
+        public void visit(final ClassOrInterfaceType n, final Void arg) {
+            visitedNodes.add(n);
+            super.visit(n, arg);
+        }
+
+        @Override
+        public void visit(final UnionType n, final Void arg) {
+            visitedNodes.add(n);
+            super.visit(n, arg);
+        }
+
+        @Override
+        public void visit(final BlockStmt n, final Void arg) {
+            visitedNodes.add(n);
+            super.visit(n, arg);
+        }
+
+        @Override
+        public void visit(final ExpressionStmt n, final Void arg) {
+            visitedNodes.add(n);
+            super.visit(n, arg);
+        }
+
+        @Override
+        public void visit(final TryStmt n, final Void arg) {
+            visitedNodes.add(n);
+            super.visit(n, arg);
+        }
+
+        @Override
+        public void visit(final CatchClause n, final Void arg) {
+            visitedNodes.add(n);
+            super.visit(n, arg);
+        }
+
+        @Override
+        public void visit(final ReturnStmt n, final Void arg) {
+            visitedNodes.add(n);
+            super.visit(n, arg);
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package ru.itmo.kazakov.analyzer.rule;
+
+import com.github.javaparser.JavaParser;
+import com.github.javaparser.Position;
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.expr.VariableDeclarationExpr;
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ParserFeatureTest {
+
+    private static final String SOURCE = """
+            class A {
+                void f() {
+                    // counter
+                    int a = 1;
+                }
+            }
+            """;
+
+    @Test
+    public void testPositionsAreKeptWithoutTokensAndComments() {
+        final CompilationUnit compiledSource = parse(Set.of(ParserFeature.POSITIONS));
+        final VariableDeclarationExpr declaration = compiledSource.findFirst(VariableDeclarationExpr.class).orElseThrow();
+
+        assertEquals(new Position(4, 9), declaration.getBegin().orElseThrow());
+        assertEquals(new Position(4, 17), declaration.getEnd().orElseThrow());
+        assertTrue(compiledSource.stream().allMatch(node -> node.getTokenRange().isEmpty()));
+        assertTrue(compiledSource.getAllContainedComments().isEmpty());
+    }
+
+    @Test
+    public void testJavaParserDefaultsAreKept() {
+        final CompilationUnit compiledSource = parse(ParserFeature.JAVA_PARSER_DEFAULTS);
+        final CompilationUnit defaultCompiledSource = new JavaParser().parse(SOURCE).getResult().orElseThrow();
+
+        assertTrue(compiledSource.stream().allMatch(node -> node.getTokenRange().isPresent()));
+        assertEquals(defaultCompiledSource.getAllContainedComments(), compiledSource.getAllContainedComments());
+        assertFalse(compiledSource.getAllContainedComments().isEmpty());
+    }
+
+    private static CompilationUnit parse(final Set<ParserFeature> parserFeatures) {
+        return new JavaParser(ParserFeature.createParserConfiguration(parserFeatures))
+                .parse(SOURCE)
+                .getResult()
+                .orElseThrow();
+    }
+}
@@ -0,0 +1,106 @@
+package ru.itmo.kazakov.analyzer.rule;
+
+import com.github.javaparser.ast.CompilationUnit;
+import org.junit.jupiter.api.Test;
+import ru.itmo.kazakov.analyzer.core.StaticAnalyzerRuleState;
+
+import javax.annotation.Nonnull;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class StaticAnalyzerRuleRegistryTest {
+
+    @Test
+    public void testOnlyEnabledRulesAreCreated() {
+        final StaticAnalyzerRuleRegistry allRules = new StaticAnalyzerRuleRegistry();
+
+        assertInstanceOf(VariableCouldBeFinalRule.class, allRules.createRules().getFirst());
+        assertNotSame(allRules.createRules().getFirst(), allRules.createRules().getFirst());
+        assertEquals(
+                allRules.createRules().size(),
+                new StaticAnalyzerRuleRegistry(Set.of("VariableCouldBeFinalRule")).createRules().size()
+        );
+        assertEquals(List.of(), new StaticAnalyzerRuleRegistry(Set.of()).createRules());
+    }
+
+    @Test
+    public void testRulesCreatedForParserFeaturesAreCreatedOnlyOnce() {
+        final StaticAnalyzerRuleRegistry allRules = new StaticAnalyzerRuleRegistry();
+
+        final Set<ParserFeature> requiredParserFeatures = allRules.getRequiredParserFeatures();
+        final List<StaticAnalyzerRule<? extends StaticAnalyzerRuleState>> firstRules = allRules.createRules();
+        final List<StaticAnalyzerRule<? extends StaticAnalyzerRuleState>> secondRules = allRules.createRules();
+
+        assertEquals(
+                requiredParserFeatures,
+                firstRules
+                        .stream()
+                        .flatMap(rule -> rule.getRequiredParserFeatures().stream())
+                        .collect(Collectors.toSet())
+        );
+        assertSame(requiredParserFeatures, allRules.getRequiredParserFeatures());
+        assertNotSame(firstRules.getFirst(), secondRules.getFirst());
+        assertNotSame(secondRules.getFirst(), allRules.createRules().getFirst());
+    }
+
+    @Test
+    public void testRulesAreEnabledByTheirIds() {
+        final Set<String> ruleIds = new StaticAnalyzerRuleRegistry()
+                .createRules()
+                .stream()
+                .map(StaticAnalyzerRule::getId)
+                .collect(Collectors.toSet());
+
+        assertEquals(
+                ruleIds,
+                new StaticAnalyzerRuleRegistry(ruleIds)
+                        .createRules()
+                        .stream()
+                        .map(StaticAnalyzerRule::getId)
+                        .collect(Collectors.toSet())
+        );
+    }
+
+    @Test
+    public void testRuleIdsAreReadFromRuleClasses() {
+        final VariableCouldBeFinalRule rule = new VariableCouldBeFinalRule() {
+            // subclass keeps the id
+        };
+
+        assertEquals("VariableCouldBeFinalRule", StaticAnalyzerRule.getRuleId(VariableCouldBeFinalRule.class));
+        assertEquals("VariableCouldBeFinalRule", StaticAnalyzerRule.getRuleId(rule.getClass()));
+        assertEquals(StaticAnalyzerRule.getRuleId(rule.getClass()), rule.getId());
+    }
+
+    @Test
+    public void testUndeclaredRuleIdsAreStableClassNames() {
+        final StaticAnalyzerRule<VariableCouldBeFinalRule.State> anonymousRule = new StaticAnalyzerRule<>() {
+
+            @Nonnull
+            @Override
+            public VariableCouldBeFinalRule.State analyze(@Nonnull final CompilationUnit compiledFile) {
+                return new VariableCouldBeFinalRule.State();
+            }
+        };
+        final StaticAnalyzerRule<VariableCouldBeFinalRule.State> lambdaRule =
+                compiledFile -> new VariableCouldBeFinalRule.State();
+
+        assertEquals(anonymousRule.getClass().getName(), anonymousRule.getId());
+        assertThrows(IllegalArgumentException.class, lambdaRule::getId);
+    }
+
+    @Test
+    public void testUnknownRulesAreRejected() {
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> new StaticAnalyzerRuleRegistry(Set.of("VariableCouldBeFinalRule", "NoSuchRule"))
+        );
+    }
+}
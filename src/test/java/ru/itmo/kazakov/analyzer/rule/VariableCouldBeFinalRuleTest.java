@@ -3,6 +3,8 @@ package ru.itmo.kazakov.analyzer.rule;
 import com.github.javaparser.Position;
 import com.github.javaparser.StaticJavaParser;
 import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.Node;
+import com.github.javaparser.ast.expr.AssignExpr;
 import org.junit.jupiter.api.Test;
 import ru.itmo.kazakov.analyzer.core.AnalyzerWarning;
 import ru.itmo.kazakov.analyzer.core.StaticAnalyzerRuleState;
@@ -14,6 +16,7 @@ import java.util.Set;
 import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
 @SuppressWarnings("OptionalGetWithoutIsPresent")
 class VariableCouldBeFinalRuleTest {
@@ -757,4 +760,186 @@ class VariableCouldBeFinalRuleTest {
                 ruleState
         );
     }
+
+    @Test
+    public void shadowingVariableInAnonymousClass() {
+        final CompilationUnit compiledSource = StaticJavaParser.parse(
+                """
+                        package ru.itmo.kazakov.analyzer;
+                        public class Main {
+                            public static void main(final String[] args) throws Exception {
+                                int x = 0;
+                                final Runnable runnable = new Runnable() {
+                                    @Override
+                                    public void run() {
+                                        int x = 1;
+                                    }
+                                };
+                                x = 2;
+                            }
+                        }
+                        """
+        );
+
+        final VariableCouldBeFinalRule.State ruleState = new VariableCouldBeFinalRule().analyze(compiledSource);
+
+        assertWarningPositions(
+                Set.of(new Position(8, 17)),
+                ruleState
+        );
+    }
+
+    @Test
+    public void assignmentsToShadowingFieldAndLambdaParameter() {
+        final CompilationUnit compiledSource = StaticJavaParser.parse(
+                """
+                        package ru.itmo.kazakov.analyzer;
+                        public class Main {
+                            public static void main(final String[] args) throws Exception {
+                                int x = 0;
+                                final Object object = new Object() {
+                                    int x;
+                                    void update() {
+                                        x = 1;
+                                        (x) = 2;
+                                        final java.util.function.IntUnaryOperator operator = x -> ++x;
+                                    }
+                                };
+                                int y = 0;
+                                (y)++;
+                            }
+                        }
+                        """
+        );
+
+        final VariableCouldBeFinalRule.State ruleState = new VariableCouldBeFinalRule().analyze(compiledSource);
+
+        assertWarningPositions(
+                Set.of(new Position(4, 9)),
+                ruleState
+        );
+    }
+
+    @Test
+    public void nestedFramesRollBackOnlyTheirOwnAssignments() {
+        final CompilationUnit compiledSource = StaticJavaParser.parse(
+                """
+                        package ru.itmo.kazakov.analyzer;
+                        public class Main {
+                            public static void main(final String[] args) throws Exception {
+                                int x;
+                                int y = 0;
+                                int z;
+                                if (args.length > 0) {
+                                    x = 1;
+                                    if (args.length > 1) {
+                                        z = 1;
+                                    } else {
+                                        z = 2;
+                                    }
+                                    while (args.length > 2) {
+                                        y = 1;
+                                    }
+                                } else {
+                                    x = 2;
+                                    z = 3;
+                                }
+                            }
+                        }
+                        """
+        );
+
+        final VariableCouldBeFinalRule.State ruleState = new VariableCouldBeFinalRule().analyze(compiledSource);
+
+        assertWarningPositions(
+                Set.of(new Position(4, 9), new Position(6, 9)),
+                ruleState
+        );
+    }
+
+    @Test
+    public void framesLeftByJumpsRollBackOnlyTheirOwnAssignments() {
+        final CompilationUnit compiledSource = StaticJavaParser.parse(
+                """
+                        package ru.itmo.kazakov.analyzer;
+                        public class Main {
+                            public static void main(final String[] args) throws Exception {
+                                int x;
+                                int y = 0;
+                                for (final String arg : args) {
+                                    int z = 0;
+                                    if (arg.isEmpty()) {
+                                        y = 1;
+                                        throw new IllegalArgumentException();
+                                    }
+                                    while (arg.length() > 1) {
+                                        if (arg.length() > 2) {
+                                            break;
+                                        }
+                                        return;
+                                    }
+                                }
+                                x = 1;
+                            }
+                        }
+                        """
+        );
+
+        final VariableCouldBeFinalRule.State ruleState = new VariableCouldBeFinalRule().analyze(compiledSource);
+
+        assertWarningPositions(
+                Set.of(new Position(4, 9), new Position(7, 13)),
+                ruleState
+        );
+    }
+
+    @Test
+    public void framesLeftOpenByFailedAnalysisDoNotAffectNextOne() {
+        final VariableCouldBeFinalRule rule = new VariableCouldBeFinalRule() {
+            @Override
+            public void enter(@Nonnull final Node node, @Nonnull final State state) {
+                super.enter(node, state);
+                if (node instanceof AssignExpr assignExpr && assignExpr.getTarget().toString().equals("abort")) {
+                    throw new IllegalStateException("Analysis failed inside nested frames");
+                }
+            }
+        };
+        final CompilationUnit failingSource = StaticJavaParser.parse(
+                """
+                        package ru.itmo.kazakov.analyzer;
+                        public class Main {
+                            public static void main(final String[] args) throws Exception {
+                                int x = 0;
+                                int abort = 0;
+                                while (args.length > 0) {
+                                    if (args.length > 1) {
+                                        x = 1;
+                                        abort = 1;
+                                    }
+                                }
+                            }
+                        }
+                        """
+        );
+        final CompilationUnit compiledSource = StaticJavaParser.parse(
+                """
+                        package ru.itmo.kazakov.analyzer;
+                        public class Main {
+                            public static void main(final String[] args) throws Exception {
+                                int x = 0;
+                                if (args.length > 1) {
+                                    int y = 0;
+                                }
+                            }
+                        }
+                        """
+        );
+
+        assertThrows(IllegalStateException.class, () -> rule.analyze(failingSource));
+
+        assertWarningPositions(
+                Set.of(new Position(4, 9), new Position(6, 13)),
+                rule.analyze(compiledSource)
+        );
+    }
 }
@@ -0,0 +1,39 @@
+package ru.itmo.kazakov.analyzer.rule.primitive;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class IntIntArrayMapTest {
+
+    @Test
+    public void valuesAreStoredByKey() {
+        final IntIntArrayMap map = new IntIntArrayMap();
+
+        map.put(3, 7);
+        assertEquals(7, map.get(3, -1));
+        assertEquals(-1, map.get(4, -1));
+
+        map.put(3, Integer.MIN_VALUE);
+        assertEquals(Integer.MIN_VALUE, map.get(3, -1));
+
+        map.remove(3);
+        assertEquals(-1, map.get(3, -1));
+    }
+
+    @Test
+    public void valuesSurviveGrowth() {
+        final IntIntArrayMap map = new IntIntArrayMap();
+        final int keysCount = 10_000;
+
+        for (int key = 0; key < keysCount; key += 3) {
+            map.put(key, key * 2);
+        }
+        map.put(keysCount * 10, 7);
+
+        for (int key = 0; key < keysCount; key++) {
+            assertEquals(key % 3 == 0 ? key * 2 : -1, map.get(key, -1), "key " + key);
+        }
+        assertEquals(7, map.get(keysCount * 10, -1));
+    }
+}
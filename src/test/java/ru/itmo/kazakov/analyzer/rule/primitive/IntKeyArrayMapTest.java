@@ -0,0 +1,65 @@
+package ru.itmo.kazakov.analyzer.rule.primitive;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IntKeyArrayMapTest {
+
+    @Test
+    public void keysArePresentUntilRemovedOrCleared() {
+        final RecordingMap map = new RecordingMap();
+
+        map.add(1);
+        map.add(1);
+        map.add(1_000_000);
+        assertTrue(map.containsKey(1));
+        assertTrue(map.containsKey(1_000_000));
+        assertFalse(map.containsKey(0));
+        assertFalse(map.containsKey(2_000_000));
+
+        map.remove(1);
+        assertFalse(map.containsKey(1));
+        assertTrue(map.containsKey(1_000_000));
+
+        map.add(2);
+        map.clear();
+        assertFalse(map.containsKey(2));
+        assertFalse(map.containsKey(1_000_000));
+    }
+
+    @Test
+    public void valuesGrowOnlyForKeysThatDoNotFit() {
+        final RecordingMap map = new RecordingMap();
+
+        map.add(IntKeyArrayMap.INITIAL_CAPACITY - 1);
+        assertEquals(List.of(), map.grownCapacities);
+
+        map.add(IntKeyArrayMap.INITIAL_CAPACITY);
+        assertEquals(List.of(IntKeyArrayMap.INITIAL_CAPACITY * 2), map.grownCapacities);
+
+        map.add(10_000);
+        map.remove(10_000);
+        map.add(10_000);
+        assertEquals(List.of(IntKeyArrayMap.INITIAL_CAPACITY * 2, 10_001), map.grownCapacities);
+    }
+
+    private static final class RecordingMap extends IntKeyArrayMap {
+
+        private final List<Integer> grownCapacities = new ArrayList<>();
+
+        private void add(final int key) {
+            addKey(key);
+        }
+
+        @Override
+        protected void growValues(final int newCapacity) {
+            grownCapacities.add(newCapacity);
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package ru.itmo.kazakov.analyzer.rule.primitive;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class IntLongArrayMapTest {
+
+    @Test
+    public void valuesAreStoredByKey() {
+        final IntLongArrayMap map = new IntLongArrayMap();
+
+        map.put(3, 7L);
+        assertEquals(7L, map.get(3, -1L));
+        assertEquals(-1L, map.get(4, -1L));
+
+        map.put(3, Long.MAX_VALUE);
+        assertEquals(Long.MAX_VALUE, map.get(3, -1L));
+
+        map.remove(3);
+        assertEquals(-1L, map.get(3, -1L));
+    }
+
+    @Test
+    public void valuesSurviveGrowth() {
+        final IntLongArrayMap map = new IntLongArrayMap();
+        final int keysCount = 10_000;
+
+        for (int key = 0; key < keysCount; key += 3) {
+            map.put(key, Integer.MAX_VALUE + (long) key);
+        }
+        map.put(keysCount * 10, 7L);
+
+        for (int key = 0; key < keysCount; key++) {
+            assertEquals(key % 3 == 0 ? Integer.MAX_VALUE + (long) key : -1L, map.get(key, -1L), "key " + key);
+        }
+        assertEquals(7L, map.get(keysCount * 10, -1L));
+    }
+}
@@ -0,0 +1,36 @@
+package ru.itmo.kazakov.analyzer.rule.primitive;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class SymbolInternerTest {
+
+    @Test
+    public void internedSymbolsGetDenseStableIds() {
+        final SymbolInterner symbolInterner = new SymbolInterner();
+
+        assertEquals(0, symbolInterner.intern("x"));
+        assertEquals(1, symbolInterner.intern("y"));
+        assertEquals(0, symbolInterner.intern(new String(new char[]{'x'})));
+        assertEquals(1, symbolInterner.find("y"));
+        assertEquals(SymbolInterner.UNKNOWN_SYMBOL, symbolInterner.find("z"));
+        assertEquals(2, symbolInterner.size());
+    }
+
+    @Test
+    public void manySymbols() {
+        final SymbolInterner symbolInterner = new SymbolInterner();
+        final int symbolsCount = 10_000;
+
+        IntStream.range(0, symbolsCount).forEach(i -> assertEquals(i, symbolInterner.intern("symbol" + i)));
+
+        IntStream.range(0, symbolsCount).forEach(i -> {
+            assertEquals(i, symbolInterner.find("symbol" + i));
+            assertEquals("symbol" + i, symbolInterner.getSymbol(i));
+        });
+        assertEquals(symbolsCount, symbolInterner.size());
+    }
+}
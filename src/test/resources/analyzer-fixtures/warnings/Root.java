@@ -0,0 +1,8 @@
+package warnings;
+
+public class Root {
+    public int sum(int a, final int b) {
+        int result = a + b;
+        return result;
+    }
+}
@@ -0,0 +1,19 @@
+package warnings.first;
+
+public class Loops {
+    public int count(final int[] values) {
+        int count = 0;
+        for (int value : values) {
+            if (value > 0) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    public void noWarnings(final int limit) {
+        for (int i = 0; i < limit; i++) {
+            final int square = i * i;
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package warnings.second;
+
+public class Branches {
+    public String describe(final int value) {
+        String description;
+        if (value > 0) {
+            description = "positive";
+        } else {
+            description = "not positive";
+        }
+        return description;
+    }
+}
@@ -0,0 +1,10 @@
+package warnings.second.nested;
+
+public class Constructors {
+    private final int value;
+
+    public Constructors(int value, String name) {
+        int copy = value;
+        this.value = copy;
+    }
+}
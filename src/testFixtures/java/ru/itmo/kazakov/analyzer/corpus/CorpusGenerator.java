@@ -0,0 +1,387 @@
+package ru.itmo.kazakov.analyzer.corpus;
+
+import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.function.Predicate;
+
+/**
+ * Generates synthetic Java source trees for benchmarks and stress tests: classes with fields and methods full of
+ * locals, reassignments, loops, branches, try statements and lambdas.
+ * Every file is generated from its own random generator seeded with the corpus seed and the file index,
+ * so the output depends only on the parameters and any single file can be generated alone.
+ */
+public class CorpusGenerator {
+
+    private static final String ROOT_PACKAGE = "generated";
+    private static final int FEATURES_PER_MODULE = 8;
+
+    private static final String[] NOUNS = {
+            "Order", "Account", "Invoice", "Session", "Cache", "Report", "Token", "Buffer",
+            "Schedule", "Metric", "Route", "Profile", "Payment", "Catalog", "Ledger", "Index"
+    };
+    private static final String[] ROLES = {
+            "Service", "Repository", "Parser", "Validator", "Builder", "Handler", "Resolver", "Processor"
+    };
+    private static final String[] VERBS = {
+            "compute", "process", "update", "collect", "resolve", "merge", "validate", "render"
+    };
+    private static final String[] LOCAL_NAMES = {
+            "count", "index", "total", "value", "result", "offset", "limit", "size",
+            "name", "label", "buffer", "items", "delta", "score", "weight", "key"
+    };
+
+    private final CorpusParameters parameters;
+
+    public CorpusGenerator(@Nonnull final CorpusParameters parameters) {
+        this.parameters = parameters;
+    }
+
+    public static void main(final String[] args) throws IOException {
+        final CorpusParameters parameters;
+        try {
+            parameters = CorpusParameters.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            return;
+        }
+
+        final List<String> outputDirectories = List.of(args).stream().filter(arg -> !arg.startsWith("--")).toList();
+        if (outputDirectories.size() != 1) {
+            System.err.println(CorpusParameters.USAGE);
+            return;
+        }
+
+        final CorpusStatistics statistics = new CorpusGenerator(parameters).generate(Path.of(outputDirectories.getFirst()));
+        System.out.println(
+                "Generated " + statistics.filesCount() + " files, "
+                        + statistics.linesCount() + " lines, "
+                        + statistics.bytesCount() + " bytes"
+        );
+    }
+
+    /**
+     * Writes all sources of the corpus under {@code rootPath}, overwriting existing files.
+     */
+    @Nonnull
+    public CorpusStatistics generate(@Nonnull final Path rootPath) throws IOException {
+        long linesCount = 0;
+        long bytesCount = 0;
+        for (int fileIndex = 0; fileIndex < parameters.filesCount(); fileIndex++) {
+            final GeneratedSource source = generateSource(fileIndex);
+            final Path path = rootPath.resolve(source.relativePath());
+            final byte[] content = source.content().getBytes(StandardCharsets.UTF_8);
+
+            Files.createDirectories(path.getParent());
+            Files.write(path, content);
+
+            linesCount += source.content().lines().count();
+            bytesCount += content.length;
+        }
+        return new CorpusStatistics(parameters.filesCount(), linesCount, bytesCount);
+    }
+
+    @Nonnull
+    public GeneratedSource generateSource(final int fileIndex) {
+        final SplittableRandom random = new SplittableRandom(parameters.seed() * 0x9E3779B97F4A7C15L + fileIndex);
+        final int packageIndex = fileIndex % parameters.packagesCount();
+        final String packageName = ROOT_PACKAGE
+                + ".module" + packageIndex / FEATURES_PER_MODULE
+                + ".feature" + packageIndex % FEATURES_PER_MODULE;
+        final String className = pick(random, NOUNS) + pick(random, ROLES) + fileIndex;
+
+        final SourceWriter writer = new SourceWriter();
+        writer.line("package " + packageName + ";");
+        writer.line("");
+        writer.line("import java.util.ArrayList;");
+        writer.line("import java.util.List;");
+        writer.line("");
+        writer.open("public class " + className + " {");
+        writer.line("");
+        writer.line("private final List<String> names = new ArrayList<>();");
+        writer.line("private long checksum;");
+        writer.line("");
+        for (int methodIndex = 0; methodIndex < parameters.methodsPerClass(); methodIndex++) {
+            new MethodGenerator(random, writer).generate(pick(random, VERBS) + pick(random, NOUNS) + methodIndex);
+            writer.line("");
+        }
+        writer.open("private void consume(final Object value) {");
+        writer.line("checksum += value.hashCode();");
+        writer.line("names.add(String.valueOf(value));");
+        writer.close("}");
+        writer.close("}");
+
+        final Path relativePath = Path
+                .of(packageName.replace('.', '/'))
+                .resolve(className + ".java");
+        return new GeneratedSource(relativePath, writer.toString());
+    }
+
+    private static String pick(final SplittableRandom random, final String[] words) {
+        return words[random.nextInt(words.length)];
+    }
+
+    private enum LocalType {
+        INT("int"),
+        LONG("long"),
+        STRING("String"),
+        LIST("List<String>");
+
+        private final String declaration;
+
+        LocalType(final String declaration) {
+            this.declaration = declaration;
+        }
+    }
+
+    private record Local(String name, LocalType type, boolean isAssignable) {
+        // no methods
+    }
+
+    private enum NestedStatement {
+        IF, IF_ELSE, FOR, FOR_EACH, WHILE, TRY, LAMBDA
+    }
+
+    /**
+     * Generates a single method, keeping track of the visible locals so that the output is valid Java:
+     * names are unique within the method, final locals are never reassigned and lambdas capture nothing mutable.
+     */
+    private final class MethodGenerator {
+
+        private final SplittableRandom random;
+        private final SourceWriter writer;
+        private final Deque<List<Local>> scopes = new ArrayDeque<>();
+        private int localsLeft = parameters.localsPerMethod();
+        private int declaredLocalsCount = 0;
+
+        private MethodGenerator(final SplittableRandom random, final SourceWriter writer) {
+            this.random = random;
+            this.writer = writer;
+        }
+
+        private void generate(final String methodName) {
+            final boolean isFinalParameter = random.nextBoolean();
+            writer.open("public int " + methodName + "(int limit, "
+                    + (isFinalParameter ? "final " : "") + "String prefix) {");
+            scopes.push(new ArrayList<>(List.of(
+                    new Local("limit", LocalType.INT, false),
+                    new Local("prefix", LocalType.STRING, !isFinalParameter)
+            )));
+
+            generateStatements(0, parameters.localsPerMethod() + 2);
+            writer.line("return " + pickLocal(LocalType.INT) + ";");
+
+            scopes.pop();
+            writer.close("}");
+        }
+
+        private void generateBlock(final int depth, final List<Local> blockLocals) {
+            scopes.push(new ArrayList<>(blockLocals));
+            generateStatements(depth, 1 + random.nextInt(3));
+            scopes.pop();
+        }
+
+        private void generateStatements(final int depth, final int statementsCount) {
+            for (int i = 0; i < statementsCount; i++) {
+                final double choice = random.nextDouble();
+                final Local assignable = choice < 0.35 + parameters.assignmentDensity() * 0.5 ? pickAssignable() : null;
+                if (localsLeft > 0 && choice < 0.35) {
+                    declareLocal();
+                } else if (assignable != null) {
+                    assign(assignable);
+                } else if (depth < parameters.maxNestingDepth() && random.nextInt(depth + 2) == 0) {
+                    generateNestedStatement(depth + 1);
+                } else {
+                    writer.line("consume(" + pickExpression() + ");");
+                }
+            }
+        }
+
+        private void declareLocal() {
+            final LocalType type = LocalType.values()[random.nextInt(LocalType.values().length)];
+            final String name = LOCAL_NAMES[random.nextInt(LOCAL_NAMES.length)] + declaredLocalsCount++;
+            final boolean isFinal = random.nextDouble() < 0.3;
+            final String initializer = createInitializer(type);
+            localsLeft--;
+
+            if (random.nextDouble() < 0.8) {
+                writer.line((isFinal ? "final " : "") + type.declaration + " " + name + " = " + initializer + ";");
+            } else {
+                writer.line((isFinal ? "final " : "") + type.declaration + " " + name + ";");
+                writer.line(name + " = " + initializer + ";");
+            }
+            scopes.element().add(new Local(name, type, !isFinal));
+        }
+
+        private void assign(final Local local) {
+            switch (local.type()) {
+                case INT, LONG -> {
+                    switch (random.nextInt(4)) {
+                        case 0 -> writer.line(local.name() + "++;");
+                        case 1 -> writer.line(local.name() + " += " + pickLocal(LocalType.INT) + ";");
+                        case 2 -> writer.line("--" + local.name() + ";");
+                        default -> writer.line(local.name() + " = " + local.name() + " * 31 + "
+                                + pickLocal(LocalType.INT) + ";");
+                    }
+                }
+                case STRING -> writer.line(local.name() + " = " + local.name() + " + " + pickExpression() + ";");
+                case LIST -> writer.line(local.name() + " = new ArrayList<>(" + local.name() + ");");
+            }
+        }
+
+        private void generateNestedStatement(final int depth) {
+            final NestedStatement statement = NestedStatement.values()[random.nextInt(NestedStatement.values().length)];
+            final String suffix = Integer.toString(depth);
+            switch (statement) {
+                case IF -> {
+                    writer.open("if (" + pickCondition() + ") {");
+                    generateBlock(depth, List.of());
+                    writer.close("}");
+                }
+                case IF_ELSE -> {
+                    writer.open("if (" + pickCondition() + ") {");
+                    generateBlock(depth, List.of());
+                    writer.reopen("} else {");
+                    generateBlock(depth, List.of());
+                    writer.close("}");
+                }
+                case FOR -> {
+                    final String index = "i" + suffix;
+                    writer.open("for (int " + index + " = 0; " + index + " < limit; " + index + "++) {");
+                    generateBlock(depth, List.of(new Local(index, LocalType.INT, false)));
+                    writer.close("}");
+                }
+                case FOR_EACH -> {
+                    final String item = "item" + suffix;
+                    writer.open("for (String " + item + " : " + pickLocal(LocalType.LIST) + ") {");
+                    generateBlock(depth, List.of(new Local(item, LocalType.STRING, false)));
+                    writer.close("}");
+                }
+                case WHILE -> {
+                    final String counter = "counter" + declaredLocalsCount++;
+                    writer.line("int " + counter + " = 0;");
+                    writer.open("while (" + counter + " < limit) {");
+                    generateBlock(depth, List.of());
+                    writer.line(counter + "++;");
+                    writer.close("}");
+                }
+                case TRY -> {
+                    final String exception = "exception" + suffix;
+                    writer.open("try {");
+                    generateBlock(depth, List.of());
+                    writer.reopen("} catch (RuntimeException " + exception + ") {");
+                    writer.line("consume(" + exception + ".getMessage());");
+                    writer.close("}");
+                }
+                case LAMBDA -> generateLambda(depth, "element" + suffix);
+            }
+        }
+
+        /**
+         * Lambda bodies see only the lambda parameter, so they never capture a local that is reassigned.
+         */
+        private void generateLambda(final int depth, final String parameter) {
+            final List<List<Local>> outerScopes = new ArrayList<>(scopes);
+            scopes.clear();
+            scopes.push(new ArrayList<>(List.of(new Local("limit", LocalType.INT, false))));
+
+            writer.open("names.forEach(" + parameter + " -> {");
+            generateBlock(depth, List.of(new Local(parameter, LocalType.STRING, false)));
+            writer.close("});");
+
+            scopes.clear();
+            outerScopes.reversed().forEach(scopes::push);
+        }
+
+        private String createInitializer(final LocalType type) {
+            return switch (type) {
+                case INT -> pickLocal(LocalType.INT) + " + " + random.nextInt(100);
+                case LONG -> pickLocal(LocalType.INT) + " * " + random.nextInt(1, 1000) + "L";
+                case STRING -> "\"" + LOCAL_NAMES[random.nextInt(LOCAL_NAMES.length)] + "\"";
+                case LIST -> "new ArrayList<>(names)";
+            };
+        }
+
+        private String pickCondition() {
+            return switch (random.nextInt(3)) {
+                case 0 -> pickLocal(LocalType.INT) + " > " + random.nextInt(100);
+                case 1 -> pickLocal(LocalType.STRING) + ".isEmpty()";
+                default -> pickLocal(LocalType.LIST) + ".size() < limit";
+            };
+        }
+
+        private String pickExpression() {
+            return pickLocal(LocalType.values()[random.nextInt(LocalType.values().length)]);
+        }
+
+        /**
+         * @return name of a random visible local of the given type or an expression of that type
+         */
+        private String pickLocal(final LocalType type) {
+            final List<Local> candidates = findLocals(local -> local.type() == type);
+            if (!candidates.isEmpty()) {
+                return candidates.get(random.nextInt(candidates.size())).name();
+            }
+
+            return switch (type) {
+                case INT -> "limit";
+                case LONG -> "checksum";
+                case STRING -> "\"\"";
+                case LIST -> "names";
+            };
+        }
+
+        private Local pickAssignable() {
+            final List<Local> candidates = findLocals(Local::isAssignable);
+            return candidates.isEmpty() ? null : candidates.get(random.nextInt(candidates.size()));
+        }
+
+        private List<Local> findLocals(final Predicate<Local> filter) {
+            final List<Local> locals = new ArrayList<>();
+            scopes.forEach(scope -> scope.stream().filter(filter).forEach(locals::add));
+            return locals;
+        }
+    }
+
+    private static final class SourceWriter {
+
+        private static final String INDENT = "    ";
+
+        private final StringBuilder source = new StringBuilder();
+        private int depth = 0;
+
+        private void line(final String line) {
+            if (!line.isEmpty()) {
+                source.append(INDENT.repeat(depth)).append(line);
+            }
+            source.append('\n');
+        }
+
+        private void open(final String line) {
+            line(line);
+            depth++;
+        }
+
+        private void reopen(final String line) {
+            depth--;
+            open(line);
+        }
+
+        private void close(final String line) {
+            depth--;
+            line(line);
+        }
+
+        @Override
+        public String toString() {
+            return source.toString();
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package ru.itmo.kazakov.analyzer.corpus;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Size and shape of a generated corpus.
+ *
+ * @param assignmentDensity probability, from 0 to 1, that a generated statement reassigns a local variable
+ */
+public record CorpusParameters(
+        long seed,
+        int filesCount,
+        int packagesCount,
+        int methodsPerClass,
+        int maxNestingDepth,
+        int localsPerMethod,
+        double assignmentDensity
+) {
+
+    public static final String USAGE = "Expected arguments: <output directory>"
+            + " [--seed=<number>]"
+            + " [--files=<count>]"
+            + " [--packages=<count>]"
+            + " [--methods=<count per class>]"
+            + " [--depth=<max nesting depth>]"
+            + " [--locals=<count per method>]"
+            + " [--assignment-density=<0..1>]";
+
+    public static final CorpusParameters DEFAULT = new CorpusParameters(42, 100, 10, 8, 4, 8, 0.3);
+
+    private static final String SEED_OPTION = "--seed=";
+    private static final String FILES_OPTION = "--files=";
+    private static final String PACKAGES_OPTION = "--packages=";
+    private static final String METHODS_OPTION = "--methods=";
+    private static final String DEPTH_OPTION = "--depth=";
+    private static final String LOCALS_OPTION = "--locals=";
+    private static final String ASSIGNMENT_DENSITY_OPTION = "--assignment-density=";
+
+    public CorpusParameters {
+        if (filesCount < 0 || packagesCount < 1 || methodsPerClass < 1 || maxNestingDepth < 0 || localsPerMethod < 0) {
+            throw new IllegalArgumentException("Expected non-negative counts and at least one package and method");
+        }
+        if (assignmentDensity < 0 || assignmentDensity > 1) {
+            throw new IllegalArgumentException("Expected assignment density from 0 to 1, got " + assignmentDensity);
+        }
+    }
+
+    @Nonnull
+    public CorpusParameters withFilesCount(final int filesCount) {
+        return new CorpusParameters(
+                seed,
+                filesCount,
+                packagesCount,
+                methodsPerClass,
+                maxNestingDepth,
+                localsPerMethod,
+                assignmentDensity
+        );
+    }
+
+    @Nonnull
+    public CorpusParameters withSeed(final long seed) {
+        return new CorpusParameters(
+                seed,
+                filesCount,
+                packagesCount,
+                methodsPerClass,
+                maxNestingDepth,
+                localsPerMethod,
+                assignmentDensity
+        );
+    }
+
+    /**
+     * Parses options on top of {@link #DEFAULT}, non-option arguments are ignored.
+     */
+    @Nonnull
+    public static CorpusParameters parse(@Nonnull final String[] args) {
+        long seed = DEFAULT.seed();
+        int filesCount = DEFAULT.filesCount();
+        int packagesCount = DEFAULT.packagesCount();
+        int methodsPerClass = DEFAULT.methodsPerClass();
+        int maxNestingDepth = DEFAULT.maxNestingDepth();
+        int localsPerMethod = DEFAULT.localsPerMethod();
+        double assignmentDensity = DEFAULT.assignmentDensity();
+
+        for (final String arg : args) {
+            try {
+                if (arg.startsWith(SEED_OPTION)) {
+                    seed = Long.parseLong(arg.substring(SEED_OPTION.length()));
+                } else if (arg.startsWith(FILES_OPTION)) {
+                    filesCount = Integer.parseInt(arg.substring(FILES_OPTION.length()));
+                } else if (arg.startsWith(PACKAGES_OPTION)) {
+                    packagesCount = Integer.parseInt(arg.substring(PACKAGES_OPTION.length()));
+                } else if (arg.startsWith(METHODS_OPTION)) {
+                    methodsPerClass = Integer.parseInt(arg.substring(METHODS_OPTION.length()));
+                } else if (arg.startsWith(DEPTH_OPTION)) {
+                    maxNestingDepth = Integer.parseInt(arg.substring(DEPTH_OPTION.length()));
+                } else if (arg.startsWith(LOCALS_OPTION)) {
+                    localsPerMethod = Integer.parseInt(arg.substring(LOCALS_OPTION.length()));
+                } else if (arg.startsWith(ASSIGNMENT_DENSITY_OPTION)) {
+                    assignmentDensity = Double.parseDouble(arg.substring(ASSIGNMENT_DENSITY_OPTION.length()));
+                } else if (arg.startsWith("--")) {
+                    throw new IllegalArgumentException("Unknown option " + arg + ". " + USAGE);
+                }
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Expected a number in " + arg + ". " + USAGE, e);
+            }
+        }
+
+        return new CorpusParameters(
+                seed,
+                filesCount,
+                packagesCount,
+                methodsPerClass,
+                maxNestingDepth,
+                localsPerMethod,
+                assignmentDensity
+        );
+    }
+}
@@ -0,0 +1,5 @@
+package ru.itmo.kazakov.analyzer.corpus;
+
+public record CorpusStatistics(long filesCount, long linesCount, long bytesCount) {
+    // no methods
+}
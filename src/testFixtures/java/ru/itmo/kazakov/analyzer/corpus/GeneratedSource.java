@@ -0,0 +1,11 @@
+package ru.itmo.kazakov.analyzer.corpus;
+
+import javax.annotation.Nonnull;
+import java.nio.file.Path;
+
+/**
+ * @param relativePath path of the source relative to the corpus root, following its package
+ */
+public record GeneratedSource(@Nonnull Path relativePath, @Nonnull String content) {
+    // no methods
+}